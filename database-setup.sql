@@ -32,17 +32,18 @@ INSERT INTO suppliers (name, email, phone, address, contact_person, created_at)
 ('Green Produce Ltd', 'info@greenproduceltd.com', '555-0103', '789 Garden Ave, Produce City', 'Mike Chen', NOW());
 
 -- Sample Products (insert after categories and suppliers are created)
-INSERT INTO products (name, description, sku, barcode, price, stock_quantity, min_stock_level, 
+-- Product ids come from products_seq (allocated by the application in blocks of 50)
+INSERT INTO products (id, name, description, sku, barcode, price, stock_quantity, min_stock_level, 
                      expiration_date, is_perishable, storage_location, category_id, supplier_id, created_at) VALUES 
-('Organic Bananas', 'Fresh organic bananas from Ecuador', 'ORG-BAN-001', '1234567890123', 2.99, 150, 25, 
+(nextval('products_seq'), 'Organic Bananas', 'Fresh organic bananas from Ecuador', 'ORG-BAN-001', '1234567890123', 2.99, 150, 25, 
  CURRENT_DATE + INTERVAL '7 days', true, 'Produce Section A1', 1, 1, NOW()),
-('Whole Milk', 'Fresh whole milk 1L', 'MILK-WHL-001', '1234567890124', 3.49, 80, 15, 
+(nextval('products_seq'), 'Whole Milk', 'Fresh whole milk 1L', 'MILK-WHL-001', '1234567890124', 3.49, 80, 15, 
  CURRENT_DATE + INTERVAL '5 days', true, 'Refrigerator B2', 3, 2, NOW()),
-('Red Apples', 'Crisp red apples', 'APP-RED-001', '1234567890125', 4.99, 120, 20, 
+(nextval('products_seq'), 'Red Apples', 'Crisp red apples', 'APP-RED-001', '1234567890125', 4.99, 120, 20, 
  CURRENT_DATE + INTERVAL '14 days', true, 'Produce Section A2', 1, 1, NOW()),
-('Cheddar Cheese', 'Aged cheddar cheese 200g', 'CHE-CHE-001', '1234567890126', 5.99, 45, 10, 
+(nextval('products_seq'), 'Cheddar Cheese', 'Aged cheddar cheese 200g', 'CHE-CHE-001', '1234567890126', 5.99, 45, 10, 
  CURRENT_DATE + INTERVAL '30 days', true, 'Refrigerator B1', 3, 2, NOW()),
-('Fresh Bread', 'Daily baked white bread', 'BRD-WHT-001', '1234567890127', 2.49, 30, 5, 
+(nextval('products_seq'), 'Fresh Bread', 'Daily baked white bread', 'BRD-WHT-001', '1234567890127', 2.49, 30, 5, 
  CURRENT_DATE + INTERVAL '2 days', true, 'Bakery Section C1', 5, 3, NOW());
 
 -- Indexes for better performance (optional - Spring Boot will create basic ones)
@@ -50,6 +51,27 @@ CREATE INDEX IF NOT EXISTS idx_products_sku ON products(sku);
 CREATE INDEX IF NOT EXISTS idx_products_barcode ON products(barcode);
 CREATE INDEX IF NOT EXISTS idx_products_expiration ON products(expiration_date);
 CREATE INDEX IF NOT EXISTS idx_products_stock_level ON products(stock_quantity, min_stock_level);
+-- Keyset pagination seeks on (name, id) and on (category_id|supplier_id, id)
+CREATE INDEX IF NOT EXISTS idx_products_name_id ON products(name, id);
+CREATE INDEX IF NOT EXISTS idx_products_category_id ON products(category_id, id);
+CREATE INDEX IF NOT EXISTS idx_products_supplier_id ON products(supplier_id, id);
+-- Low-stock reads only touch flagged rows; a partial index stays as small as the shortage list
+CREATE INDEX IF NOT EXISTS idx_products_low_stock_partial ON products(low_stock_since, id) WHERE low_stock;
+
+-- Upgrading a database created before product ids moved from IDENTITY to products_seq:
+-- CREATE SEQUENCE IF NOT EXISTS products_seq INCREMENT BY 50;
+-- SELECT setval('products_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM products));
+-- ...and before optimistic versioning was added to products:
+-- ALTER TABLE products ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+-- ...and before the persisted low-stock flag:
+-- ALTER TABLE products ADD COLUMN IF NOT EXISTS low_stock BOOLEAN NOT NULL DEFAULT false;
+-- ALTER TABLE products ADD COLUMN IF NOT EXISTS low_stock_since TIMESTAMP;
+-- ALTER TABLE products ADD COLUMN IF NOT EXISTS low_stock_cleared_at TIMESTAMP;
+-- UPDATE products SET low_stock = true, low_stock_since = NOW() WHERE stock_quantity <= min_stock_level;
+
+-- Created by the application when inventory.stock-ledger.enabled=true: the last stock ledger log
+-- segment whose deltas have been written to products
+CREATE TABLE IF NOT EXISTS stock_ledger_checkpoint (id INTEGER PRIMARY KEY, segment BIGINT NOT NULL);
 
 -- Comments
 COMMENT ON TABLE products IS 'Main products table for inventory management';
@@ -5,8 +5,14 @@ import io.swagger.v3.oas.annotations.info.Info;
 import io.swagger.v3.oas.annotations.info.Contact;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// R2DBC only backs the read-only scanner API: its transaction manager would compete with JPA's
+// for @Transactional, and all repositories are JPA repositories
+@SpringBootApplication(exclude = {R2dbcTransactionManagerAutoConfiguration.class, R2dbcRepositoriesAutoConfiguration.class})
+@EnableScheduling
 @OpenAPIDefinition(
     info = @Info(
         title = "Smart Grocery Inventory Management System",
@@ -27,8 +33,10 @@ public class SmartGroceryInventoryApplication {
         System.out.println("==========================================");
         System.out.println("🚀 Smart Grocery Inventory System Started!");
         System.out.println("📊 Application running on: http://localhost:8080");
+        System.out.println("📟 Scanner API (reactive): http://localhost:8081/api/products/barcode/{barcode}");
         System.out.println("📋 API Documentation: http://localhost:8080/swagger-ui.html");
         System.out.println("🔍 Health Check: http://localhost:8080/actuator/health");
+        System.out.println("📈 Metrics: http://localhost:8080/actuator/prometheus");
         System.out.println("==========================================");
     }
 }
\ No newline at end of file
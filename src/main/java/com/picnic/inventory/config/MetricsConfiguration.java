@@ -0,0 +1,21 @@
+package com.picnic.inventory.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Meters Spring Boot does not register on its own. HTTP endpoint timers, Spring Data repository
+ * timers, connection pool gauges and Hibernate statistics are auto-configured; histograms and
+ * hibernate.generate_statistics are switched on in application.properties.
+ */
+@Configuration
+public class MetricsConfiguration {
+    
+    // Backs @Timed on the service classes
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,44 @@
+package com.picnic.inventory.config;
+
+import com.picnic.inventory.sql.SqlStatementListener;
+import net.ttddyy.dsproxy.proxy.NanoTimeStopwatchFactory;
+import net.ttddyy.dsproxy.proxy.ProxyConfig;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Wraps every DataSource in a datasource-proxy that reports statements to
+ * {@link SqlStatementListener}, which backs the per-request SQL budget and the slow statement log.
+ */
+@Configuration
+public class SqlMonitoringConfiguration {
+    
+    // Static so the post-processor is registered before the DataSource is created
+    @Bean
+    public static BeanPostProcessor sqlMonitoringDataSourcePostProcessor(
+            @Value("${inventory.sql.slow-statement-threshold-ms:200}") long slowThresholdMs) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                    ProxyDataSource proxy = ProxyDataSourceBuilder.create(beanName, dataSource)
+                            .listener(new SqlStatementListener(Duration.ofMillis(slowThresholdMs)))
+                            .build();
+                    // Elapsed times in nanoseconds rather than the default milliseconds
+                    proxy.setProxyConfig(ProxyConfig.Builder.from(proxy.getProxyConfig())
+                            .stopwatchFactory(new NanoTimeStopwatchFactory())
+                            .build());
+                    return proxy;
+                }
+                return bean;
+            }
+        };
+    }
+}
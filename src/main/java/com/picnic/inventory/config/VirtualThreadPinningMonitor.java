@@ -0,0 +1,98 @@
+package com.picnic.inventory.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, which happens when they block
+ * inside a synchronized block or a native frame. A pinned request holds one of the few carrier
+ * threads and stalls every other request scheduled on it, so with spring.threads.virtual.enabled
+ * pinning shows up as tail latency rather than as an error.
+ * <p>
+ * Pinned intervals above the threshold are read from the in-process JFR event stream and timed
+ * as inventory.virtual.threads.pinned. The stack of the first pinning at each application frame is
+ * logged once; later ones there are only counted.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+    
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+    
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+    
+    private final Duration threshold;
+    private final Timer pinned;
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+    
+    @Autowired
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${inventory.virtual-threads.pinned-threshold-ms:20}") long thresholdMs) {
+        this.threshold = Duration.ofMillis(thresholdMs);
+        this.pinned = Timer.builder("inventory.virtual.threads.pinned")
+                .description("Time virtual threads spent pinned to their carrier above the reporting threshold")
+                .register(meterRegistry);
+    }
+    
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        stream.close();
+    }
+    
+    private void onPinned(RecordedEvent event) {
+        pinned.record(event.getDuration());
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace == null ? List.of() : stackTrace.getFrames();
+        if (reportedSites.add(applicationFrame(frames))) {
+            log.warn("Virtual thread {} pinned to its carrier for {} ms; further pinning at this site is only counted:\n\t{}",
+                    event.getThread("eventThread") == null ? "?" : event.getThread("eventThread").getJavaName(),
+                    event.getDuration().toMillis(),
+                    frames.stream().limit(LOGGED_FRAMES).map(VirtualThreadPinningMonitor::format)
+                            .collect(Collectors.joining("\n\t")));
+        }
+    }
+    
+    // The first frame outside the JDK, so pinning in a driver or library is told apart by its caller
+    private static String applicationFrame(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return format(frame);
+            }
+        }
+        return frames.isEmpty() ? "unknown" : format(frames.get(0));
+    }
+    
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
@@ -1,6 +1,8 @@
 package com.picnic.inventory.controller;
 
+import com.picnic.inventory.dto.InventoryStatsDTO;
 import com.picnic.inventory.model.Category;
+import com.picnic.inventory.service.CatalogVersion;
 import com.picnic.inventory.service.CategoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,6 +13,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -21,28 +24,47 @@ import java.util.Map;
 public class CategoryController {
     
     private final CategoryService categoryService;
+    private final CatalogVersion catalogVersion;
     
     @Autowired
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, CatalogVersion catalogVersion) {
         this.categoryService = categoryService;
+        this.catalogVersion = catalogVersion;
     }
     
     @GetMapping
     @Operation(summary = "Get all categories", description = "Retrieve a list of all product categories")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved categories")
-    public ResponseEntity<List<Category>> getAllCategories() {
+    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the given ETag or date")
+    public ResponseEntity<List<Category>> getAllCategories(WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersion.getETag(), catalogVersion.getLastModified().toEpochMilli())) {
+            return null;
+        }
         List<Category> categories = categoryService.getAllCategories();
         return ResponseEntity.ok(categories);
     }
     
+    @GetMapping("/stats")
+    @Operation(summary = "Get category inventory statistics", description = "Product count, units, value, low-stock, expiring (expired included) and expired counts for every category, plus a row with no id for products without a category")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved category statistics")
+    public ResponseEntity<List<InventoryStatsDTO>> getCategoryStats() {
+        return ResponseEntity.ok(categoryService.getCategoryStats());
+    }
+    
     @GetMapping("/{id}")
     @Operation(summary = "Get category by ID", description = "Retrieve a specific category by its ID")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved category")
+    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the given ETag, or category unchanged since the given date")
     @ApiResponse(responseCode = "404", description = "Category not found")
     public ResponseEntity<Category> getCategoryById(
-            @Parameter(description = "Category ID") @PathVariable Long id) {
+            @Parameter(description = "Category ID") @PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersion.getETag())) {
+            return null;
+        }
         return categoryService.getCategoryById(id)
-                .map(category -> ResponseEntity.ok(category))
+                .map(category -> ResponseEntity.ok()
+                        .lastModified(CatalogVersion.lastModified(category.getCreatedAt(), category.getUpdatedAt()))
+                        .body(category))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -1,18 +1,36 @@
 package com.picnic.inventory.controller;
 
+import com.picnic.inventory.dto.BatchResultDTO;
+import com.picnic.inventory.dto.InventoryValueDTO;
 import com.picnic.inventory.dto.ProductCreateDTO;
+import com.picnic.inventory.dto.ProductPageDTO;
 import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.dto.ProductSuggestionDTO;
+import com.picnic.inventory.dto.StockAdjustmentDTO;
+import com.picnic.inventory.service.CatalogVersion;
+import com.picnic.inventory.service.InventoryValuationService;
+import com.picnic.inventory.service.ProductBatchService;
+import com.picnic.inventory.service.ProductExportService;
 import com.picnic.inventory.service.ProductService;
+import com.picnic.inventory.service.StockBulkService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -21,51 +39,128 @@ import java.util.Map;
 @Tag(name = "Products", description = "Product management operations")
 public class ProductController {
     
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    
+    // The search index is built from one catalog scan at startup
+    private static final String SEARCH_INDEX_RETRY_AFTER_SECONDS = "5";
+    
     private final ProductService productService;
+    private final ProductExportService productExportService;
+    private final ProductBatchService productBatchService;
+    private final StockBulkService stockBulkService;
+    private final InventoryValuationService inventoryValuationService;
+    private final CatalogVersion catalogVersion;
     
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService,
+                             ProductExportService productExportService,
+                             ProductBatchService productBatchService,
+                             StockBulkService stockBulkService,
+                             InventoryValuationService inventoryValuationService,
+                             CatalogVersion catalogVersion) {
         this.productService = productService;
+        this.productExportService = productExportService;
+        this.productBatchService = productBatchService;
+        this.stockBulkService = stockBulkService;
+        this.inventoryValuationService = inventoryValuationService;
+        this.catalogVersion = catalogVersion;
     }
     
     @GetMapping
-    @Operation(summary = "Get all products", description = "Retrieve a list of all products in the inventory")
+    @Operation(summary = "Get products page", description = "Retrieve one cursor-paginated page of products. " +
+            "Pass the returned nextCursor to fetch the following page.")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved products")
-    public ResponseEntity<List<ProductResponseDTO>> getAllProducts() {
-        List<ProductResponseDTO> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the given ETag or date")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor, sort or page size")
+    public ResponseEntity<ProductPageDTO> getAllProducts(
+            @Parameter(description = "Opaque cursor from a previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max " + ProductService.MAX_PAGE_SIZE + ")") @RequestParam(required = false) Integer size,
+            @Parameter(description = "Sort key: id or name") @RequestParam(defaultValue = "id") String sort,
+            @Parameter(description = "Filter by category ID") @RequestParam(required = false) Long categoryId,
+            @Parameter(description = "Filter by supplier ID") @RequestParam(required = false) Long supplierId,
+            @Parameter(description = "Filter by name fragment") @RequestParam(required = false) String name,
+            @Parameter(description = "Only low stock products") @RequestParam(defaultValue = "false") boolean lowStock,
+            WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersion.getETag(), catalogVersion.getLastModified().toEpochMilli())) {
+            return null;
+        }
+        try {
+            ProductPageDTO page = productService.getProductPage(cursor, size, sort, categoryId, supplierId, name, lowStock);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/export")
+    @Operation(summary = "Export product catalog", description = "Stream the full product catalog as NDJSON or CSV")
+    @ApiResponse(responseCode = "200", description = "Catalog export streamed")
+    @ApiResponse(responseCode = "400", description = "Unsupported export format")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @Parameter(description = "Export format: ndjson or csv") @RequestParam(defaultValue = "ndjson") String format) {
+        String exportFormat = format.toLowerCase();
+        if (!ProductExportService.isSupportedFormat(exportFormat)) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        MediaType contentType = ProductExportService.FORMAT_CSV.equals(exportFormat)
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson");
+        StreamingResponseBody body = outputStream -> productExportService.exportProducts(exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + exportFormat + "\"")
+                .body(body);
     }
     
     @GetMapping("/{id}")
     @Operation(summary = "Get product by ID", description = "Retrieve a specific product by its ID")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved product")
+    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the given ETag, or product unchanged since the given date")
     @ApiResponse(responseCode = "404", description = "Product not found")
     public ResponseEntity<ProductResponseDTO> getProductById(
-            @Parameter(description = "Product ID") @PathVariable Long id) {
+            @Parameter(description = "Product ID") @PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersion.getETag())) {
+            return null;
+        }
         return productService.getProductById(id)
-                .map(product -> ResponseEntity.ok(product))
+                .map(product -> ResponseEntity.ok()
+                        .lastModified(catalogVersion.lastModified(product))
+                        .body(product))
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/sku/{sku}")
     @Operation(summary = "Get product by SKU", description = "Retrieve a product by its SKU")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved product")
+    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the given ETag, or product unchanged since the given date")
     @ApiResponse(responseCode = "404", description = "Product not found")
     public ResponseEntity<ProductResponseDTO> getProductBySku(
-            @Parameter(description = "Product SKU") @PathVariable String sku) {
+            @Parameter(description = "Product SKU") @PathVariable String sku, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersion.getETag())) {
+            return null;
+        }
         return productService.getProductBySku(sku)
-                .map(product -> ResponseEntity.ok(product))
+                .map(product -> ResponseEntity.ok()
+                        .lastModified(catalogVersion.lastModified(product))
+                        .body(product))
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @GetMapping("/barcode/{barcode}")
     @Operation(summary = "Get product by barcode", description = "Retrieve a product by its barcode")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved product")
+    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the given ETag, or product unchanged since the given date")
     @ApiResponse(responseCode = "404", description = "Product not found")
     public ResponseEntity<ProductResponseDTO> getProductByBarcode(
-            @Parameter(description = "Product barcode") @PathVariable String barcode) {
+            @Parameter(description = "Product barcode") @PathVariable String barcode, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersion.getETag())) {
+            return null;
+        }
         return productService.getProductByBarcode(barcode)
-                .map(product -> ResponseEntity.ok(product))
+                .map(product -> ResponseEntity.ok()
+                        .lastModified(catalogVersion.lastModified(product))
+                        .body(product))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -82,11 +177,26 @@ public class ProductController {
         }
     }
     
+    @PostMapping("/batch")
+    @Operation(summary = "Create products in batch", description = "Add up to " + ProductBatchService.MAX_BATCH_SIZE +
+            " products in one request. Each item is reported as succeeded or failed by its position in the request.")
+    @ApiResponse(responseCode = "200", description = "Batch processed; see per-item results")
+    @ApiResponse(responseCode = "400", description = "Empty or oversized batch")
+    public ResponseEntity<BatchResultDTO> createProducts(@RequestBody List<ProductCreateDTO> productCreateDTOs) {
+        try {
+            BatchResultDTO result = productBatchService.createProducts(productCreateDTOs);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @PutMapping("/{id}")
     @Operation(summary = "Update product", description = "Update an existing product")
     @ApiResponse(responseCode = "200", description = "Product updated successfully")
     @ApiResponse(responseCode = "400", description = "Invalid input data")
     @ApiResponse(responseCode = "404", description = "Product not found")
+    @ApiResponse(responseCode = "409", description = "Product was modified concurrently")
     public ResponseEntity<ProductResponseDTO> updateProduct(
             @Parameter(description = "Product ID") @PathVariable Long id,
             @Valid @RequestBody ProductCreateDTO productUpdateDTO) {
@@ -95,6 +205,8 @@ public class ProductController {
             return ResponseEntity.ok(updatedProduct);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
     }
     
@@ -113,12 +225,41 @@ public class ProductController {
     }
     
     @GetMapping("/search")
-    @Operation(summary = "Search products", description = "Search products by name")
+    @Operation(summary = "Search products", description = "Ranked search over product name, SKU and description, optionally typo-tolerant; the total match count is returned in X-Total-Count")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved search results")
+    @ApiResponse(responseCode = "400", description = "Invalid limit or page")
+    @ApiResponse(responseCode = "503", description = "Fuzzy search requested while the search index is still being built")
     public ResponseEntity<List<ProductResponseDTO>> searchProducts(
-            @Parameter(description = "Search term") @RequestParam String name) {
-        List<ProductResponseDTO> products = productService.searchProductsByName(name);
-        return ResponseEntity.ok(products);
+            @Parameter(description = "Search term") @RequestParam String name,
+            @Parameter(description = "Maximum number of results (1-500, default 50)") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Zero-based result page") @RequestParam(required = false) Integer page,
+            @Parameter(description = "Tolerate typos in name words") @RequestParam(defaultValue = "false") boolean fuzzy) {
+        try {
+            Page<ProductResponseDTO> products = productService.searchProducts(name, limit, page, fuzzy);
+            return ResponseEntity.ok()
+                    .header(TOTAL_COUNT_HEADER, String.valueOf(products.getTotalElements()))
+                    .body(products.getContent());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, SEARCH_INDEX_RETRY_AFTER_SECONDS)
+                    .build();
+        }
+    }
+    
+    @GetMapping("/suggest")
+    @Operation(summary = "Suggest products", description = "Autocomplete products whose name, SKU or barcode starts with the prefix")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved suggestions")
+    @ApiResponse(responseCode = "400", description = "Invalid limit")
+    public ResponseEntity<List<ProductSuggestionDTO>> suggestProducts(
+            @Parameter(description = "Name, SKU or barcode prefix") @RequestParam String prefix,
+            @Parameter(description = "Maximum number of suggestions (1-50, default 10)") @RequestParam(required = false) Integer limit) {
+        try {
+            return ResponseEntity.ok(productService.suggestProducts(prefix, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/low-stock")
@@ -151,6 +292,7 @@ public class ProductController {
     @ApiResponse(responseCode = "200", description = "Stock updated successfully")
     @ApiResponse(responseCode = "400", description = "Invalid stock quantity")
     @ApiResponse(responseCode = "404", description = "Product not found")
+    @ApiResponse(responseCode = "409", description = "Product was modified concurrently")
     public ResponseEntity<ProductResponseDTO> updateProductStock(
             @Parameter(description = "Product ID") @PathVariable Long id,
             @RequestBody Map<String, Integer> stockUpdate) {
@@ -164,14 +306,85 @@ public class ProductController {
             return ResponseEntity.ok(updatedProduct);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+    
+    @PostMapping("/{id}/stock/increment")
+    @Operation(summary = "Increment product stock", description = "Atomically add a quantity to the stock of a product")
+    @ApiResponse(responseCode = "200", description = "Stock incremented successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid quantity or product not found")
+    public ResponseEntity<ProductResponseDTO> incrementProductStock(
+            @Parameter(description = "Product ID") @PathVariable Long id,
+            @RequestBody Map<String, Integer> stockChange) {
+        Integer quantity = stockChange.get("quantity");
+        if (quantity == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(productService.incrementStock(id, quantity));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PostMapping("/{id}/stock/decrement")
+    @Operation(summary = "Decrement product stock", description = "Atomically remove a quantity from the stock of a product; " +
+            "rejected if it would make the stock negative")
+    @ApiResponse(responseCode = "200", description = "Stock decremented successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid quantity or product not found")
+    @ApiResponse(responseCode = "409", description = "Insufficient stock")
+    public ResponseEntity<ProductResponseDTO> decrementProductStock(
+            @Parameter(description = "Product ID") @PathVariable Long id,
+            @RequestBody Map<String, Integer> stockChange) {
+        Integer quantity = stockChange.get("quantity");
+        if (quantity == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(productService.decrementStock(id, quantity));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+    
+    @PostMapping("/stock/bulk")
+    @Operation(summary = "Bulk stock adjustment", description = "Apply up to " + StockBulkService.MAX_LINES +
+            " stock lines identified by id, sku or barcode, each with a relative delta or an absolute quantity. " +
+            "Lines are applied in request order and reported individually. Lines are committed in chunks of " +
+            StockBulkService.CHUNK_SIZE + "; if a chunk fails as a whole, each of its lines is reported as failed and none of them is applied.")
+    @ApiResponse(responseCode = "200", description = "Adjustment processed; see per-line results")
+    @ApiResponse(responseCode = "400", description = "Empty or oversized adjustment")
+    public ResponseEntity<BatchResultDTO> adjustStockInBulk(@RequestBody List<StockAdjustmentDTO> adjustments) {
+        try {
+            BatchResultDTO result = stockBulkService.adjustStock(adjustments);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         }
     }
     
     @GetMapping("/inventory-value")
-    @Operation(summary = "Get total inventory value", description = "Calculate the total value of all products in inventory")
+    @Operation(summary = "Get total inventory value", description = "Total value (price times stock) of all products in inventory")
     @ApiResponse(responseCode = "200", description = "Successfully calculated inventory value")
-    public ResponseEntity<Map<String, Double>> getTotalInventoryValue() {
-        Double totalValue = productService.getTotalInventoryValue();
-        return ResponseEntity.ok(Map.of("totalValue", totalValue != null ? totalValue : 0.0));
+    public ResponseEntity<Map<String, BigDecimal>> getTotalInventoryValue() {
+        return ResponseEntity.ok(Map.of("totalValue", inventoryValuationService.getTotalValue()));
+    }
+    
+    @GetMapping("/inventory-value/by-category")
+    @Operation(summary = "Get inventory value by category", description = "Inventory value per category; products without a category are listed under a null id")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved inventory value breakdown")
+    public ResponseEntity<List<InventoryValueDTO>> getInventoryValueByCategory() {
+        return ResponseEntity.ok(inventoryValuationService.getValueByCategory());
+    }
+    
+    @GetMapping("/inventory-value/by-supplier")
+    @Operation(summary = "Get inventory value by supplier", description = "Inventory value per supplier; products without a supplier are listed under a null id")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved inventory value breakdown")
+    public ResponseEntity<List<InventoryValueDTO>> getInventoryValueBySupplier() {
+        return ResponseEntity.ok(inventoryValuationService.getValueBySupplier());
     }
 }
\ No newline at end of file
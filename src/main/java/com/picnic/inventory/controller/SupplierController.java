@@ -1,6 +1,10 @@
 package com.picnic.inventory.controller;
 
+import com.picnic.inventory.dto.InventoryStatsDTO;
+import com.picnic.inventory.dto.ReorderProposalDTO;
 import com.picnic.inventory.model.Supplier;
+import com.picnic.inventory.service.CatalogVersion;
+import com.picnic.inventory.service.ReplenishmentService;
 import com.picnic.inventory.service.SupplierService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,6 +15,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -21,28 +26,68 @@ import java.util.Map;
 public class SupplierController {
     
     private final SupplierService supplierService;
+    private final CatalogVersion catalogVersion;
+    private final ReplenishmentService replenishmentService;
     
     @Autowired
-    public SupplierController(SupplierService supplierService) {
+    public SupplierController(SupplierService supplierService, CatalogVersion catalogVersion,
+                              ReplenishmentService replenishmentService) {
         this.supplierService = supplierService;
+        this.catalogVersion = catalogVersion;
+        this.replenishmentService = replenishmentService;
     }
     
     @GetMapping
     @Operation(summary = "Get all suppliers", description = "Retrieve a list of all suppliers")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved suppliers")
-    public ResponseEntity<List<Supplier>> getAllSuppliers() {
+    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the given ETag or date")
+    public ResponseEntity<List<Supplier>> getAllSuppliers(WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersion.getETag(), catalogVersion.getLastModified().toEpochMilli())) {
+            return null;
+        }
         List<Supplier> suppliers = supplierService.getAllSuppliers();
         return ResponseEntity.ok(suppliers);
     }
     
+    @GetMapping("/stats")
+    @Operation(summary = "Get supplier inventory statistics", description = "Product count, units, value, low-stock, expiring (expired included) and expired counts for every supplier, plus a row with no id for products without a supplier")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved supplier statistics")
+    public ResponseEntity<List<InventoryStatsDTO>> getSupplierStats() {
+        return ResponseEntity.ok(supplierService.getSupplierStats());
+    }
+    
+    @GetMapping("/reorder-proposals")
+    @Operation(summary = "Get reorder proposals", description = "One proposal per supplier with low-stock products, ordering each back up to its target level")
+    @ApiResponse(responseCode = "200", description = "Successfully computed reorder proposals")
+    public ResponseEntity<List<ReorderProposalDTO>> getReorderProposals() {
+        return ResponseEntity.ok(replenishmentService.getAllProposals());
+    }
+    
+    @GetMapping("/{id}/reorder-proposal")
+    @Operation(summary = "Get supplier reorder proposal", description = "Reorder quantities for the supplier's low-stock products, most urgent first")
+    @ApiResponse(responseCode = "200", description = "Successfully computed reorder proposal")
+    @ApiResponse(responseCode = "404", description = "Supplier not found")
+    public ResponseEntity<ReorderProposalDTO> getReorderProposal(
+            @Parameter(description = "Supplier ID") @PathVariable Long id) {
+        return replenishmentService.getProposal(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
     @GetMapping("/{id}")
     @Operation(summary = "Get supplier by ID", description = "Retrieve a specific supplier by its ID")
     @ApiResponse(responseCode = "200", description = "Successfully retrieved supplier")
+    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the given ETag, or supplier unchanged since the given date")
     @ApiResponse(responseCode = "404", description = "Supplier not found")
     public ResponseEntity<Supplier> getSupplierById(
-            @Parameter(description = "Supplier ID") @PathVariable Long id) {
+            @Parameter(description = "Supplier ID") @PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.checkNotModified(catalogVersion.getETag())) {
+            return null;
+        }
         return supplierService.getSupplierById(id)
-                .map(supplier -> ResponseEntity.ok(supplier))
+                .map(supplier -> ResponseEntity.ok()
+                        .lastModified(CatalogVersion.lastModified(supplier.getCreatedAt(), supplier.getUpdatedAt()))
+                        .body(supplier))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -0,0 +1,86 @@
+package com.picnic.inventory.dto;
+
+public class BatchItemResultDTO {
+    
+    public enum Status {
+        SUCCEEDED,
+        FAILED
+    }
+    
+    private int index;
+    private Status status;
+    private Long id;
+    private String key;
+    private Integer stockQuantity;
+    private String error;
+    
+    // Constructors
+    public BatchItemResultDTO() {}
+    
+    public static BatchItemResultDTO succeeded(int index, String key, Long id) {
+        BatchItemResultDTO result = new BatchItemResultDTO();
+        result.setIndex(index);
+        result.setStatus(Status.SUCCEEDED);
+        result.setKey(key);
+        result.setId(id);
+        return result;
+    }
+    
+    public static BatchItemResultDTO failed(int index, String key, String error) {
+        BatchItemResultDTO result = new BatchItemResultDTO();
+        result.setIndex(index);
+        result.setStatus(Status.FAILED);
+        result.setKey(key);
+        result.setError(error);
+        return result;
+    }
+    
+    // Getters and Setters
+    public int getIndex() {
+        return index;
+    }
+    
+    public void setIndex(int index) {
+        this.index = index;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getKey() {
+        return key;
+    }
+    
+    public void setKey(String key) {
+        this.key = key;
+    }
+    
+    public Integer getStockQuantity() {
+        return stockQuantity;
+    }
+    
+    public void setStockQuantity(Integer stockQuantity) {
+        this.stockQuantity = stockQuantity;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,56 @@
+package com.picnic.inventory.dto;
+
+import java.util.List;
+
+public class BatchResultDTO {
+    
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<BatchItemResultDTO> results;
+    
+    // Constructors
+    public BatchResultDTO() {}
+    
+    public BatchResultDTO(List<BatchItemResultDTO> results) {
+        this.results = results;
+        this.total = results.size();
+        this.succeeded = (int) results.stream()
+                .filter(result -> result.getStatus() == BatchItemResultDTO.Status.SUCCEEDED)
+                .count();
+        this.failed = total - succeeded;
+    }
+    
+    // Getters and Setters
+    public int getTotal() {
+        return total;
+    }
+    
+    public void setTotal(int total) {
+        this.total = total;
+    }
+    
+    public int getSucceeded() {
+        return succeeded;
+    }
+    
+    public void setSucceeded(int succeeded) {
+        this.succeeded = succeeded;
+    }
+    
+    public int getFailed() {
+        return failed;
+    }
+    
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+    
+    public List<BatchItemResultDTO> getResults() {
+        return results;
+    }
+    
+    public void setResults(List<BatchItemResultDTO> results) {
+        this.results = results;
+    }
+}
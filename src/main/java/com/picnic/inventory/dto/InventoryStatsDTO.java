@@ -0,0 +1,102 @@
+package com.picnic.inventory.dto;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+
+public class InventoryStatsDTO {
+    
+    // By group name, with the row for products without a category or supplier last
+    public static final Comparator<InventoryStatsDTO> BY_NAME = Comparator
+            .comparing(InventoryStatsDTO::getName, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(InventoryStatsDTO::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+    
+    // Category or supplier the figures are grouped by
+    private Long id;
+    private String name;
+    private long productCount;
+    private long units;
+    private BigDecimal value;
+    private long lowStockCount;
+    private long expiringCount;
+    private long expiredCount;
+    
+    // Constructors
+    public InventoryStatsDTO() {}
+    
+    public InventoryStatsDTO(Long id, String name, Long productCount, Long units, BigDecimal value,
+                             Long lowStockCount, Long expiringCount, Long expiredCount) {
+        this.id = id;
+        this.name = name;
+        this.productCount = productCount;
+        this.units = units;
+        this.value = value;
+        this.lowStockCount = lowStockCount;
+        this.expiringCount = expiringCount;
+        this.expiredCount = expiredCount;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public long getProductCount() {
+        return productCount;
+    }
+    
+    public void setProductCount(long productCount) {
+        this.productCount = productCount;
+    }
+    
+    public long getUnits() {
+        return units;
+    }
+    
+    public void setUnits(long units) {
+        this.units = units;
+    }
+    
+    public BigDecimal getValue() {
+        return value;
+    }
+    
+    public void setValue(BigDecimal value) {
+        this.value = value;
+    }
+    
+    public long getLowStockCount() {
+        return lowStockCount;
+    }
+    
+    public void setLowStockCount(long lowStockCount) {
+        this.lowStockCount = lowStockCount;
+    }
+    
+    public long getExpiringCount() {
+        return expiringCount;
+    }
+    
+    public void setExpiringCount(long expiringCount) {
+        this.expiringCount = expiringCount;
+    }
+    
+    public long getExpiredCount() {
+        return expiredCount;
+    }
+    
+    public void setExpiredCount(long expiredCount) {
+        this.expiredCount = expiredCount;
+    }
+}
@@ -0,0 +1,35 @@
+package com.picnic.inventory.dto;
+
+import java.math.BigDecimal;
+
+public class InventoryValueDTO {
+    
+    // Category or supplier id; null for products without one
+    private Long id;
+    private BigDecimal value;
+    
+    // Constructors
+    public InventoryValueDTO() {}
+    
+    public InventoryValueDTO(Long id, BigDecimal value) {
+        this.id = id;
+        this.value = value;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public BigDecimal getValue() {
+        return value;
+    }
+    
+    public void setValue(BigDecimal value) {
+        this.value = value;
+    }
+}
@@ -0,0 +1,89 @@
+package com.picnic.inventory.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the product change feed. Ids increase in publication order and are used as the
+ * Server-Sent Events id, so a reconnecting client resumes after the last one it received.
+ * {@code previous} is null for CREATED and {@code current} is null for DELETED.
+ */
+public class ProductChangeDTO {
+    
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STOCK_CHANGED,
+        LOW_STOCK_ENTERED,
+        LOW_STOCK_CLEARED
+    }
+    
+    private long id;
+    private Type type;
+    private Long productId;
+    private LocalDateTime occurredAt;
+    private ProductResponseDTO previous;
+    private ProductResponseDTO current;
+    
+    // Constructors
+    public ProductChangeDTO() {}
+    
+    public ProductChangeDTO(long id, Type type, Long productId, LocalDateTime occurredAt,
+                            ProductResponseDTO previous, ProductResponseDTO current) {
+        this.id = id;
+        this.type = type;
+        this.productId = productId;
+        this.occurredAt = occurredAt;
+        this.previous = previous;
+        this.current = current;
+    }
+    
+    // Getters and Setters
+    public long getId() {
+        return id;
+    }
+    
+    public void setId(long id) {
+        this.id = id;
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public void setType(Type type) {
+        this.type = type;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+    
+    public void setOccurredAt(LocalDateTime occurredAt) {
+        this.occurredAt = occurredAt;
+    }
+    
+    public ProductResponseDTO getPrevious() {
+        return previous;
+    }
+    
+    public void setPrevious(ProductResponseDTO previous) {
+        this.previous = previous;
+    }
+    
+    public ProductResponseDTO getCurrent() {
+        return current;
+    }
+    
+    public void setCurrent(ProductResponseDTO current) {
+        this.current = current;
+    }
+}
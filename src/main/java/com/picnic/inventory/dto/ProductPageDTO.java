@@ -0,0 +1,54 @@
+package com.picnic.inventory.dto;
+
+import java.util.List;
+
+public class ProductPageDTO {
+    
+    private List<ProductResponseDTO> items;
+    private String nextCursor;
+    private boolean hasMore;
+    private int size;
+    
+    // Constructors
+    public ProductPageDTO() {}
+    
+    public ProductPageDTO(List<ProductResponseDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+        this.size = items.size();
+    }
+    
+    // Getters and Setters
+    public List<ProductResponseDTO> getItems() {
+        return items;
+    }
+    
+    public void setItems(List<ProductResponseDTO> items) {
+        this.items = items;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+    
+    public boolean isHasMore() {
+        return hasMore;
+    }
+    
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+    
+    public int getSize() {
+        return size;
+    }
+    
+    public void setSize(int size) {
+        this.size = size;
+    }
+}
@@ -17,17 +17,46 @@ public class ProductResponseDTO {
     private LocalDate expirationDate;
     private Boolean isPerishable;
     private String storageLocation;
+    private Long categoryId;
     private String categoryName;
+    private Long supplierId;
     private String supplierName;
     private Boolean isLowStock;
     private Boolean isExpired;
     private Boolean isExpiringSoon;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private LocalDateTime lowStockSince;
+    private LocalDateTime lowStockClearedAt;
     
     // Constructors
     public ProductResponseDTO() {}
     
+    public ProductResponseDTO(ProductResponseDTO source) {
+        this.id = source.id;
+        this.name = source.name;
+        this.description = source.description;
+        this.sku = source.sku;
+        this.barcode = source.barcode;
+        this.price = source.price;
+        this.stockQuantity = source.stockQuantity;
+        this.minStockLevel = source.minStockLevel;
+        this.expirationDate = source.expirationDate;
+        this.isPerishable = source.isPerishable;
+        this.storageLocation = source.storageLocation;
+        this.categoryId = source.categoryId;
+        this.categoryName = source.categoryName;
+        this.supplierId = source.supplierId;
+        this.supplierName = source.supplierName;
+        this.isLowStock = source.isLowStock;
+        this.isExpired = source.isExpired;
+        this.isExpiringSoon = source.isExpiringSoon;
+        this.createdAt = source.createdAt;
+        this.updatedAt = source.updatedAt;
+        this.lowStockSince = source.lowStockSince;
+        this.lowStockClearedAt = source.lowStockClearedAt;
+    }
+    
     // Getters and Setters
     public Long getId() {
         return id;
@@ -117,6 +146,14 @@ public class ProductResponseDTO {
         this.storageLocation = storageLocation;
     }
     
+    public Long getCategoryId() {
+        return categoryId;
+    }
+    
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+    
     public String getCategoryName() {
         return categoryName;
     }
@@ -125,6 +162,14 @@ public class ProductResponseDTO {
         this.categoryName = categoryName;
     }
     
+    public Long getSupplierId() {
+        return supplierId;
+    }
+    
+    public void setSupplierId(Long supplierId) {
+        this.supplierId = supplierId;
+    }
+    
     public String getSupplierName() {
         return supplierName;
     }
@@ -172,4 +217,20 @@ public class ProductResponseDTO {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    public LocalDateTime getLowStockSince() {
+        return lowStockSince;
+    }
+    
+    public void setLowStockSince(LocalDateTime lowStockSince) {
+        this.lowStockSince = lowStockSince;
+    }
+    
+    public LocalDateTime getLowStockClearedAt() {
+        return lowStockClearedAt;
+    }
+    
+    public void setLowStockClearedAt(LocalDateTime lowStockClearedAt) {
+        this.lowStockClearedAt = lowStockClearedAt;
+    }
 }
\ No newline at end of file
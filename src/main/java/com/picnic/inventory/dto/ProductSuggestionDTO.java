@@ -0,0 +1,52 @@
+package com.picnic.inventory.dto;
+
+public class ProductSuggestionDTO {
+    
+    private Long id;
+    private String name;
+    private String sku;
+    private String barcode;
+    
+    // Constructors
+    public ProductSuggestionDTO() {}
+    
+    public ProductSuggestionDTO(Long id, String name, String sku, String barcode) {
+        this.id = id;
+        this.name = name;
+        this.sku = sku;
+        this.barcode = barcode;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public String getSku() {
+        return sku;
+    }
+    
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+    
+    public String getBarcode() {
+        return barcode;
+    }
+    
+    public void setBarcode(String barcode) {
+        this.barcode = barcode;
+    }
+}
@@ -0,0 +1,104 @@
+package com.picnic.inventory.dto;
+
+import java.math.BigDecimal;
+
+public class ReorderLineDTO {
+    
+    private Long productId;
+    private String sku;
+    private String name;
+    private Long supplierId;
+    private int stockQuantity;
+    private int minStockLevel;
+    private BigDecimal price;
+    private int reorderQuantity;
+    // Price times reorder quantity, at the catalog price
+    private BigDecimal lineValue;
+    
+    // Constructors
+    public ReorderLineDTO() {}
+    
+    public ReorderLineDTO(Long productId, String sku, String name, Long supplierId,
+                          Integer stockQuantity, Integer minStockLevel, BigDecimal price) {
+        this.productId = productId;
+        this.sku = sku;
+        this.name = name;
+        this.supplierId = supplierId;
+        this.stockQuantity = stockQuantity;
+        this.minStockLevel = minStockLevel;
+        this.price = price;
+    }
+    
+    // Getters and Setters
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public String getSku() {
+        return sku;
+    }
+    
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public Long getSupplierId() {
+        return supplierId;
+    }
+    
+    public void setSupplierId(Long supplierId) {
+        this.supplierId = supplierId;
+    }
+    
+    public int getStockQuantity() {
+        return stockQuantity;
+    }
+    
+    public void setStockQuantity(int stockQuantity) {
+        this.stockQuantity = stockQuantity;
+    }
+    
+    public int getMinStockLevel() {
+        return minStockLevel;
+    }
+    
+    public void setMinStockLevel(int minStockLevel) {
+        this.minStockLevel = minStockLevel;
+    }
+    
+    public BigDecimal getPrice() {
+        return price;
+    }
+    
+    public void setPrice(BigDecimal price) {
+        this.price = price;
+    }
+    
+    public int getReorderQuantity() {
+        return reorderQuantity;
+    }
+    
+    public void setReorderQuantity(int reorderQuantity) {
+        this.reorderQuantity = reorderQuantity;
+    }
+    
+    public BigDecimal getLineValue() {
+        return lineValue;
+    }
+    
+    public void setLineValue(BigDecimal lineValue) {
+        this.lineValue = lineValue;
+    }
+}
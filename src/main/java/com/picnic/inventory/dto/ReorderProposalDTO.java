@@ -0,0 +1,88 @@
+package com.picnic.inventory.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class ReorderProposalDTO {
+    
+    private Long supplierId;
+    private String supplierName;
+    private String supplierEmail;
+    private LocalDateTime generatedAt;
+    // Most urgent first: lowest stock relative to the minimum level
+    private List<ReorderLineDTO> lines;
+    private long totalUnits;
+    private BigDecimal totalValue;
+    
+    // Constructors
+    public ReorderProposalDTO() {}
+    
+    public ReorderProposalDTO(Long supplierId, String supplierName, String supplierEmail, LocalDateTime generatedAt,
+                              List<ReorderLineDTO> lines, long totalUnits, BigDecimal totalValue) {
+        this.supplierId = supplierId;
+        this.supplierName = supplierName;
+        this.supplierEmail = supplierEmail;
+        this.generatedAt = generatedAt;
+        this.lines = lines;
+        this.totalUnits = totalUnits;
+        this.totalValue = totalValue;
+    }
+    
+    // Getters and Setters
+    public Long getSupplierId() {
+        return supplierId;
+    }
+    
+    public void setSupplierId(Long supplierId) {
+        this.supplierId = supplierId;
+    }
+    
+    public String getSupplierName() {
+        return supplierName;
+    }
+    
+    public void setSupplierName(String supplierName) {
+        this.supplierName = supplierName;
+    }
+    
+    public String getSupplierEmail() {
+        return supplierEmail;
+    }
+    
+    public void setSupplierEmail(String supplierEmail) {
+        this.supplierEmail = supplierEmail;
+    }
+    
+    public LocalDateTime getGeneratedAt() {
+        return generatedAt;
+    }
+    
+    public void setGeneratedAt(LocalDateTime generatedAt) {
+        this.generatedAt = generatedAt;
+    }
+    
+    public List<ReorderLineDTO> getLines() {
+        return lines;
+    }
+    
+    public void setLines(List<ReorderLineDTO> lines) {
+        this.lines = lines;
+    }
+    
+    public long getTotalUnits() {
+        return totalUnits;
+    }
+    
+    public void setTotalUnits(long totalUnits) {
+        this.totalUnits = totalUnits;
+    }
+    
+    public BigDecimal getTotalValue() {
+        return totalValue;
+    }
+    
+    public void setTotalValue(BigDecimal totalValue) {
+        this.totalValue = totalValue;
+    }
+}
@@ -0,0 +1,59 @@
+package com.picnic.inventory.dto;
+
+/**
+ * One line of a bulk stock adjustment. Exactly one of {@code id}, {@code sku} or {@code barcode}
+ * identifies the product, and exactly one of {@code delta} (relative change) or {@code quantity}
+ * (absolute count) describes the change.
+ */
+public class StockAdjustmentDTO {
+    
+    private Long id;
+    private String sku;
+    private String barcode;
+    private Integer delta;
+    private Integer quantity;
+    
+    // Constructors
+    public StockAdjustmentDTO() {}
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getSku() {
+        return sku;
+    }
+    
+    public void setSku(String sku) {
+        this.sku = sku;
+    }
+    
+    public String getBarcode() {
+        return barcode;
+    }
+    
+    public void setBarcode(String barcode) {
+        this.barcode = barcode;
+    }
+    
+    public Integer getDelta() {
+        return delta;
+    }
+    
+    public void setDelta(Integer delta) {
+        this.delta = delta;
+    }
+    
+    public Integer getQuantity() {
+        return quantity;
+    }
+    
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
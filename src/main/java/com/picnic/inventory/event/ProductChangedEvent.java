@@ -0,0 +1,61 @@
+package com.picnic.inventory.event;
+
+import com.picnic.inventory.dto.ProductResponseDTO;
+
+/**
+ * Published by {@code ProductService} for every product write. Listeners receive fully built
+ * snapshots of the product before and after the change, so in-memory views can be maintained
+ * without going back to the database. {@code previous} is null for CREATED and {@code current}
+ * is null for DELETED.
+ */
+public class ProductChangedEvent {
+    
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STOCK_CHANGED
+    }
+    
+    private final Type type;
+    private final ProductResponseDTO previous;
+    private final ProductResponseDTO current;
+    
+    public ProductChangedEvent(Type type, ProductResponseDTO previous, ProductResponseDTO current) {
+        this.type = type;
+        this.previous = previous;
+        this.current = current;
+    }
+    
+    public static ProductChangedEvent created(ProductResponseDTO current) {
+        return new ProductChangedEvent(Type.CREATED, null, current);
+    }
+    
+    public static ProductChangedEvent updated(ProductResponseDTO previous, ProductResponseDTO current) {
+        return new ProductChangedEvent(Type.UPDATED, previous, current);
+    }
+    
+    public static ProductChangedEvent deleted(ProductResponseDTO previous) {
+        return new ProductChangedEvent(Type.DELETED, previous, null);
+    }
+    
+    public static ProductChangedEvent stockChanged(ProductResponseDTO previous, ProductResponseDTO current) {
+        return new ProductChangedEvent(Type.STOCK_CHANGED, previous, current);
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public ProductResponseDTO getPrevious() {
+        return previous;
+    }
+    
+    public ProductResponseDTO getCurrent() {
+        return current;
+    }
+    
+    public Long getProductId() {
+        return current != null ? current.getId() : previous.getId();
+    }
+}
@@ -0,0 +1,51 @@
+package com.picnic.inventory.event;
+
+/**
+ * Published when a category or supplier is created, updated or deleted. Product views that carry
+ * denormalized category or supplier data must treat affected entries as stale on updates and
+ * deletes; deleting a category or supplier also cascades to its products. Creates cannot affect
+ * existing products and only matter to views of the reference data itself.
+ */
+public class ReferenceDataChangedEvent {
+    
+    public enum Kind {
+        CATEGORY,
+        SUPPLIER
+    }
+    
+    public enum Change {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+    
+    private final Kind kind;
+    private final Long id;
+    private final Change change;
+    
+    public ReferenceDataChangedEvent(Kind kind, Long id, Change change) {
+        this.kind = kind;
+        this.id = id;
+        this.change = change;
+    }
+    
+    public Kind getKind() {
+        return kind;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public Change getChange() {
+        return change;
+    }
+    
+    public boolean isCreated() {
+        return change == Change.CREATED;
+    }
+    
+    public boolean isDeleted() {
+        return change == Change.DELETED;
+    }
+}
@@ -0,0 +1,196 @@
+package com.picnic.inventory.index;
+
+import com.picnic.inventory.event.ProductChangedEvent;
+import com.picnic.inventory.service.ProductCatalogScanner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Day-bucketed calendar of product expiration dates, so the expiring and expired lists are read
+ * in time proportional to their size instead of running range queries and evaluating the current
+ * date for every row.
+ * <p>
+ * Products expiring today or later sit in one bucket per day; a sweeper moves the buckets that
+ * fell behind the current date into a single expired bucket at midnight. Buckets are maintained
+ * after commit of every product write and filled from a catalog scan at startup; until that scan
+ * has finished {@link #isReady()} is false and callers query the database instead. Deletes that
+ * cascade from categories and suppliers are not announced per product, so callers load the ids
+ * they get back and report missing ones through {@link #forget(Collection)}.
+ */
+@Component
+public class ExpirationCalendar {
+    
+    private static final Logger log = LoggerFactory.getLogger(ExpirationCalendar.class);
+    
+    private final ConcurrentSkipListMap<LocalDate, Set<Long>> upcoming = new ConcurrentSkipListMap<>();
+    private final Set<Long> expired = new ConcurrentSkipListSet<>();
+    private final ConcurrentHashMap<Long, LocalDate> dateById = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    
+    private final ProductCatalogScanner catalogScanner;
+    private final boolean enabled;
+    
+    private volatile LocalDate today = LocalDate.now();
+    private volatile boolean ready;
+    
+    private final ProductCatalogScanner.WriteTracker warmUpWrites = new ProductCatalogScanner.WriteTracker();
+    
+    @Autowired
+    public ExpirationCalendar(ProductCatalogScanner catalogScanner,
+                              @Value("${inventory.expiration-calendar.enabled:true}") boolean enabled) {
+        this.catalogScanner = catalogScanner;
+        this.enabled = enabled;
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Ids of products expiring between today and {@code days} from now, inclusive, soonest first.
+     */
+    public List<Long> findExpiringWithinDays(int days) {
+        sweepIfDayChanged();
+        LocalDate from = today;
+        List<Long> ids = new ArrayList<>();
+        for (Set<Long> bucket : upcoming.subMap(from, true, from.plusDays(days), true).values()) {
+            ids.addAll(bucket);
+        }
+        return ids;
+    }
+    
+    /**
+     * Ids of products whose expiration date is before today, in id order.
+     */
+    public List<Long> findExpired() {
+        sweepIfDayChanged();
+        return new ArrayList<>(expired);
+    }
+    
+    /**
+     * Drops ids the caller found no longer exist.
+     */
+    public void forget(Collection<Long> productIds) {
+        writeLock.lock();
+        try {
+            productIds.forEach(this::remove);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            warmUpWrites.written(event.getProductId());
+            remove(event.getProductId());
+            if (event.getCurrent() != null) {
+                add(event.getCurrent().getId(), event.getCurrent().getExpirationDate());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        catalogScanner.warmUp(warmUpWrites, writeLock, product -> {
+            if (product.getExpirationDate() != null) {
+                add(product.getId(), product.getExpirationDate());
+            }
+        });
+        ready = true;
+        log.info("Expiration calendar built with {} dated products ({} expired) in {} ms",
+                dateById.size(), expired.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    /**
+     * Moves every bucket dated before the new day into the expired bucket. Reads also sweep when
+     * they notice the date has changed, in case the scheduled run is late.
+     */
+    @Scheduled(cron = "0 0 0 * * *")
+    public void sweep() {
+        advanceTo(LocalDate.now());
+    }
+    
+    void advanceTo(LocalDate newToday) {
+        writeLock.lock();
+        try {
+            if (!newToday.isAfter(today)) {
+                return;
+            }
+            Map<LocalDate, Set<Long>> due = upcoming.headMap(newToday);
+            int moved = 0;
+            for (Set<Long> bucket : due.values()) {
+                expired.addAll(bucket);
+                moved += bucket.size();
+            }
+            due.clear();
+            today = newToday;
+            log.info("Expiration sweep for {} moved {} products to expired", newToday, moved);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    private void sweepIfDayChanged() {
+        if (!LocalDate.now().equals(today)) {
+            sweep();
+        }
+    }
+    
+    // Callers hold writeLock
+    private void add(Long id, LocalDate expirationDate) {
+        if (expirationDate == null) {
+            return;
+        }
+        dateById.put(id, expirationDate);
+        if (expirationDate.isBefore(today)) {
+            expired.add(id);
+        } else {
+            upcoming.computeIfAbsent(expirationDate, date -> new ConcurrentSkipListSet<>()).add(id);
+        }
+    }
+    
+    // Callers hold writeLock
+    private void remove(Long id) {
+        LocalDate date = dateById.remove(id);
+        if (date == null) {
+            return;
+        }
+        expired.remove(id);
+        Set<Long> bucket = upcoming.get(date);
+        if (bucket != null) {
+            bucket.remove(id);
+            if (bucket.isEmpty()) {
+                upcoming.remove(date, bucket);
+            }
+        }
+    }
+}
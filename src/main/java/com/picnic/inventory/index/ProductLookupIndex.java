@@ -0,0 +1,268 @@
+package com.picnic.inventory.index;
+
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import com.picnic.inventory.event.ReferenceDataChangedEvent;
+import com.picnic.inventory.service.ProductCatalogScanner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resident index of fully built product responses keyed by id, barcode and SKU, so floor scans
+ * are answered without a database round trip.
+ * <p>
+ * Entries are admitted on read misses (and optionally during warm-up) until the configured memory
+ * budget is reached. After commit of every product write a resident entry is replaced, still
+ * within the budget, or removed; written products that are not resident are left to be admitted
+ * by the next read, so creates and bulk writes never grow the index on their own. A write
+ * generation guards against a slow reader re-admitting a row that was changed while it was being
+ * loaded. Entries built on a previous day are treated as misses because the expiry flags in the
+ * response depend on the current date. Entries are copied in and out, so callers may modify what
+ * they pass or get back.
+ */
+@Component
+public class ProductLookupIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(ProductLookupIndex.class);
+    
+    // Rough per-entry overhead: the DTO and its boxed fields plus three map nodes
+    private static final int ENTRY_OVERHEAD_BYTES = 480;
+    
+    private final ConcurrentHashMap<Long, Entry> byId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> idByBarcode = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> idBySku = new ConcurrentHashMap<>();
+    
+    private final AtomicLong writeGeneration = new AtomicLong();
+    private final AtomicLong estimatedBytes = new AtomicLong();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    
+    private final ProductCatalogScanner catalogScanner;
+    private final long memoryBudgetBytes;
+    private final boolean warmUpOnStart;
+    private final Clock clock;
+    
+    private final ProductCatalogScanner.WriteTracker warmUpWrites = new ProductCatalogScanner.WriteTracker();
+    
+    @Autowired
+    public ProductLookupIndex(ProductCatalogScanner catalogScanner,
+                              @Value("${inventory.lookup-index.memory-budget-mb:64}") long memoryBudgetMb,
+                              @Value("${inventory.lookup-index.warm-up:false}") boolean warmUpOnStart) {
+        this(catalogScanner, memoryBudgetMb, warmUpOnStart, Clock.systemDefaultZone());
+    }
+    
+    // Lets tests move the date
+    ProductLookupIndex(ProductCatalogScanner catalogScanner, long memoryBudgetMb, boolean warmUpOnStart, Clock clock) {
+        this.catalogScanner = catalogScanner;
+        this.memoryBudgetBytes = memoryBudgetMb * 1024 * 1024;
+        this.warmUpOnStart = warmUpOnStart;
+        this.clock = clock;
+    }
+    
+    public Optional<ProductResponseDTO> findById(Long id) {
+        return record(byId.get(id));
+    }
+    
+    public Optional<ProductResponseDTO> findByBarcode(String barcode) {
+        Long id = idByBarcode.get(barcode);
+        return record(id != null ? byId.get(id) : null);
+    }
+    
+    public Optional<ProductResponseDTO> findBySku(String sku) {
+        Long id = idBySku.get(sku);
+        return record(id != null ? byId.get(id) : null);
+    }
+    
+    /**
+     * Returns the current write generation. Callers loading a product from the database take a
+     * stamp first and pass it to {@link #admit(ProductResponseDTO, long)}.
+     */
+    public long stamp() {
+        return writeGeneration.get();
+    }
+    
+    /**
+     * Admits a product loaded from the database, unless a product write has been applied since
+     * {@code stamp} was taken or the memory budget is exhausted. Inside a transaction the entry is
+     * only admitted once it commits, so rows a rolled-back transaction could see never leak in.
+     */
+    public void admit(ProductResponseDTO product, long stamp) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    admitNow(product, stamp);
+                }
+            });
+        } else {
+            admitNow(product, stamp);
+        }
+    }
+    
+    private void admitNow(ProductResponseDTO product, long stamp) {
+        writeLock.lock();
+        try {
+            if (writeGeneration.get() != stamp || !put(product)) {
+                rejected.increment();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        writeLock.lock();
+        try {
+            writeGeneration.incrementAndGet();
+            warmUpWrites.written(event.getProductId());
+            boolean resident = byId.containsKey(event.getProductId());
+            remove(event.getProductId());
+            if (resident && event.getCurrent() != null) {
+                put(event.getCurrent());
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        // Category and supplier names are denormalized into every entry, and deletes cascade
+        // to products; both are rare enough that dropping the whole index is the simplest fix
+        if (event.isCreated()) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            writeGeneration.incrementAndGet();
+            byId.clear();
+            idByBarcode.clear();
+            idBySku.clear();
+            estimatedBytes.set(0);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStart() {
+        if (warmUpOnStart) {
+            warmUp();
+        }
+    }
+    
+    /**
+     * Loads products into the index until the memory budget is reached.
+     */
+    public void warmUp() {
+        long started = System.nanoTime();
+        catalogScanner.warmUp(warmUpWrites, writeLock, product -> {
+            if (estimatedBytes.get() < memoryBudgetBytes && !byId.containsKey(product.getId())) {
+                put(product);
+            }
+        });
+        log.info("Product lookup index warmed up with {} entries (~{} KB) in {} ms",
+                byId.size(), estimatedBytes.get() / 1024, (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    public long getHitCount() {
+        return hits.sum();
+    }
+    
+    public long getMissCount() {
+        return misses.sum();
+    }
+    
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+    
+    public int size() {
+        return byId.size();
+    }
+    
+    public long getEstimatedBytes() {
+        return estimatedBytes.get();
+    }
+    
+    public long getMemoryBudgetBytes() {
+        return memoryBudgetBytes;
+    }
+    
+    private Optional<ProductResponseDTO> record(Entry entry) {
+        if (entry == null || !entry.builtOn.equals(LocalDate.now(clock))) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(new ProductResponseDTO(entry.product));
+    }
+    
+    // Callers hold writeLock
+    private boolean put(ProductResponseDTO product) {
+        int bytes = estimateBytes(product);
+        if (estimatedBytes.get() + bytes > memoryBudgetBytes) {
+            return false;
+        }
+        remove(product.getId());
+        byId.put(product.getId(), new Entry(new ProductResponseDTO(product), LocalDate.now(clock), bytes));
+        idByBarcode.put(product.getBarcode(), product.getId());
+        idBySku.put(product.getSku(), product.getId());
+        estimatedBytes.addAndGet(bytes);
+        return true;
+    }
+    
+    // Callers hold writeLock
+    private void remove(Long id) {
+        Entry entry = byId.remove(id);
+        if (entry != null) {
+            idByBarcode.remove(entry.product.getBarcode(), id);
+            idBySku.remove(entry.product.getSku(), id);
+            estimatedBytes.addAndGet(-entry.bytes);
+        }
+    }
+    
+    private static int estimateBytes(ProductResponseDTO product) {
+        return ENTRY_OVERHEAD_BYTES
+                + length(product.getName()) + length(product.getDescription())
+                + 2 * (length(product.getSku()) + length(product.getBarcode()))
+                + length(product.getStorageLocation())
+                + length(product.getCategoryName()) + length(product.getSupplierName());
+    }
+    
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+    
+    private static final class Entry {
+        private final ProductResponseDTO product;
+        private final LocalDate builtOn;
+        private final int bytes;
+        
+        private Entry(ProductResponseDTO product, LocalDate builtOn, int bytes) {
+            this.product = product;
+            this.builtOn = builtOn;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,644 @@
+package com.picnic.inventory.index;
+
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import com.picnic.inventory.service.ProductCatalogScanner;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+/**
+ * In-process full-text index over product name, SKU and description, answering the store UI's
+ * search-as-you-type without {@code LIKE '%term%'} table scans.
+ * <p>
+ * Name and SKU are indexed by trigrams, so any substring of three or more characters is found by
+ * intersecting a few posting lists and verifying the candidates; shorter words match name word
+ * prefixes. Description words are indexed as terms and matched by prefix. Every query word must
+ * match (AND), and results are ranked by where the words matched: exact and leading SKU or name
+ * matches first, description matches last.
+ * <p>
+ * A fuzzy mode tolerates typos in labels and scans: each query word matches name words within a
+ * small edit distance, found through a BK-tree over the name vocabulary, so only the part of the
+ * vocabulary the metric cannot rule out is compared. Fuzzy results rank by total edit distance,
+ * then by popularity, counted as stock picks since startup.
+ * <p>
+ * Documents get a new internal id on every change, so posting lists stay sorted by appending;
+ * replaced and deleted documents are left as tombstones and compacted away once they make up half
+ * of the index. The index is built from a catalog scan at startup and maintained after commit of
+ * every product write; until it is built {@link #isReady()} is false and callers query the database.
+ */
+@Component
+public class ProductSearchIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+    
+    private static final int MIN_COMPACTION_TOMBSTONES = 1024;
+    
+    // Ranking weights per query word, by the best place it matched
+    private static final int SCORE_SKU_EXACT = 100;
+    private static final int SCORE_SKU_PREFIX = 40;
+    private static final int SCORE_NAME_PREFIX = 30;
+    private static final int SCORE_NAME_WORD_PREFIX = 20;
+    private static final int SCORE_SKU_SUBSTRING = 12;
+    private static final int SCORE_NAME_SUBSTRING = 10;
+    private static final int SCORE_DESCRIPTION = 3;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Guarded by lock
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<Long, Integer> documentByProduct = new HashMap<>();
+    private final Map<Long, Postings> grams = new HashMap<>();
+    private final TreeMap<String, Postings> nameTerms = new TreeMap<>();
+    private final TreeMap<String, Postings> descriptionTerms = new TreeMap<>();
+    private BkTree nameVocabulary = new BkTree();
+    private int tombstones;
+    
+    // Stock decrements per product since startup, the popularity signal for fuzzy ranking
+    private final Map<Long, LongAdder> picks = new ConcurrentHashMap<>();
+    
+    private final ProductCatalogScanner catalogScanner;
+    private final boolean enabled;
+    
+    private volatile boolean ready;
+    
+    private final ProductCatalogScanner.WriteTracker warmUpWrites = new ProductCatalogScanner.WriteTracker();
+    
+    @Autowired
+    public ProductSearchIndex(ProductCatalogScanner catalogScanner,
+                              @Value("${inventory.search-index.enabled:true}") boolean enabled) {
+        this.catalogScanner = catalogScanner;
+        this.enabled = enabled;
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Ranks the products matching every word of {@code query} and returns one page of their ids
+     * together with the total number of matches.
+     */
+    public SearchResult search(String query, int offset, int limit) {
+        List<String> words = words(query);
+        if (words.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> scores = null;
+            for (String word : words) {
+                Map<Integer, Integer> matches = match(word, scores);
+                if (scores == null) {
+                    scores = matches;
+                } else {
+                    for (Map.Entry<Integer, Integer> match : matches.entrySet()) {
+                        scores.merge(match.getKey(), match.getValue(), Integer::sum);
+                    }
+                    scores.keySet().retainAll(matches.keySet());
+                }
+                if (scores.isEmpty()) {
+                    return new SearchResult(List.of(), 0);
+                }
+            }
+            
+            Map<Integer, Integer> ranked = scores;
+            return page(ranked.keySet(), Comparator.<Integer>comparingInt(ranked::get).reversed(), offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Like {@link #search}, but every query word may match a name word within a bounded edit
+     * distance: none for words of up to two characters, one up to five, two beyond. Results are
+     * ranked by total distance, then by popularity.
+     */
+    public SearchResult searchFuzzy(String query, int offset, int limit) {
+        List<String> words = terms(normalize(query));
+        if (words.isEmpty()) {
+            return new SearchResult(List.of(), 0);
+        }
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> distances = null;
+            for (String word : words) {
+                Map<Integer, Integer> matches = new HashMap<>();
+                nameVocabulary.search(word, maxEdits(word), (term, distance) -> {
+                    Postings postings = nameTerms.get(term);
+                    if (postings == null) {
+                        return;
+                    }
+                    for (int i = 0; i < postings.size; i++) {
+                        if (documents.get(postings.ids[i]) != null) {
+                            matches.merge(postings.ids[i], distance, Math::min);
+                        }
+                    }
+                });
+                if (distances == null) {
+                    distances = matches;
+                } else {
+                    for (Map.Entry<Integer, Integer> match : matches.entrySet()) {
+                        distances.merge(match.getKey(), match.getValue(), Integer::sum);
+                    }
+                    distances.keySet().retainAll(matches.keySet());
+                }
+                if (distances.isEmpty()) {
+                    return new SearchResult(List.of(), 0);
+                }
+            }
+            
+            Map<Integer, Integer> ranked = distances;
+            Comparator<Integer> byDistance = Comparator.comparingInt(ranked::get);
+            return page(ranked.keySet(), byDistance.thenComparing(Comparator.comparingLong(this::popularity).reversed()),
+                    offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Drops products the caller found no longer exist (deleted with their category or supplier).
+     */
+    public void forget(Collection<Long> productIds) {
+        lock.writeLock().lock();
+        try {
+            productIds.forEach(this::remove);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        // Stock changes do not touch any indexed text, they only count towards popularity
+        if (event.getType() == ProductChangedEvent.Type.STOCK_CHANGED) {
+            if (event.getPrevious().getStockQuantity() > event.getCurrent().getStockQuantity()) {
+                picks.computeIfAbsent(event.getProductId(), id -> new LongAdder()).increment();
+            }
+            return;
+        }
+        if (event.getType() == ProductChangedEvent.Type.DELETED) {
+            picks.remove(event.getProductId());
+        }
+        lock.writeLock().lock();
+        try {
+            warmUpWrites.written(event.getProductId());
+            remove(event.getProductId());
+            if (event.getCurrent() != null) {
+                add(event.getCurrent());
+            }
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        catalogScanner.warmUp(warmUpWrites, lock.writeLock(), product -> {
+            if (!documentByProduct.containsKey(product.getId())) {
+                add(product);
+            }
+        });
+        ready = true;
+        log.info("Product search index built with {} products, {} trigrams and {} terms in {} ms",
+                size(), grams.size(), nameTerms.size() + descriptionTerms.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentByProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Callers hold the read lock. Scores every document matching one query word; when earlier
+    // words already narrowed the result, only those candidates are checked.
+    private Map<Integer, Integer> match(String word, Map<Integer, Integer> candidates) {
+        Map<Integer, Integer> matches = new HashMap<>();
+        if (candidates != null && candidates.size() <= 64) {
+            for (Integer doc : candidates.keySet()) {
+                int score = score(documents.get(doc), word);
+                if (score > 0) {
+                    matches.put(doc, score);
+                }
+            }
+        } else if (word.length() >= 3) {
+            for (int doc : intersectGrams(word)) {
+                Document document = documents.get(doc);
+                int score = document != null ? scoreNameAndSku(document, word) : 0;
+                if (score > 0) {
+                    matches.merge(doc, score, Math::max);
+                }
+            }
+        } else {
+            for (Postings postings : prefixRange(nameTerms, word).values()) {
+                for (int i = 0; i < postings.size; i++) {
+                    Document document = documents.get(postings.ids[i]);
+                    if (document != null) {
+                        matches.merge(postings.ids[i], scoreNameAndSku(document, word), Math::max);
+                    }
+                }
+            }
+        }
+        
+        // Description words count only where name and SKU did not match
+        NavigableMap<String, Postings> terms = word.length() >= 3
+                ? prefixRange(descriptionTerms, word)
+                : descriptionTerms.subMap(word, true, word, true);
+        for (Postings postings : terms.values()) {
+            for (int i = 0; i < postings.size; i++) {
+                int doc = postings.ids[i];
+                if (documents.get(doc) != null && (candidates == null || candidates.containsKey(doc))) {
+                    matches.putIfAbsent(doc, SCORE_DESCRIPTION);
+                }
+            }
+        }
+        return matches;
+    }
+    
+    // Documents containing every trigram of the word, smallest posting list first
+    private int[] intersectGrams(String word) {
+        List<Postings> lists = new ArrayList<>();
+        for (long gram : trigrams(word)) {
+            Postings postings = grams.get(gram);
+            if (postings == null) {
+                return new int[0];
+            }
+            lists.add(postings);
+        }
+        lists.sort(Comparator.comparingInt(postings -> postings.size));
+        Postings smallest = lists.get(0);
+        int[] result = Arrays.copyOf(smallest.ids, smallest.size);
+        int size = result.length;
+        for (int l = 1; l < lists.size() && size > 0; l++) {
+            Postings other = lists.get(l);
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (Arrays.binarySearch(other.ids, 0, other.size, result[i]) >= 0) {
+                    result[kept++] = result[i];
+                }
+            }
+            size = kept;
+        }
+        return Arrays.copyOf(result, size);
+    }
+    
+    // Callers hold the read lock. Keeps only the best offset + limit matches in a heap whose head is
+    // the worst of them, so a common word costs a pass over its matches instead of sorting them all.
+    private SearchResult page(Collection<Integer> matched, Comparator<Integer> rank, int offset, int limit) {
+        Comparator<Integer> order = rank.thenComparing(doc -> documents.get(doc).name)
+                .thenComparingLong(doc -> documents.get(doc).productId);
+        int kept = (int) Math.min((long) offset + limit, matched.size());
+        if (offset >= kept) {
+            return new SearchResult(List.of(), matched.size());
+        }
+        PriorityQueue<Integer> best = new PriorityQueue<>(kept, order.reversed());
+        for (Integer doc : matched) {
+            if (best.size() < kept) {
+                best.add(doc);
+            } else if (order.compare(doc, best.peek()) < 0) {
+                best.poll();
+                best.add(doc);
+            }
+        }
+        Integer[] top = best.toArray(new Integer[0]);
+        Arrays.sort(top, order);
+        List<Long> page = new ArrayList<>(kept - offset);
+        for (int i = offset; i < kept; i++) {
+            page.add(documents.get(top[i]).productId);
+        }
+        return new SearchResult(page, matched.size());
+    }
+    
+    private long popularity(int doc) {
+        LongAdder count = picks.get(documents.get(doc).productId);
+        return count == null ? 0 : count.sum();
+    }
+    
+    private static int maxEdits(String word) {
+        if (word.length() <= 2) {
+            return 0;
+        }
+        return word.length() <= 5 ? 1 : 2;
+    }
+    
+    // Words under three characters match only at the start of a name word, whichever way the
+    // candidates were found
+    private static int score(Document document, String word) {
+        if (document == null || (word.length() < 3 && !startsNameWord(document.name, word))) {
+            return 0;
+        }
+        return scoreNameAndSku(document, word);
+    }
+    
+    private static boolean startsNameWord(String name, String word) {
+        for (int at = name.indexOf(word); at >= 0; at = name.indexOf(word, at + 1)) {
+            if (at == 0 || !Character.isLetterOrDigit(name.charAt(at - 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static int scoreNameAndSku(Document document, String word) {
+        if (document == null) {
+            return 0;
+        }
+        if (document.sku.equals(word)) {
+            return SCORE_SKU_EXACT;
+        }
+        if (document.sku.startsWith(word)) {
+            return SCORE_SKU_PREFIX;
+        }
+        int at = document.name.indexOf(word);
+        if (at == 0) {
+            return SCORE_NAME_PREFIX;
+        }
+        if (at > 0 && !Character.isLetterOrDigit(document.name.charAt(at - 1))) {
+            return SCORE_NAME_WORD_PREFIX;
+        }
+        if (document.sku.contains(word)) {
+            return SCORE_SKU_SUBSTRING;
+        }
+        return at > 0 ? SCORE_NAME_SUBSTRING : 0;
+    }
+    
+    // Callers hold the write lock
+    private void add(ProductResponseDTO product) {
+        int doc = documents.size();
+        Document document = new Document(product.getId(), normalize(product.getName()), normalize(product.getSku()));
+        documents.add(document);
+        documentByProduct.put(product.getId(), doc);
+        
+        Set<Long> documentGrams = new HashSet<>();
+        documentGrams.addAll(trigrams(document.name));
+        documentGrams.addAll(trigrams(document.sku));
+        for (long gram : documentGrams) {
+            grams.computeIfAbsent(gram, key -> new Postings()).add(doc);
+        }
+        for (String term : new HashSet<>(terms(document.name))) {
+            nameTerms.computeIfAbsent(term, key -> {
+                nameVocabulary.add(key);
+                return new Postings();
+            }).add(doc);
+        }
+        for (String term : new HashSet<>(terms(normalize(product.getDescription())))) {
+            descriptionTerms.computeIfAbsent(term, key -> new Postings()).add(doc);
+        }
+    }
+    
+    // Callers hold the write lock
+    private void remove(Long productId) {
+        Integer doc = documentByProduct.remove(productId);
+        if (doc != null) {
+            documents.set(doc, null);
+            tombstones++;
+        }
+    }
+    
+    // Callers hold the write lock. Renumbers live documents densely and rewrites every posting list.
+    private void compactIfNeeded() {
+        if (tombstones < MIN_COMPACTION_TOMBSTONES || tombstones * 2 < documents.size()) {
+            return;
+        }
+        int[] renumbered = new int[documents.size()];
+        List<Document> live = new ArrayList<>(documents.size() - tombstones);
+        for (int doc = 0; doc < documents.size(); doc++) {
+            Document document = documents.get(doc);
+            if (document == null) {
+                renumbered[doc] = -1;
+            } else {
+                renumbered[doc] = live.size();
+                documentByProduct.put(document.productId, live.size());
+                live.add(document);
+            }
+        }
+        documents.clear();
+        documents.addAll(live);
+        tombstones = 0;
+        grams.values().removeIf(postings -> postings.renumber(renumbered));
+        nameTerms.values().removeIf(postings -> postings.renumber(renumbered));
+        // BK-trees cannot drop terms, so the vocabulary is rebuilt from the words still in use
+        nameVocabulary = new BkTree();
+        nameTerms.keySet().forEach(nameVocabulary::add);
+        descriptionTerms.values().removeIf(postings -> postings.renumber(renumbered));
+    }
+    
+    private static NavigableMap<String, Postings> prefixRange(TreeMap<String, Postings> terms, String prefix) {
+        return terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+    
+    private static List<String> words(String query) {
+        List<String> words = new ArrayList<>();
+        if (query != null) {
+            for (String word : normalize(query).split("\\s+")) {
+                if (!word.isEmpty()) {
+                    words.add(word);
+                }
+            }
+        }
+        return words;
+    }
+    
+    private static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String term : text.split("[^\\p{L}\\p{N}]+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+    
+    // Three UTF-16 chars packed into one long
+    private static List<Long> trigrams(String text) {
+        List<Long> trigrams = new ArrayList<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            trigrams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return trigrams;
+    }
+    
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT).trim();
+    }
+    
+    private static int levenshtein(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+    
+    /**
+     * One page of matching product ids in rank order, and the total number of matches.
+     */
+    public record SearchResult(List<Long> productIds, int total) {
+    }
+    
+    private static final class Document {
+        private final long productId;
+        private final String name;
+        private final String sku;
+        
+        private Document(long productId, String name, String sku) {
+            this.productId = productId;
+            this.name = name;
+            this.sku = sku;
+        }
+    }
+    
+    // Burkhard-Keller tree: each child sits under the edit distance between its term and the parent's,
+    // so a search within k edits of a word only descends into children at distance d - k to d + k
+    private static final class BkTree {
+        private BkNode root;
+        
+        private void add(String term) {
+            if (root == null) {
+                root = new BkNode(term);
+                return;
+            }
+            BkNode node = root;
+            while (true) {
+                int distance = levenshtein(term, node.term);
+                if (distance == 0) {
+                    return;
+                }
+                BkNode child = node.child(distance);
+                if (child == null) {
+                    node.addChild(distance, new BkNode(term));
+                    return;
+                }
+                node = child;
+            }
+        }
+        
+        private void search(String word, int maxDistance, BiConsumer<String, Integer> consumer) {
+            if (root == null) {
+                return;
+            }
+            Deque<BkNode> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                BkNode node = pending.pop();
+                int distance = levenshtein(word, node.term);
+                if (distance <= maxDistance) {
+                    consumer.accept(node.term, distance);
+                }
+                for (int i = 0; i < node.size; i++) {
+                    if (Math.abs(node.distances[i] - distance) <= maxDistance) {
+                        pending.push(node.children[i]);
+                    }
+                }
+            }
+        }
+    }
+    
+    private static final class BkNode {
+        private final String term;
+        private int[] distances = new int[0];
+        private BkNode[] children = new BkNode[0];
+        private int size;
+        
+        private BkNode(String term) {
+            this.term = term;
+        }
+        
+        private BkNode child(int distance) {
+            for (int i = 0; i < size; i++) {
+                if (distances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+        
+        private void addChild(int distance, BkNode child) {
+            if (size == distances.length) {
+                distances = Arrays.copyOf(distances, Math.max(2, size * 2));
+                children = Arrays.copyOf(children, Math.max(2, size * 2));
+            }
+            distances[size] = distance;
+            children[size++] = child;
+        }
+    }
+    
+    // Growable, ascending array of document ids
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+        
+        private void add(int doc) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = doc;
+        }
+        
+        // Returns true if no live document is left
+        private boolean renumber(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = renumbered[ids[i]];
+                if (doc >= 0) {
+                    ids[kept++] = doc;
+                }
+            }
+            size = kept;
+            if (size < ids.length / 4) {
+                ids = Arrays.copyOf(ids, Math.max(4, size));
+            }
+            return size == 0;
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.picnic.inventory.index;
+
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.dto.ProductSuggestionDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import com.picnic.inventory.service.ProductCatalogScanner;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Radix trie over product names, SKUs and barcodes answering prefix autocomplete for the handheld
+ * scanners, which type partial codes and want a handful of suggestions per keystroke.
+ * <p>
+ * Keys are lower-cased and stored with path compression, so a chain of single-child nodes is one
+ * edge. A lookup walks the prefix and then collects products depth-first in key order, stopping at
+ * the requested count: an exact key comes first, then shorter completions before longer ones along
+ * the same branch, and products sharing a key by id. That is each product's smallest matching key,
+ * then its id, which is also how the database fallback orders them. The trie is built from a
+ * catalog scan at startup and maintained after commit of every product write; until it is built
+ * {@link #isReady()} is false and callers query the database.
+ * <p>
+ * Lookup latency (with a p99) and an estimate of memory per key are published as
+ * {@code inventory.suggest.latency} and {@code inventory.suggest.bytes.per.entry}.
+ */
+@Component
+public class ProductSuggestIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(ProductSuggestIndex.class);
+    
+    // Recomputing the memory estimate walks the whole trie, so scrapes reuse it for a while
+    private static final long MEMORY_ESTIMATE_TTL_NANOS = 60_000_000_000L;
+    
+    private static final char[] NO_CHARS = new char[0];
+    private static final long[] NO_IDS = new long[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    // Guarded by lock
+    private final Node root = new Node(NO_CHARS);
+    private final Map<Long, ProductSuggestionDTO> products = new HashMap<>();
+    private long keyCount;
+    
+    private final ProductCatalogScanner catalogScanner;
+    private final boolean enabled;
+    private final Timer latency;
+    
+    private volatile boolean ready;
+    private volatile double bytesPerEntry;
+    private volatile long bytesPerEntryComputedAt;
+    
+    private final ProductCatalogScanner.WriteTracker warmUpWrites = new ProductCatalogScanner.WriteTracker();
+    
+    @Autowired
+    public ProductSuggestIndex(ProductCatalogScanner catalogScanner,
+                               MeterRegistry meterRegistry,
+                               @Value("${inventory.suggest-index.enabled:true}") boolean enabled) {
+        this.catalogScanner = catalogScanner;
+        this.enabled = enabled;
+        this.latency = Timer.builder("inventory.suggest.latency")
+                .description("Prefix lookups in the suggest trie")
+                .publishPercentiles(0.99)
+                .register(meterRegistry);
+        Gauge.builder("inventory.suggest.entries", this, ProductSuggestIndex::entries)
+                .description("Keys (names, SKUs and barcodes) in the suggest trie")
+                .register(meterRegistry);
+        Gauge.builder("inventory.suggest.bytes.per.entry", this, ProductSuggestIndex::bytesPerEntry)
+                .description("Estimated heap used by the suggest trie per key")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    /**
+     * Returns up to {@code limit} products with a name, SKU or barcode starting with
+     * {@code prefix}, ignoring case.
+     */
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        long started = System.nanoTime();
+        lock.readLock().lock();
+        try {
+            String key = normalize(prefix);
+            List<ProductSuggestionDTO> suggestions = new ArrayList<>();
+            Node start = key.isEmpty() ? null : find(key);
+            if (start != null) {
+                Set<Long> ids = new LinkedHashSet<>();
+                collect(start, ids, limit);
+                for (Long id : ids) {
+                    suggestions.add(products.get(id));
+                }
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+            latency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // Stock changes do not touch any key
+        if (!enabled || event.getType() == ProductChangedEvent.Type.STOCK_CHANGED) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            warmUpWrites.written(event.getProductId());
+            remove(event.getProductId());
+            if (event.getCurrent() != null) {
+                add(event.getCurrent());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        catalogScanner.warmUp(warmUpWrites, lock.writeLock(), product -> {
+            if (!products.containsKey(product.getId())) {
+                add(product);
+            }
+        });
+        ready = true;
+        log.info("Suggest trie built with {} keys for {} products in {} ms",
+                entries(), products.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    public long entries() {
+        lock.readLock().lock();
+        try {
+            return keyCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Estimated heap bytes per key: trie nodes, edge labels, id arrays and the per-product
+     * suggestion records, assuming compressed object pointers.
+     */
+    public double bytesPerEntry() {
+        long now = System.nanoTime();
+        if (bytesPerEntryComputedAt == 0 || now - bytesPerEntryComputedAt > MEMORY_ESTIMATE_TTL_NANOS) {
+            lock.readLock().lock();
+            try {
+                long bytes = 0;
+                Deque<Node> pending = new ArrayDeque<>();
+                pending.push(root);
+                while (!pending.isEmpty()) {
+                    Node node = pending.pop();
+                    bytes += 24 + arrayBytes(node.label.length, 2) + arrayBytes(node.children.length, 4)
+                            + arrayBytes(node.ids.length, 8);
+                    for (Node child : node.children) {
+                        pending.push(child);
+                    }
+                }
+                for (ProductSuggestionDTO product : products.values()) {
+                    // Map entry, boxed key and the record with its three strings
+                    bytes += 32 + 16 + 32 + stringBytes(product.getName()) + stringBytes(product.getSku())
+                            + stringBytes(product.getBarcode());
+                }
+                bytesPerEntry = keyCount == 0 ? 0 : (double) bytes / keyCount;
+            } finally {
+                lock.readLock().unlock();
+            }
+            bytesPerEntryComputedAt = now;
+        }
+        return bytesPerEntry;
+    }
+    
+    // Callers hold the write lock
+    private void add(ProductResponseDTO product) {
+        ProductSuggestionDTO suggestion = new ProductSuggestionDTO(product.getId(), product.getName(),
+                product.getSku(), product.getBarcode());
+        products.put(product.getId(), suggestion);
+        for (String key : keys(suggestion)) {
+            insert(key, product.getId());
+        }
+    }
+    
+    // Callers hold the write lock
+    private void remove(Long productId) {
+        ProductSuggestionDTO suggestion = products.remove(productId);
+        if (suggestion != null) {
+            for (String key : keys(suggestion)) {
+                delete(key, productId);
+            }
+        }
+    }
+    
+    private void insert(String key, long id) {
+        Node node = root;
+        int at = 0;
+        while (at < key.length()) {
+            int slot = node.childIndex(key.charAt(at));
+            if (slot < 0) {
+                Node leaf = new Node(key.substring(at).toCharArray());
+                leaf.ids = new long[] {id};
+                node.insertChild(-slot - 1, leaf);
+                keyCount++;
+                return;
+            }
+            Node child = node.children[slot];
+            int common = commonPrefix(child.label, key, at);
+            if (common < child.label.length) {
+                // Split the edge where the new key leaves it
+                Node middle = new Node(Arrays.copyOf(child.label, common));
+                child.label = Arrays.copyOfRange(child.label, common, child.label.length);
+                middle.children = new Node[] {child};
+                node.children[slot] = middle;
+                child = middle;
+            }
+            node = child;
+            at += common;
+        }
+        // Ids sharing a key stay ascending, so they come out in the same order as the database fallback
+        int position = Arrays.binarySearch(node.ids, id);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        long[] ids = new long[node.ids.length + 1];
+        System.arraycopy(node.ids, 0, ids, 0, position);
+        ids[position] = id;
+        System.arraycopy(node.ids, position, ids, position + 1, node.ids.length - position);
+        node.ids = ids;
+        keyCount++;
+    }
+    
+    private void delete(String key, long id) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        int at = 0;
+        path.add(node);
+        while (at < key.length()) {
+            int slot = node.childIndex(key.charAt(at));
+            if (slot < 0) {
+                return;
+            }
+            node = node.children[slot];
+            if (commonPrefix(node.label, key, at) < node.label.length) {
+                return;
+            }
+            at += node.label.length;
+            path.add(node);
+        }
+        int position = -1;
+        for (int i = 0; i < node.ids.length; i++) {
+            if (node.ids[i] == id) {
+                position = i;
+            }
+        }
+        if (position < 0) {
+            return;
+        }
+        long[] ids = new long[node.ids.length - 1];
+        System.arraycopy(node.ids, 0, ids, 0, position);
+        System.arraycopy(node.ids, position + 1, ids, position, ids.length - position);
+        node.ids = ids.length == 0 ? NO_IDS : ids;
+        keyCount--;
+        
+        // Drop emptied leaves and merge nodes left with a single child back into one edge
+        for (int depth = path.size() - 1; depth > 0; depth--) {
+            Node current = path.get(depth);
+            Node parent = path.get(depth - 1);
+            if (current.ids.length > 0) {
+                break;
+            }
+            if (current.children.length == 0) {
+                parent.removeChild(parent.childIndex(current.label[0]));
+            } else if (current.children.length == 1) {
+                Node only = current.children[0];
+                char[] merged = Arrays.copyOf(current.label, current.label.length + only.label.length);
+                System.arraycopy(only.label, 0, merged, current.label.length, only.label.length);
+                only.label = merged;
+                parent.children[parent.childIndex(merged[0])] = only;
+                break;
+            } else {
+                break;
+            }
+        }
+    }
+    
+    // The node under which every key starting with the prefix lives, or null
+    private Node find(String prefix) {
+        Node node = root;
+        int at = 0;
+        while (at < prefix.length()) {
+            int slot = node.childIndex(prefix.charAt(at));
+            if (slot < 0) {
+                return null;
+            }
+            node = node.children[slot];
+            int common = commonPrefix(node.label, prefix, at);
+            if (at + common == prefix.length()) {
+                return node;
+            }
+            if (common < node.label.length) {
+                return null;
+            }
+            at += common;
+        }
+        return node;
+    }
+    
+    private static void collect(Node start, Set<Long> ids, int limit) {
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(start);
+        while (!pending.isEmpty() && ids.size() < limit) {
+            Node node = pending.pop();
+            for (int i = 0; i < node.ids.length && ids.size() < limit; i++) {
+                ids.add(node.ids[i]);
+            }
+            for (int i = node.children.length - 1; i >= 0; i--) {
+                pending.push(node.children[i]);
+            }
+        }
+    }
+    
+    private static int commonPrefix(char[] label, String key, int from) {
+        int length = Math.min(label.length, key.length() - from);
+        int i = 0;
+        while (i < length && label[i] == key.charAt(from + i)) {
+            i++;
+        }
+        return i;
+    }
+    
+    private static Set<String> keys(ProductSuggestionDTO suggestion) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String value : new String[] {suggestion.getName(), suggestion.getSku(), suggestion.getBarcode()}) {
+            String key = normalize(value);
+            if (!key.isEmpty()) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+    
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT).trim();
+    }
+    
+    private static long arrayBytes(int length, int elementBytes) {
+        return length == 0 ? 0 : 16 + (long) length * elementBytes;
+    }
+    
+    private static long stringBytes(String value) {
+        return value == null ? 0 : 24 + 16 + value.length();
+    }
+    
+    private static final class Node {
+        private char[] label;
+        private Node[] children = NO_CHILDREN;
+        private long[] ids = NO_IDS;
+        
+        private Node(char[] label) {
+            this.label = label;
+        }
+        
+        // Children are kept sorted by the first char of their label; returns -(insertion point) - 1 if absent
+        private int childIndex(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = children[mid].label[0];
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+        
+        private void insertChild(int index, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+        
+        private void removeChild(int index) {
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, shrunk.length - index);
+            children = shrunk.length == 0 ? NO_CHILDREN : shrunk;
+        }
+    }
+}
@@ -2,16 +2,33 @@ package com.picnic.inventory.model;
 
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
+import org.hibernate.annotations.DynamicUpdate;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "products")
+// Only changed columns are written, so entity updates never overwrite stock written behind by the stock ledger
+@DynamicUpdate
+@NamedEntityGraph(name = Product.WITH_REFERENCES, attributeNodes = {
+    @NamedAttributeNode("category"),
+    @NamedAttributeNode("supplier")
+})
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_name_id", columnList = "name, id"),
+    @Index(name = "idx_products_category_id", columnList = "category_id, id"),
+    @Index(name = "idx_products_supplier_id", columnList = "supplier_id, id"),
+    @Index(name = "idx_products_low_stock", columnList = "low_stock, id"),
+    @Index(name = "idx_products_low_stock_since", columnList = "low_stock, low_stock_since, id")
+})
 public class Product {
     
+    public static final String WITH_REFERENCES = "Product.withReferences";
+    
+    // Sequence ids are allocated in blocks so Hibernate can batch inserts; IDENTITY forces one INSERT per row
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_seq")
+    @SequenceGenerator(name = "products_seq", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Product name is required")
@@ -72,6 +89,24 @@ public class Product {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Persisted form of isLowStock(), kept in step on every write so low-stock reads use an index
+    // instead of comparing two columns across the whole table
+    @Column(name = "low_stock", nullable = false)
+    private Boolean lowStockFlag = false;
+    
+    // When the product last dropped to or below its minimum level
+    @Column(name = "low_stock_since")
+    private LocalDateTime lowStockSince;
+    
+    // When the product last rose back above its minimum level
+    @Column(name = "low_stock_cleared_at")
+    private LocalDateTime lowStockClearedAt;
+    
+    // Optimistic lock; left null on new instances so Spring Data still detects them as new
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+    
     // Constructors
     public Product() {}
     
@@ -90,11 +125,25 @@ public class Product {
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
+        refreshLowStock(this.createdAt);
     }
     
     @PreUpdate
     protected void onUpdate() {
         this.updatedAt = LocalDateTime.now();
+        refreshLowStock(this.updatedAt);
+    }
+    
+    // Updates the low-stock flag and records the time of a transition in either direction
+    private void refreshLowStock(LocalDateTime now) {
+        boolean low = isLowStock();
+        boolean wasLow = Boolean.TRUE.equals(this.lowStockFlag);
+        if (low && !wasLow) {
+            this.lowStockSince = now;
+        } else if (!low && wasLow) {
+            this.lowStockClearedAt = now;
+        }
+        this.lowStockFlag = low;
     }
     
     // Business methods
@@ -103,13 +152,22 @@ public class Product {
     }
     
     public boolean isExpiringSoon(int daysThreshold) {
+        return isExpiringSoon(daysThreshold, LocalDate.now());
+    }
+    
+    // List conversions pass the date in once instead of reading the clock for every row
+    public boolean isExpiringSoon(int daysThreshold, LocalDate today) {
         if (expirationDate == null) return false;
-        return expirationDate.isBefore(LocalDate.now().plusDays(daysThreshold));
+        return expirationDate.isBefore(today.plusDays(daysThreshold));
     }
     
     public boolean isExpired() {
+        return isExpired(LocalDate.now());
+    }
+    
+    public boolean isExpired(LocalDate today) {
         if (expirationDate == null) return false;
-        return expirationDate.isBefore(LocalDate.now());
+        return expirationDate.isBefore(today);
     }
     
     // Getters and Setters
@@ -232,4 +290,24 @@ public class Product {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+    
+    public Boolean getLowStockFlag() {
+        return lowStockFlag;
+    }
+    
+    public LocalDateTime getLowStockSince() {
+        return lowStockSince;
+    }
+    
+    public LocalDateTime getLowStockClearedAt() {
+        return lowStockClearedAt;
+    }
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
\ No newline at end of file
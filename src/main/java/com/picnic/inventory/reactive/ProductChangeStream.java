@@ -0,0 +1,110 @@
+package com.picnic.inventory.reactive;
+
+import com.picnic.inventory.dto.ProductChangeDTO;
+import com.picnic.inventory.service.ProductChangeFeed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-Sent Events view of a {@link ProductChangeFeed} subscription. Entries are emitted only
+ * as far as the connection has demand, which Reactor Netty withdraws while the socket is not
+ * writable, so a slow dashboard backs up into its own bounded buffer instead of server memory or
+ * a thread.
+ * <p>
+ * Each entry is sent with its id and its type as the event name. A {@code reset} event tells the
+ * client that entries were lost, because the resume point had left the history or its buffer
+ * overflowed, and that it should reload what it shows. A comment is sent every
+ * {@code inventory.change-feed.heartbeat-seconds} to keep idle connections open through proxies.
+ */
+@Component
+public class ProductChangeStream {
+    
+    static final String RESET_EVENT = "reset";
+    
+    private final ProductChangeFeed feed;
+    private final Duration heartbeat;
+    
+    @Autowired
+    public ProductChangeStream(ProductChangeFeed feed,
+                               @Value("${inventory.change-feed.heartbeat-seconds:15}") int heartbeatSeconds) {
+        this.feed = feed;
+        this.heartbeat = Duration.ofSeconds(heartbeatSeconds);
+    }
+    
+    public boolean isEnabled() {
+        return feed.isEnabled();
+    }
+    
+    public Flux<ServerSentEvent<?>> stream(ProductChangeFeed.Filter filter, ProductChangeFeed.Overflow overflow, Long lastEventId) {
+        Flux<ServerSentEvent<?>> changes = Flux.create(sink -> {
+            ProductChangeFeed.Subscription subscription = feed.subscribe(filter, overflow, lastEventId);
+            Drain drain = new Drain(subscription, sink);
+            if (subscription.isResumeGap()) {
+                sink.next(reset("history", 0));
+            }
+            subscription.onAvailable(drain::run);
+            sink.onRequest(requested -> drain.run());
+            sink.onDispose(subscription::close);
+        });
+        Flux<ServerSentEvent<?>> heartbeats = Flux.interval(heartbeat, heartbeat)
+                .onBackpressureDrop()
+                .map(tick -> ServerSentEvent.builder().comment("heartbeat").build());
+        return Flux.merge(changes, heartbeats);
+    }
+    
+    private static ServerSentEvent<?> reset(String reason, long dropped) {
+        return ServerSentEvent.builder(Map.of("reason", reason, "dropped", dropped))
+                .event(RESET_EVENT)
+                .build();
+    }
+    
+    /**
+     * Moves buffered entries to the sink while it has demand. Runs on whichever thread signals
+     * first, a writer or the connection's event loop; the others only mark that another pass is
+     * needed, so entries are emitted by one thread at a time and in order.
+     */
+    private static final class Drain {
+        
+        private final ProductChangeFeed.Subscription subscription;
+        private final FluxSink<ServerSentEvent<?>> sink;
+        private final AtomicInteger pending = new AtomicInteger();
+        
+        private Drain(ProductChangeFeed.Subscription subscription, FluxSink<ServerSentEvent<?>> sink) {
+            this.subscription = subscription;
+            this.sink = sink;
+        }
+        
+        void run() {
+            if (pending.getAndIncrement() != 0) {
+                return;
+            }
+            int passes = 1;
+            do {
+                while (sink.requestedFromDownstream() > 0 && !sink.isCancelled()) {
+                    long dropped = subscription.takeDropped();
+                    if (dropped > 0) {
+                        sink.next(reset("overflow", dropped));
+                        continue;
+                    }
+                    ProductChangeDTO change = subscription.poll();
+                    if (change == null) {
+                        break;
+                    }
+                    sink.next(ServerSentEvent.builder(change)
+                            .id(Long.toString(change.getId()))
+                            .event(change.getType().name())
+                            .build());
+                }
+                passes = pending.addAndGet(-passes);
+            } while (passes != 0);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.picnic.inventory.reactive;
+
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.index.ProductLookupIndex;
+import com.picnic.inventory.repository.ProductSpecifications;
+import com.picnic.inventory.service.ProductService;
+import com.picnic.inventory.service.StockLedger;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Non-blocking counterpart of the {@link ProductService} read methods used by scanners, returning
+ * the same {@link ProductResponseDTO}s. Barcode and SKU lookups are answered from the
+ * {@link ProductLookupIndex} when it holds the product; everything else is read over R2DBC with
+ * one statement joining category and supplier, so no thread waits on the database.
+ * <p>
+ * Pending stock ledger deltas are applied to every result as on the blocking path. The low-stock
+ * list filters on the stored flag, so the ledger is flushed first on a bounded elastic thread.
+ */
+@Component
+public class ReactiveProductReader {
+    
+    private static final String SELECT_PRODUCTS = """
+            SELECT p.id, p.name, p.description, p.sku, p.barcode, p.price, p.stock_quantity, p.min_stock_level,
+                   p.expiration_date, p.is_perishable, p.storage_location, p.created_at, p.updated_at,
+                   p.low_stock_since, p.low_stock_cleared_at,
+                   c.id AS category_id, c.name AS category_name, s.id AS supplier_id, s.name AS supplier_name
+            FROM products p
+            LEFT JOIN categories c ON c.id = p.category_id
+            LEFT JOIN suppliers s ON s.id = p.supplier_id
+            """;
+    
+    private final DatabaseClient databaseClient;
+    private final ProductLookupIndex lookupIndex;
+    private final StockLedger stockLedger;
+    
+    @Autowired
+    public ReactiveProductReader(DatabaseClient databaseClient, ProductLookupIndex lookupIndex, StockLedger stockLedger) {
+        this.databaseClient = databaseClient;
+        this.lookupIndex = lookupIndex;
+        this.stockLedger = stockLedger;
+    }
+    
+    public Mono<ProductResponseDTO> findByBarcode(String barcode) {
+        return lookup(lookupIndex.findByBarcode(barcode), "p.barcode", barcode);
+    }
+    
+    public Mono<ProductResponseDTO> findBySku(String sku) {
+        return lookup(lookupIndex.findBySku(sku), "p.sku", sku);
+    }
+    
+    // Same matches and order as the blocking search before its index is built: name contains, by name
+    public Flux<ProductResponseDTO> searchByName(String name, int limit) {
+        if (limit < 1 || limit > ProductService.MAX_PAGE_SIZE) {
+            return Flux.error(new IllegalArgumentException("Limit must be between 1 and " + ProductService.MAX_PAGE_SIZE));
+        }
+        String pattern = "%" + ProductSpecifications.escapeLike(name) + "%";
+        LocalDate today = LocalDate.now();
+        return databaseClient.sql(SELECT_PRODUCTS + "WHERE LOWER(p.name) LIKE :pattern ESCAPE '\\' ORDER BY p.name, p.id LIMIT :limit")
+                .bind("pattern", pattern)
+                .bind("limit", limit)
+                .map(row -> toResponse(row, today))
+                .all();
+    }
+    
+    // Longest-running shortages first, served in order by idx_products_low_stock_since
+    public Flux<ProductResponseDTO> findLowStock() {
+        Mono<Void> flushLedger = stockLedger.isEnabled()
+                ? Mono.fromRunnable(stockLedger::flush).subscribeOn(Schedulers.boundedElastic()).then()
+                : Mono.empty();
+        LocalDate today = LocalDate.now();
+        return flushLedger.thenMany(databaseClient.sql(SELECT_PRODUCTS + "WHERE p.low_stock = TRUE ORDER BY p.low_stock_since, p.id")
+                .map(row -> toResponse(row, today))
+                .all());
+    }
+    
+    public Flux<ProductResponseDTO> findExpiringWithinDays(int days) {
+        LocalDate today = LocalDate.now();
+        return databaseClient.sql(SELECT_PRODUCTS + "WHERE p.expiration_date BETWEEN :today AND :futureDate ORDER BY p.expiration_date, p.id")
+                .bind("today", today)
+                .bind("futureDate", today.plusDays(days))
+                .map(row -> toResponse(row, today))
+                .all();
+    }
+    
+    private Mono<ProductResponseDTO> lookup(Optional<ProductResponseDTO> indexed, String column, String value) {
+        if (indexed.isPresent()) {
+            return Mono.just(stockLedger.applyTo(indexed.get()));
+        }
+        long stamp = lookupIndex.stamp();
+        LocalDate today = LocalDate.now();
+        return databaseClient.sql(SELECT_PRODUCTS + "WHERE " + column + " = :value")
+                .bind("value", value)
+                .map(row -> toResponse(row, today))
+                .one()
+                // Not while the ledger is ahead of the row, as in ProductService
+                .doOnNext(found -> {
+                    if (!stockLedger.hasUnflushedChange(found.getId())) {
+                        lookupIndex.admit(found, stamp);
+                    }
+                })
+                .map(stockLedger::applyTo);
+    }
+    
+    // Mirrors ProductService.convertToResponseDTO for a joined row
+    private ProductResponseDTO toResponse(Readable row, LocalDate today) {
+        ProductResponseDTO dto = new ProductResponseDTO();
+        dto.setId(row.get("id", Long.class));
+        dto.setName(row.get("name", String.class));
+        dto.setDescription(row.get("description", String.class));
+        dto.setSku(row.get("sku", String.class));
+        dto.setBarcode(row.get("barcode", String.class));
+        dto.setPrice(row.get("price", BigDecimal.class));
+        dto.setStockQuantity(row.get("stock_quantity", Integer.class));
+        dto.setMinStockLevel(row.get("min_stock_level", Integer.class));
+        dto.setExpirationDate(row.get("expiration_date", LocalDate.class));
+        dto.setIsPerishable(row.get("is_perishable", Boolean.class));
+        dto.setStorageLocation(row.get("storage_location", String.class));
+        dto.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        dto.setUpdatedAt(row.get("updated_at", LocalDateTime.class));
+        dto.setLowStockSince(row.get("low_stock_since", LocalDateTime.class));
+        dto.setLowStockClearedAt(row.get("low_stock_cleared_at", LocalDateTime.class));
+        dto.setCategoryId(row.get("category_id", Long.class));
+        dto.setCategoryName(row.get("category_name", String.class));
+        dto.setSupplierId(row.get("supplier_id", Long.class));
+        dto.setSupplierName(row.get("supplier_name", String.class));
+        
+        LocalDate expirationDate = dto.getExpirationDate();
+        dto.setIsLowStock(dto.getStockQuantity() <= dto.getMinStockLevel());
+        dto.setIsExpired(expirationDate != null && expirationDate.isBefore(today));
+        dto.setIsExpiringSoon(expirationDate != null && expirationDate.isBefore(today.plusDays(ProductService.EXPIRING_SOON_DAYS)));
+        return dto;
+    }
+}
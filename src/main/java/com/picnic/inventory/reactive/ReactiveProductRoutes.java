@@ -0,0 +1,103 @@
+package com.picnic.inventory.reactive;
+
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.service.ProductChangeFeed;
+import com.picnic.inventory.service.ProductService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The scanner read endpoints of {@code /api/products} as WebFlux functional routes, served by
+ * {@link ReactiveProductServer}. Paths, parameters and response bodies match the blocking
+ * controller; search matches by name only, without the ranked index or fuzzy mode.
+ * <p>
+ * {@code /api/products/changes} streams the {@link ProductChangeFeed} as Server-Sent Events,
+ * optionally filtered by {@code categoryId} and {@code supplierId}. {@code overflow=drop} or
+ * {@code coalesce} (the default) picks what happens when the client falls behind, and the
+ * standard Last-Event-ID header, or a {@code lastEventId} parameter, resumes after an entry.
+ */
+@Configuration
+public class ReactiveProductRoutes {
+    
+    private static final int DEFAULT_EXPIRING_DAYS = 7;
+    
+    @Bean
+    public RouterFunction<ServerResponse> scannerRoutes(ReactiveProductReader reader, ProductChangeStream changeStream) {
+        return RouterFunctions.route()
+                .path("/api/products", products -> products
+                        .GET("/barcode/{barcode}", request -> single(reader.findByBarcode(request.pathVariable("barcode"))))
+                        .GET("/sku/{sku}", request -> single(reader.findBySku(request.pathVariable("sku"))))
+                        .GET("/search", request -> {
+                            Optional<String> name = request.queryParam("name");
+                            if (name.isEmpty()) {
+                                return ServerResponse.badRequest().build();
+                            }
+                            return list(Mono.fromCallable(() -> intParam(request, "limit", ProductService.DEFAULT_PAGE_SIZE))
+                                    .flatMapMany(limit -> reader.searchByName(name.get(), limit)));
+                        })
+                        .GET("/low-stock", request -> list(reader.findLowStock()))
+                        .GET("/expiring", request -> list(Mono.fromCallable(() -> intParam(request, "days", DEFAULT_EXPIRING_DAYS))
+                                .flatMapMany(reader::findExpiringWithinDays)))
+                        .GET("/changes", request -> changes(changeStream, request)))
+                .build();
+    }
+    
+    private static Mono<ServerResponse> single(Mono<ProductResponseDTO> product) {
+        return product
+                .flatMap(found -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(found))
+                .switchIfEmpty(ServerResponse.notFound().build());
+    }
+    
+    private static Mono<ServerResponse> list(Flux<ProductResponseDTO> products) {
+        return products.collectList()
+                .flatMap(found -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(found))
+                .onErrorResume(IllegalArgumentException.class, e -> ServerResponse.badRequest().build());
+    }
+    
+    private static Mono<ServerResponse> changes(ProductChangeStream changeStream, ServerRequest request) {
+        if (!changeStream.isEnabled()) {
+            return ServerResponse.notFound().build();
+        }
+        Flux<ServerSentEvent<?>> events;
+        try {
+            ProductChangeFeed.Filter filter = new ProductChangeFeed.Filter(
+                    longParam(request, "categoryId"), longParam(request, "supplierId"));
+            ProductChangeFeed.Overflow overflow = switch (request.queryParam("overflow").orElse("coalesce").toLowerCase(Locale.ROOT)) {
+                case "drop" -> ProductChangeFeed.Overflow.DROP_OLDEST;
+                case "coalesce" -> ProductChangeFeed.Overflow.COALESCE;
+                default -> throw new IllegalArgumentException("overflow must be drop or coalesce");
+            };
+            String lastEventId = request.headers().firstHeader("Last-Event-ID");
+            if (lastEventId == null) {
+                lastEventId = request.queryParam("lastEventId").orElse(null);
+            }
+            events = changeStream.stream(filter, overflow, lastEventId == null ? null : Long.valueOf(lastEventId));
+        } catch (IllegalArgumentException e) {
+            return ServerResponse.badRequest().build();
+        }
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(events, new ParameterizedTypeReference<ServerSentEvent<?>>() {});
+    }
+    
+    private static Long longParam(ServerRequest request, String name) {
+        return request.queryParam(name).map(Long::valueOf).orElse(null);
+    }
+    
+    // NumberFormatException is an IllegalArgumentException, so a malformed value becomes a 400
+    private static int intParam(ServerRequest request, String name, int defaultValue) {
+        return request.queryParam(name).map(Integer::parseInt).orElse(defaultValue);
+    }
+}
@@ -0,0 +1,98 @@
+package com.picnic.inventory.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reactor Netty server for the {@link ReactiveProductRoutes}, next to the servlet container on
+ * its own port. A handful of event loop threads serve every connection, so scanners that keep
+ * connections open between scans cost a socket each rather than a request thread; database
+ * concurrency is bounded separately by the R2DBC pool (spring.r2dbc.pool.max-size).
+ * <p>
+ * Open connections are exported as the inventory.reactive.connections gauge.
+ */
+@Component
+public class ReactiveProductServer {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReactiveProductServer.class);
+    
+    private final HttpHandler httpHandler;
+    private final boolean enabled;
+    private final int port;
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private DisposableServer server;
+    
+    @Autowired
+    public ReactiveProductServer(RouterFunction<ServerResponse> scannerRoutes,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${inventory.reactive.enabled:true}") boolean enabled,
+                                 @Value("${inventory.reactive.port:8081}") int port) {
+        // Same JSON mapping as the servlet API
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        this.httpHandler = RouterFunctions.toHttpHandler(scannerRoutes, strategies);
+        this.enabled = enabled;
+        this.port = port;
+        Gauge.builder("inventory.reactive.connections", openConnections, AtomicInteger::get)
+                .description("Connections open on the reactive scanner API")
+                .register(meterRegistry);
+    }
+    
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        server = HttpServer.create()
+                .port(port)
+                // Per channel: doOnConnection fires for every request on a keep-alive connection
+                .doOnChannelInit((observer, channel, remoteAddress) -> {
+                    openConnections.incrementAndGet();
+                    channel.closeFuture().addListener(closed -> openConnections.decrementAndGet());
+                })
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("Reactive scanner API listening on port {}", server.port());
+    }
+    
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+    
+    // Bound port, or -1 when the server is disabled; differs from the configured one when that is 0
+    public int getPort() {
+        return server == null ? -1 : server.port();
+    }
+    
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+}
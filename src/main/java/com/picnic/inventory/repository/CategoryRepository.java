@@ -1,21 +1,57 @@
 package com.picnic.inventory.repository;
 
+import com.picnic.inventory.dto.InventoryStatsDTO;
 import com.picnic.inventory.model.Category;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     
-    // Find category by name
+    // Find category by name (query cache)
+    @QueryHints({
+        @QueryHint(name = HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HINT_CACHE_REGION, value = "reference-data-queries")
+    })
     Optional<Category> findByName(String name);
     
     // Find categories by name containing (case-insensitive)
     List<Category> findByNameContainingIgnoreCase(String name);
     
-    // Check if category name exists
+    // Check if category name exists (query cache)
+    @QueryHints({
+        @QueryHint(name = HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HINT_CACHE_REGION, value = "reference-data-queries")
+    })
     boolean existsByName(String name);
+    
+    // Product count, units, value, low-stock, expiring and expired counts for every category in one grouped query,
+    // plus a row with a null id for products without a category if there are any; unordered. Expiring
+    // counts the products flagged isExpiringSoon: expiring before :expiringBy, the expired ones included
+    @Query("SELECT new com.picnic.inventory.dto.InventoryStatsDTO(c.id, c.name, COUNT(p.id), " +
+           "COALESCE(SUM(p.stockQuantity), 0), COALESCE(SUM(p.price * p.stockQuantity), 0), " +
+           "COALESCE(SUM(CASE WHEN p.lowStockFlag = true THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN p.expirationDate < :expiringBy THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN p.expirationDate < :today THEN 1 ELSE 0 END), 0)) " +
+           "FROM Category c LEFT JOIN Product p ON p.category = c " +
+           "GROUP BY c.id, c.name " +
+           "UNION ALL " +
+           "SELECT new com.picnic.inventory.dto.InventoryStatsDTO(CAST(NULL AS Long), CAST(NULL AS String), COUNT(p.id), " +
+           "COALESCE(SUM(p.stockQuantity), 0), COALESCE(SUM(p.price * p.stockQuantity), 0), " +
+           "COALESCE(SUM(CASE WHEN p.lowStockFlag = true THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN p.expirationDate < :expiringBy THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN p.expirationDate < :today THEN 1 ELSE 0 END), 0)) " +
+           "FROM Product p WHERE p.category IS NULL GROUP BY p.category.id")
+    List<InventoryStatsDTO> findInventoryStats(@Param("today") LocalDate today, @Param("expiringBy") LocalDate expiringBy);
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.picnic.inventory.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Splits the keys of an {@code IN (...)} lookup into chunks, one statement each, so the bind
+ * parameters of a large batch or calendar lookup stay well below driver limits.
+ */
+public final class InLists {
+    
+    public static final int CHUNK_SIZE = 1000;
+    
+    private InLists() {}
+    
+    // Views of consecutive runs of at most CHUNK_SIZE values, in iteration order
+    public static <T> List<List<T>> chunks(Collection<T> values) {
+        List<T> list = values instanceof List<T> ordered ? ordered : new ArrayList<>(values);
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += CHUNK_SIZE) {
+            chunks.add(list.subList(from, Math.min(from + CHUNK_SIZE, list.size())));
+        }
+        return chunks;
+    }
+}
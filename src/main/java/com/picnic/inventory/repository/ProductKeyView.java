@@ -0,0 +1,11 @@
+package com.picnic.inventory.repository;
+
+/**
+ * Projection of a natural product key (SKU or barcode) to its id.
+ */
+public interface ProductKeyView {
+    
+    String getNaturalKey();
+    
+    Long getId();
+}
@@ -1,49 +1,169 @@
 package com.picnic.inventory.repository;
 
+import com.picnic.inventory.dto.ProductSuggestionDTO;
+import com.picnic.inventory.dto.ReorderLineDTO;
 import com.picnic.inventory.model.Product;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+    
+    // Queries returning products for responses fetch category and supplier in the same statement;
+    // the response carries their names, and lazy loading would cost two extra queries per row.
+    // List pages with optional filters are built from ProductSpecifications
+    
+    @Override
+    @EntityGraph(Product.WITH_REFERENCES)
+    Optional<Product> findById(Long id);
+    
+    @Override
+    @EntityGraph(Product.WITH_REFERENCES)
+    List<Product> findAll();
+    
+    @Override
+    @EntityGraph(Product.WITH_REFERENCES)
+    List<Product> findAllById(Iterable<Long> ids);
     
     // Find product by SKU
+    @EntityGraph(Product.WITH_REFERENCES)
     Optional<Product> findBySku(String sku);
     
     // Find product by barcode
+    @EntityGraph(Product.WITH_REFERENCES)
     Optional<Product> findByBarcode(String barcode);
     
+    // Stock of one product without loading the entity
+    @Query("SELECT p.stockQuantity FROM Product p WHERE p.id = :id")
+    Optional<Integer> findStockQuantityById(@Param("id") Long id);
+    
+    // Which of the given SKUs are already taken
+    @Query("SELECT p.sku FROM Product p WHERE p.sku IN :skus")
+    Set<String> findExistingSkus(@Param("skus") Collection<String> skus);
+    
+    // Which of the given barcodes are already taken
+    @Query("SELECT p.barcode FROM Product p WHERE p.barcode IN :barcodes")
+    Set<String> findExistingBarcodes(@Param("barcodes") Collection<String> barcodes);
+    
+    // Resolve SKUs to ids for bulk operations
+    @Query("SELECT p.sku AS naturalKey, p.id AS id FROM Product p WHERE p.sku IN :skus")
+    List<ProductKeyView> findIdsBySkuIn(@Param("skus") Collection<String> skus);
+    
+    // Resolve barcodes to ids for bulk operations
+    @Query("SELECT p.barcode AS naturalKey, p.id AS id FROM Product p WHERE p.barcode IN :barcodes")
+    List<ProductKeyView> findIdsByBarcodeIn(@Param("barcodes") Collection<String> barcodes);
+    
+    // Load and row-lock products in id order, so concurrent bulk updates acquire locks in the same order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<Product> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+    
     // Find products by category
+    @EntityGraph(Product.WITH_REFERENCES)
     List<Product> findByCategoryId(Long categoryId);
     
     // Find products by supplier
+    @EntityGraph(Product.WITH_REFERENCES)
     List<Product> findBySupplierId(Long supplierId);
     
     // Search products by name containing (case-insensitive)
+    @EntityGraph(Product.WITH_REFERENCES)
     List<Product> findByNameContainingIgnoreCase(String name);
     
-    // Find products with low stock
-    @Query("SELECT p FROM Product p WHERE p.stockQuantity <= p.minStockLevel")
+    // One page of products by name containing (case-insensitive); search fallback before the index is built
+    @EntityGraph(Product.WITH_REFERENCES)
+    Page<Product> findByNameContainingIgnoreCase(String name, Pageable pageable);
+    
+    // Products whose name, SKU or barcode matches the lower-case prefix pattern, escaped with a
+    // backslash; suggest fallback before the trie is built. Ordered like the trie: by the smallest
+    // matching key, then id
+    @Query("SELECT new com.picnic.inventory.dto.ProductSuggestionDTO(p.id, p.name, p.sku, p.barcode) FROM Product p " +
+           "WHERE LOWER(p.name) LIKE :pattern ESCAPE '\\' OR LOWER(p.sku) LIKE :pattern ESCAPE '\\' " +
+           "OR LOWER(p.barcode) LIKE :pattern ESCAPE '\\' " +
+           "ORDER BY LEAST(CASE WHEN LOWER(p.name) LIKE :pattern ESCAPE '\\' THEN LOWER(p.name) END, " +
+           "CASE WHEN LOWER(p.sku) LIKE :pattern ESCAPE '\\' THEN LOWER(p.sku) END, " +
+           "CASE WHEN LOWER(p.barcode) LIKE :pattern ESCAPE '\\' THEN LOWER(p.barcode) END), p.id")
+    List<ProductSuggestionDTO> findSuggestions(@Param("pattern") String pattern, Pageable pageable);
+    
+    // Stream the whole catalog in id order with category and supplier joined in; the caller
+    // must consume the stream inside a transaction and close it
+    @QueryHints({
+        @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category LEFT JOIN FETCH p.supplier ORDER BY p.id")
+    Stream<Product> streamCatalog();
+    
+    // Atomically add delta to the stock unless the result would be negative; returns the rows updated.
+    // Entity callbacks do not run for bulk updates, so the low-stock flag and its timestamps are set here
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :delta, p.version = p.version + 1, p.updatedAt = :now, " +
+           "p.lowStockSince = CASE WHEN p.stockQuantity + :delta <= p.minStockLevel AND p.lowStockFlag = false THEN :now ELSE p.lowStockSince END, " +
+           "p.lowStockClearedAt = CASE WHEN p.stockQuantity + :delta > p.minStockLevel AND p.lowStockFlag = true THEN :now ELSE p.lowStockClearedAt END, " +
+           "p.lowStockFlag = CASE WHEN p.stockQuantity + :delta <= p.minStockLevel THEN true ELSE false END " +
+           "WHERE p.id = :id AND p.stockQuantity + :delta >= 0")
+    int adjustStock(@Param("id") Long id, @Param("delta") int delta, @Param("now") LocalDateTime now);
+    
+    // Find products with low stock, longest-running shortages first; served in order by
+    // idx_products_low_stock_since, or by the partial index database-setup.sql creates
+    @EntityGraph(Product.WITH_REFERENCES)
+    @Query("SELECT p FROM Product p WHERE p.lowStockFlag = true ORDER BY p.lowStockSince, p.id")
     List<Product> findLowStockProducts();
     
+    // Low-stock products of every supplier as reorder lines, in one read served by idx_products_low_stock
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.picnic.inventory.dto.ReorderLineDTO(p.id, p.sku, p.name, p.supplier.id, " +
+           "p.stockQuantity, p.minStockLevel, p.price) " +
+           "FROM Product p WHERE p.lowStockFlag = true AND p.supplier.id IS NOT NULL")
+    List<ReorderLineDTO> findReorderCandidates();
+    
+    // Low-stock products of one supplier as reorder lines
+    @Query("SELECT new com.picnic.inventory.dto.ReorderLineDTO(p.id, p.sku, p.name, p.supplier.id, " +
+           "p.stockQuantity, p.minStockLevel, p.price) " +
+           "FROM Product p WHERE p.lowStockFlag = true AND p.supplier.id = :supplierId")
+    List<ReorderLineDTO> findReorderCandidatesBySupplierId(@Param("supplierId") Long supplierId);
+    
     // Find products expiring within specified days
+    @EntityGraph(Product.WITH_REFERENCES)
     @Query("SELECT p FROM Product p WHERE p.expirationDate IS NOT NULL AND p.expirationDate BETWEEN :today AND :futureDate")
     List<Product> findProductsExpiringWithinDays(@Param("today") LocalDate today, @Param("futureDate") LocalDate futureDate);
     
     // Find expired products
+    @EntityGraph(Product.WITH_REFERENCES)
     @Query("SELECT p FROM Product p WHERE p.expirationDate IS NOT NULL AND p.expirationDate < :today")
     List<Product> findExpiredProducts(@Param("today") LocalDate today);
     
     // Find perishable products
+    @EntityGraph(Product.WITH_REFERENCES)
     List<Product> findByIsPerishableTrue();
     
     // Find products by storage location
+    @EntityGraph(Product.WITH_REFERENCES)
     List<Product> findByStorageLocationContainingIgnoreCase(String location);
     
     // Count products by category
@@ -55,6 +175,11 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     long countProductsBySupplier(@Param("supplierId") Long supplierId);
     
     // Get total inventory value
-    @Query("SELECT SUM(p.price * p.stockQuantity) FROM Product p")
-    Double getTotalInventoryValue();
+    @Query("SELECT COALESCE(SUM(p.price * p.stockQuantity), 0) FROM Product p")
+    BigDecimal getTotalInventoryValue();
+    
+    // Inventory value per category and supplier pair: rows of (categoryId, supplierId, value), ids null when unset
+    @Query("SELECT p.category.id, p.supplier.id, SUM(p.price * p.stockQuantity) FROM Product p " +
+           "GROUP BY p.category.id, p.supplier.id")
+    List<Object[]> sumInventoryValueByCategoryAndSupplier();
 }
\ No newline at end of file
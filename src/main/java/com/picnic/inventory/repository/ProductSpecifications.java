@@ -0,0 +1,76 @@
+package com.picnic.inventory.repository;
+
+import com.picnic.inventory.model.Product;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Building blocks for product queries whose filters are optional. Only the filters a request
+ * actually sets become predicates, so the statement PostgreSQL plans names exactly the columns in
+ * use and can pick the matching index; a catch-all {@code (:x IS NULL OR p.x = :x)} predicate is
+ * planned once for every combination and usually ends up as a scan.
+ */
+public final class ProductSpecifications {
+    
+    private ProductSpecifications() {}
+    
+    /**
+     * The optional list filters combined with AND; null filters, and {@code lowStockOnly} when
+     * false, add no predicate. {@code namePattern} is a lower-case LIKE pattern escaped with
+     * {@link #escapeLike(String)}.
+     */
+    public static Specification<Product> matching(Long categoryId, Long supplierId, String namePattern,
+                                                  boolean lowStockOnly) {
+        Specification<Product> filter = Specification.where(null);
+        if (categoryId != null) {
+            filter = filter.and(inCategory(categoryId));
+        }
+        if (supplierId != null) {
+            filter = filter.and(fromSupplier(supplierId));
+        }
+        if (namePattern != null) {
+            filter = filter.and(nameLike(namePattern));
+        }
+        if (lowStockOnly) {
+            filter = filter.and(lowStock());
+        }
+        return filter;
+    }
+    
+    // Keyset seek for pages ordered by id
+    public static Specification<Product> idAfter(long lastId) {
+        return (root, query, cb) -> cb.greaterThan(root.get("id"), lastId);
+    }
+    
+    // Keyset seek for pages ordered by (name, id)
+    public static Specification<Product> nameAndIdAfter(String lastName, long lastId) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("name"), lastName),
+                cb.and(cb.equal(root.get("name"), lastName), cb.greaterThan(root.get("id"), lastId)));
+    }
+    
+    // Compared on the foreign key column; no join to categories
+    public static Specification<Product> inCategory(Long categoryId) {
+        return (root, query, cb) -> cb.equal(root.get("category").get("id"), categoryId);
+    }
+    
+    public static Specification<Product> fromSupplier(Long supplierId) {
+        return (root, query, cb) -> cb.equal(root.get("supplier").get("id"), supplierId);
+    }
+    
+    public static Specification<Product> nameLike(String namePattern) {
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")), namePattern, '\\');
+    }
+    
+    /**
+     * {@code text} lower-cased with the LIKE wildcards and the backslash escaped, for patterns
+     * declared with {@code ESCAPE '\'}.
+     */
+    public static String escapeLike(String text) {
+        return text.trim().toLowerCase().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+    
+    // Served by idx_products_low_stock
+    public static Specification<Product> lowStock() {
+        return (root, query, cb) -> cb.isTrue(root.get("lowStockFlag"));
+    }
+}
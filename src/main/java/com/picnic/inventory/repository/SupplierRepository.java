@@ -1,16 +1,29 @@
 package com.picnic.inventory.repository;
 
+import com.picnic.inventory.dto.InventoryStatsDTO;
 import com.picnic.inventory.model.Supplier;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+
 @Repository
 public interface SupplierRepository extends JpaRepository<Supplier, Long> {
     
-    // Find supplier by name
+    // Find supplier by name (query cache)
+    @QueryHints({
+        @QueryHint(name = HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HINT_CACHE_REGION, value = "reference-data-queries")
+    })
     Optional<Supplier> findByName(String name);
     
     // Find supplier by email
@@ -22,6 +35,29 @@ public interface SupplierRepository extends JpaRepository<Supplier, Long> {
     // Find suppliers by contact person
     List<Supplier> findByContactPersonContainingIgnoreCase(String contactPerson);
     
-    // Check if supplier email exists
+    // Check if supplier email exists (query cache)
+    @QueryHints({
+        @QueryHint(name = HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HINT_CACHE_REGION, value = "reference-data-queries")
+    })
     boolean existsByEmail(String email);
+    
+    // Product count, units, value, low-stock, expiring and expired counts for every supplier in one grouped query,
+    // plus a row with a null id for products without a supplier if there are any; unordered. Expiring
+    // counts the products flagged isExpiringSoon: expiring before :expiringBy, the expired ones included
+    @Query("SELECT new com.picnic.inventory.dto.InventoryStatsDTO(s.id, s.name, COUNT(p.id), " +
+           "COALESCE(SUM(p.stockQuantity), 0), COALESCE(SUM(p.price * p.stockQuantity), 0), " +
+           "COALESCE(SUM(CASE WHEN p.lowStockFlag = true THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN p.expirationDate < :expiringBy THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN p.expirationDate < :today THEN 1 ELSE 0 END), 0)) " +
+           "FROM Supplier s LEFT JOIN Product p ON p.supplier = s " +
+           "GROUP BY s.id, s.name " +
+           "UNION ALL " +
+           "SELECT new com.picnic.inventory.dto.InventoryStatsDTO(CAST(NULL AS Long), CAST(NULL AS String), COUNT(p.id), " +
+           "COALESCE(SUM(p.stockQuantity), 0), COALESCE(SUM(p.price * p.stockQuantity), 0), " +
+           "COALESCE(SUM(CASE WHEN p.lowStockFlag = true THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN p.expirationDate < :expiringBy THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN p.expirationDate < :today THEN 1 ELSE 0 END), 0)) " +
+           "FROM Product p WHERE p.supplier IS NULL GROUP BY p.supplier.id")
+    List<InventoryStatsDTO> findInventoryStats(@Param("today") LocalDate today, @Param("expiringBy") LocalDate expiringBy);
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import com.picnic.inventory.event.ReferenceDataChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Version of the product catalog as a whole, advanced after commit of every product, category and
+ * supplier write. Read endpoints derive their ETag and Last-Modified from it, so a client holding
+ * the current version is answered with 304 Not Modified before any lookup is made.
+ * <p>
+ * The counter starts at the boot time so that versions handed out by an earlier run are not
+ * reused. Product responses carry expiry flags computed against the current date, so the date is
+ * part of the ETag and the start of the day is a lower bound for Last-Modified. Writes made by
+ * other application instances are not seen, like the other in-memory indexes.
+ */
+@Component
+public class CatalogVersion {
+    
+    private record State(long version, Instant lastModified) {}
+    
+    private final AtomicReference<State> state =
+            new AtomicReference<>(new State(System.currentTimeMillis(), Instant.now().truncatedTo(ChronoUnit.SECONDS)));
+    
+    private final StockLedger stockLedger;
+    
+    public CatalogVersion(StockLedger stockLedger) {
+        this.stockLedger = stockLedger;
+    }
+    
+    public long getVersion() {
+        return state.get().version();
+    }
+    
+    // Strong validator for any catalog read made today
+    public String getETag() {
+        return "\"catalog-" + getVersion() + "-" + LocalDate.now() + "\"";
+    }
+    
+    public Instant getLastModified() {
+        return latest(state.get().lastModified(), startOfToday());
+    }
+    
+    /**
+     * Last-Modified of a single product response. A stock change the ledger has not flushed yet is
+     * served but not in {@code updated_at}, so such a product gets the catalog's Last-Modified,
+     * which every acknowledged stock change advances.
+     */
+    public Instant lastModified(ProductResponseDTO product) {
+        if (stockLedger.hasUnflushedChange(product.getId())) {
+            return getLastModified();
+        }
+        return lastModified(product.getCreatedAt(), product.getUpdatedAt());
+    }
+    
+    // Last-Modified of a single entity, from its own timestamps rather than the catalog's
+    public static Instant lastModified(LocalDateTime createdAt, LocalDateTime updatedAt) {
+        LocalDateTime changedAt = updatedAt != null ? updatedAt : createdAt;
+        if (changedAt == null) {
+            return startOfToday();
+        }
+        return latest(changedAt.atZone(ZoneId.systemDefault()).toInstant().truncatedTo(ChronoUnit.SECONDS), startOfToday());
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        advance();
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        advance();
+    }
+    
+    private void advance() {
+        Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        state.updateAndGet(current -> new State(current.version() + 1, latest(current.lastModified(), now)));
+    }
+    
+    private static Instant startOfToday() {
+        return LocalDate.now().atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+    
+    private static Instant latest(Instant a, Instant b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -1,23 +1,47 @@
 package com.picnic.inventory.service;
 
+import com.picnic.inventory.dto.InventoryStatsDTO;
+import com.picnic.inventory.event.ReferenceDataChangedEvent;
 import com.picnic.inventory.model.Category;
 import com.picnic.inventory.repository.CategoryRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed(value = "inventory.service", histogram = true)
 @Transactional
 public class CategoryService {
     
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockLedger stockLedger;
     
     @Autowired
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, ApplicationEventPublisher eventPublisher, StockLedger stockLedger) {
         this.categoryRepository = categoryRepository;
+        this.eventPublisher = eventPublisher;
+        this.stockLedger = stockLedger;
+    }
+    
+    // Inventory figures for every category, and for the products without one, computed by the
+    // database in a single grouped query. Stock and low-stock flags are read from the table, so
+    // pending ledger deltas are flushed before the read transaction starts
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<InventoryStatsDTO> getCategoryStats() {
+        LocalDate today = LocalDate.now();
+        List<InventoryStatsDTO> stats = new ArrayList<>(stockLedger.flushThenRead(() ->
+                categoryRepository.findInventoryStats(today, today.plusDays(ProductService.EXPIRING_SOON_DAYS))));
+        stats.sort(InventoryStatsDTO.BY_NAME);
+        return stats;
     }
     
     public List<Category> getAllCategories() {
@@ -38,7 +62,9 @@ public class CategoryService {
         }
         
         Category category = new Category(name, description);
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Kind.CATEGORY, savedCategory.getId(), ReferenceDataChangedEvent.Change.CREATED));
+        return savedCategory;
     }
     
     public Category updateCategory(Long id, String name, String description) {
@@ -52,7 +78,9 @@ public class CategoryService {
         
         category.setName(name);
         category.setDescription(description);
-        return categoryRepository.save(category);
+        Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Kind.CATEGORY, id, ReferenceDataChangedEvent.Change.UPDATED));
+        return savedCategory;
     }
     
     public void deleteCategory(Long id) {
@@ -60,6 +88,7 @@ public class CategoryService {
             throw new IllegalArgumentException("Category not found with id: " + id);
         }
         categoryRepository.deleteById(id);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Kind.CATEGORY, id, ReferenceDataChangedEvent.Change.DELETED));
     }
     
     public List<Category> searchCategoriesByName(String name) {
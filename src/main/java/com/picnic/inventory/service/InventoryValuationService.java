@@ -0,0 +1,293 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.dto.InventoryValueDTO;
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import com.picnic.inventory.event.ReferenceDataChangedEvent;
+import com.picnic.inventory.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Running inventory valuation (price times stock) in exact decimals, overall and per category and
+ * supplier, so finance dashboards polling it do not sum the whole products table.
+ * <p>
+ * Totals are adjusted after commit of every product write by subtracting the previous value and
+ * adding the current one. They are seeded from a grouped SQL sum at startup and reconciled
+ * against it periodically and whenever a category or supplier delete cascades to its products;
+ * before the first load, reads go to the database.
+ */
+@Service
+@Timed(value = "inventory.service", histogram = true)
+public class InventoryValuationService {
+    
+    private static final Logger log = LoggerFactory.getLogger(InventoryValuationService.class);
+    
+    // Reconciliation compares only between quiet moments; busier rounds are retried this often
+    private static final int RECONCILE_ATTEMPTS = 3;
+    
+    private final ProductRepository productRepository;
+    private final StockLedger stockLedger;
+    private final boolean enabled;
+    private final Counter mismatches;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    // Guarded by lock; a null key collects products without a category or supplier
+    private Totals totals = new Totals();
+    private long version;
+    
+    private volatile boolean ready;
+    private volatile LocalDateTime lastReconciledAt;
+    
+    @Autowired
+    public InventoryValuationService(ProductRepository productRepository,
+                                     StockLedger stockLedger,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${inventory.valuation.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.stockLedger = stockLedger;
+        this.enabled = enabled;
+        this.mismatches = Counter.builder("inventory.valuation.reconcile.mismatches")
+                .description("Reconciliations that found the running valuation differing from the SQL sum")
+                .register(meterRegistry);
+    }
+    
+    public boolean isReady() {
+        return ready;
+    }
+    
+    public LocalDateTime getLastReconciledAt() {
+        return lastReconciledAt;
+    }
+    
+    public BigDecimal getTotalValue() {
+        if (!ready) {
+            return stockLedger.flushThenRead(productRepository::getTotalInventoryValue);
+        }
+        lock.lock();
+        try {
+            return totals.total;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    public List<InventoryValueDTO> getValueByCategory() {
+        return breakdown(true);
+    }
+    
+    public List<InventoryValueDTO> getValueBySupplier() {
+        return breakdown(false);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (event.getPrevious() != null) {
+                totals.add(event.getPrevious(), -1);
+            }
+            if (event.getCurrent() != null) {
+                totals.add(event.getCurrent(), 1);
+            }
+            version++;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        // Deleting a category or supplier deletes its products without a per-product event
+        if (enabled && ready && event.isDeleted()) {
+            reconcile();
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (enabled) {
+            reconcile();
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${inventory.valuation.reconcile-interval-ms:300000}",
+               initialDelayString = "${inventory.valuation.reconcile-interval-ms:300000}")
+    public void scheduledReconcile() {
+        // Also retries the initial load if startup was too busy to get a quiet comparison
+        if (!enabled) {
+            return;
+        }
+        try {
+            reconcile();
+        } catch (RuntimeException e) {
+            log.warn("Inventory valuation reconciliation failed; will retry", e);
+        }
+    }
+    
+    /**
+     * Compares the running totals with a grouped SQL sum and replaces them if they differ, or
+     * seeds them on the first call. A comparison only counts if no product write was applied
+     * while the SQL ran; a difference must be seen twice in a row before it is corrected, so a
+     * write that committed but whose event has not yet arrived is not mistaken for drift.
+     *
+     * @return MATCHED if the totals agreed or were seeded, DRIFTED if they were corrected, and
+     * SKIPPED if writes kept landing during the SQL sum or a difference was seen only once
+     */
+    public Reconciliation reconcile() {
+        boolean suspected = false;
+        for (int attempt = 0; attempt < RECONCILE_ATTEMPTS; attempt++) {
+            long before;
+            lock.lock();
+            try {
+                before = version;
+            } finally {
+                lock.unlock();
+            }
+            // The SQL sum must see stock changes still held by the ledger
+            Totals fromDatabase = stockLedger.flushThenRead(this::load);
+            
+            lock.lock();
+            try {
+                if (version != before) {
+                    continue;
+                }
+                lastReconciledAt = LocalDateTime.now();
+                if (!ready) {
+                    totals = fromDatabase;
+                    ready = true;
+                    log.info("Inventory valuation loaded: total {} over {} categories and {} suppliers",
+                            totals.total, totals.byCategory.size(), totals.bySupplier.size());
+                    return Reconciliation.MATCHED;
+                }
+                if (totals.matches(fromDatabase)) {
+                    return Reconciliation.MATCHED;
+                }
+                if (suspected) {
+                    mismatches.increment();
+                    log.warn("Inventory valuation drifted from the database (running total {}, SQL total {}); corrected",
+                            totals.total, fromDatabase.total);
+                    totals = fromDatabase;
+                    return Reconciliation.DRIFTED;
+                }
+                suspected = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+        log.debug("Inventory valuation reconciliation skipped: {}", suspected
+                ? "a difference was seen once and not confirmed" : "product writes overlapped every SQL sum");
+        return Reconciliation.SKIPPED;
+    }
+    
+    private Totals load() {
+        Totals loaded = new Totals();
+        for (Object[] row : productRepository.sumInventoryValueByCategoryAndSupplier()) {
+            loaded.add((Long) row[0], (Long) row[1], (BigDecimal) row[2]);
+        }
+        return loaded;
+    }
+    
+    private List<InventoryValueDTO> breakdown(boolean byCategory) {
+        Map<Long, BigDecimal> values;
+        if (ready) {
+            lock.lock();
+            try {
+                values = new HashMap<>(byCategory ? totals.byCategory : totals.bySupplier);
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            Totals loaded = stockLedger.flushThenRead(this::load);
+            values = byCategory ? loaded.byCategory : loaded.bySupplier;
+        }
+        List<InventoryValueDTO> breakdown = new ArrayList<>(values.size());
+        values.forEach((id, value) -> breakdown.add(new InventoryValueDTO(id, value)));
+        breakdown.sort(Comparator.comparing(InventoryValueDTO::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        return breakdown;
+    }
+    
+    /**
+     * Outcome of one {@link #reconcile()} call.
+     */
+    public enum Reconciliation {
+        MATCHED,
+        DRIFTED,
+        SKIPPED
+    }
+    
+    private static final class Totals {
+        private final Map<Long, BigDecimal> byCategory = new HashMap<>();
+        private final Map<Long, BigDecimal> bySupplier = new HashMap<>();
+        private BigDecimal total = BigDecimal.ZERO;
+        
+        private void add(ProductResponseDTO product, int sign) {
+            if (product.getPrice() == null || product.getStockQuantity() == null) {
+                return;
+            }
+            BigDecimal value = product.getPrice().multiply(BigDecimal.valueOf(product.getStockQuantity()));
+            add(product.getCategoryId(), product.getSupplierId(), sign < 0 ? value.negate() : value);
+        }
+        
+        private void add(Long categoryId, Long supplierId, BigDecimal value) {
+            if (value == null || value.signum() == 0) {
+                return;
+            }
+            total = total.add(value);
+            merge(byCategory, categoryId, value);
+            merge(bySupplier, supplierId, value);
+        }
+        
+        // Entries that reach zero are dropped so equal totals compare equal however they were built
+        private static void merge(Map<Long, BigDecimal> values, Long id, BigDecimal value) {
+            BigDecimal merged = values.getOrDefault(id, BigDecimal.ZERO).add(value);
+            if (merged.signum() == 0) {
+                values.remove(id);
+            } else {
+                values.put(id, merged);
+            }
+        }
+        
+        private boolean matches(Totals other) {
+            return total.compareTo(other.total) == 0
+                    && sameValues(byCategory, other.byCategory)
+                    && sameValues(bySupplier, other.bySupplier);
+        }
+        
+        private static boolean sameValues(Map<Long, BigDecimal> left, Map<Long, BigDecimal> right) {
+            if (left.size() != right.size()) {
+                return false;
+            }
+            for (Map.Entry<Long, BigDecimal> entry : left.entrySet()) {
+                BigDecimal other = right.get(entry.getKey());
+                if (other == null || other.compareTo(entry.getValue()) != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
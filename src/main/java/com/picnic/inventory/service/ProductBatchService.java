@@ -0,0 +1,204 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.dto.BatchItemResultDTO;
+import com.picnic.inventory.dto.BatchResultDTO;
+import com.picnic.inventory.dto.ProductCreateDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import com.picnic.inventory.model.Category;
+import com.picnic.inventory.model.Product;
+import com.picnic.inventory.model.Supplier;
+import com.picnic.inventory.repository.CategoryRepository;
+import com.picnic.inventory.repository.InLists;
+import com.picnic.inventory.repository.ProductRepository;
+import com.picnic.inventory.repository.SupplierRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates many products in one request. Validation, uniqueness and reference checks are done
+ * for the whole batch with set-based queries, and the accepted products are inserted through
+ * JDBC statement batching.
+ */
+@Service
+@Timed(value = "inventory.service", histogram = true)
+public class ProductBatchService {
+    
+    public static final int MAX_BATCH_SIZE = 5000;
+    
+    // Flush and detach after this many inserts; a multiple of hibernate.jdbc.batch_size
+    private static final int FLUSH_INTERVAL = 500;
+    
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final SupplierRepository supplierRepository;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    public ProductBatchService(ProductRepository productRepository,
+                               CategoryRepository categoryRepository,
+                               SupplierRepository supplierRepository,
+                               EntityManager entityManager,
+                               Validator validator,
+                               ApplicationEventPublisher eventPublisher) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.supplierRepository = supplierRepository;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+    }
+    
+    /**
+     * Creates every valid item and reports the outcome of each one by its position in the request.
+     * Items that fail validation, reuse an existing or in-batch SKU/barcode, or reference an unknown
+     * category or supplier are skipped; the rest are inserted in a single transaction.
+     */
+    @Transactional
+    public BatchResultDTO createProducts(List<ProductCreateDTO> items) {
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one product");
+        }
+        if (items.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch cannot contain more than " + MAX_BATCH_SIZE + " products");
+        }
+        
+        BatchItemResultDTO[] results = new BatchItemResultDTO[items.size()];
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            ProductCreateDTO item = items.get(i);
+            String error = item == null ? "Product is required" : validate(item);
+            if (error != null) {
+                results[i] = BatchItemResultDTO.failed(i, item != null ? item.getSku() : null, error);
+            } else {
+                candidates.add(i);
+            }
+        }
+        
+        // One round of set-based lookups for the whole batch
+        Set<String> takenSkus = findExisting(candidates, items, ProductCreateDTO::getSku, productRepository::findExistingSkus);
+        Set<String> takenBarcodes = findExisting(candidates, items, ProductCreateDTO::getBarcode, productRepository::findExistingBarcodes);
+        Map<Long, Category> categories = loadById(candidates, items, ProductCreateDTO::getCategoryId, categoryRepository::findAllById, Category::getId);
+        Map<Long, Supplier> suppliers = loadById(candidates, items, ProductCreateDTO::getSupplierId, supplierRepository::findAllById, Supplier::getId);
+        
+        List<Product> pending = new ArrayList<>();
+        List<Integer> pendingIndexes = new ArrayList<>();
+        for (int i : candidates) {
+            ProductCreateDTO item = items.get(i);
+            String error = checkReferences(item, takenSkus, takenBarcodes, categories, suppliers);
+            if (error != null) {
+                results[i] = BatchItemResultDTO.failed(i, item.getSku(), error);
+                continue;
+            }
+            // Later items in the same batch may not reuse these keys
+            takenSkus.add(item.getSku());
+            takenBarcodes.add(item.getBarcode());
+            
+            Product product = new Product();
+            ProductService.copyFields(item, product);
+            product.setCategory(item.getCategoryId() != null ? categories.get(item.getCategoryId()) : null);
+            product.setSupplier(item.getSupplierId() != null ? suppliers.get(item.getSupplierId()) : null);
+            pending.add(product);
+            pendingIndexes.add(i);
+            
+            if (pending.size() == FLUSH_INTERVAL) {
+                insert(pending, pendingIndexes, items, results);
+            }
+        }
+        insert(pending, pendingIndexes, items, results);
+        
+        return new BatchResultDTO(List.of(results));
+    }
+    
+    private void insert(List<Product> pending, List<Integer> pendingIndexes,
+                        List<ProductCreateDTO> items, BatchItemResultDTO[] results) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        productRepository.saveAll(pending);
+        entityManager.flush();
+        for (int i = 0; i < pending.size(); i++) {
+            Product product = pending.get(i);
+            int index = pendingIndexes.get(i);
+            results[index] = BatchItemResultDTO.succeeded(index, items.get(index).getSku(), product.getId());
+            eventPublisher.publishEvent(ProductChangedEvent.created(ProductService.convertToResponseDTO(product)));
+        }
+        // Detach the inserted rows so a large batch does not accumulate in the persistence context;
+        // categories and suppliers stay usable as detached references
+        entityManager.clear();
+        pending.clear();
+        pendingIndexes.clear();
+    }
+    
+    private String validate(ProductCreateDTO item) {
+        Set<ConstraintViolation<ProductCreateDTO>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+    
+    private static String checkReferences(ProductCreateDTO item, Set<String> takenSkus, Set<String> takenBarcodes,
+                                          Map<Long, Category> categories, Map<Long, Supplier> suppliers) {
+        if (takenSkus.contains(item.getSku())) {
+            return "Product with SKU " + item.getSku() + " already exists";
+        }
+        if (takenBarcodes.contains(item.getBarcode())) {
+            return "Product with barcode " + item.getBarcode() + " already exists";
+        }
+        if (item.getCategoryId() != null && !categories.containsKey(item.getCategoryId())) {
+            return "Category not found with id: " + item.getCategoryId();
+        }
+        if (item.getSupplierId() != null && !suppliers.containsKey(item.getSupplierId())) {
+            return "Supplier not found with id: " + item.getSupplierId();
+        }
+        return null;
+    }
+    
+    private static Set<String> findExisting(List<Integer> candidates, List<ProductCreateDTO> items,
+                                            Function<ProductCreateDTO, String> key,
+                                            Function<Set<String>, Set<String>> lookup) {
+        Set<String> keys = candidates.stream().map(i -> key.apply(items.get(i))).collect(Collectors.toSet());
+        Set<String> existing = new HashSet<>();
+        for (List<String> chunk : InLists.chunks(keys)) {
+            existing.addAll(lookup.apply(new HashSet<>(chunk)));
+        }
+        return existing;
+    }
+    
+    private static <T> Map<Long, T> loadById(List<Integer> candidates, List<ProductCreateDTO> items,
+                                             Function<ProductCreateDTO, Long> key,
+                                             Function<List<Long>, List<T>> lookup,
+                                             Function<T, Long> idOf) {
+        List<Long> ids = candidates.stream()
+                .map(i -> key.apply(items.get(i)))
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, T> loaded = new HashMap<>();
+        for (List<Long> chunk : InLists.chunks(ids)) {
+            lookup.apply(chunk).forEach(entity -> loaded.put(idOf.apply(entity), entity));
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,103 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.model.Product;
+import com.picnic.inventory.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Walks the whole product catalog in id order with constant memory, handing each product to a
+ * consumer as a {@link ProductResponseDTO}. Used by the catalog export and to build in-memory
+ * indexes at startup through {@link #warmUp}.
+ */
+@Component
+public class ProductCatalogScanner {
+    
+    static final int CLEAR_INTERVAL = 500;
+    
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final StockLedger stockLedger;
+    
+    @Autowired
+    public ProductCatalogScanner(ProductRepository productRepository, EntityManager entityManager,
+                                 StockLedger stockLedger) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.stockLedger = stockLedger;
+    }
+    
+    /**
+     * Streams every product through {@code consumer} and returns the number of products visited.
+     * The persistence context is cleared every {@link #CLEAR_INTERVAL} rows so the session does not
+     * grow with the catalog.
+     */
+    @Transactional(readOnly = true)
+    public long scan(Consumer<ProductResponseDTO> consumer) {
+        long count = 0;
+        LocalDate today = LocalDate.now();
+        try (Stream<Product> products = productRepository.streamCatalog()) {
+            Iterator<Product> iterator = products.iterator();
+            while (iterator.hasNext()) {
+                consumer.accept(stockLedger.applyTo(ProductService.convertToResponseDTO(iterator.next(), today)));
+                if (++count % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Loads every product into an in-memory index that is already receiving live writes. Each
+     * product is handed to {@code load} with {@code lock} held, unless {@code writes} saw a write
+     * for it since the scan began: the scanned row may be older than that write, so it must not
+     * overwrite it. Returns the number of products visited.
+     */
+    @Transactional(readOnly = true)
+    public long warmUp(WriteTracker writes, Lock lock, Consumer<ProductResponseDTO> load) {
+        Set<Long> touched = ConcurrentHashMap.newKeySet();
+        writes.touched = touched;
+        try {
+            return scan(product -> {
+                lock.lock();
+                try {
+                    if (!touched.contains(product.getId())) {
+                        load.accept(product);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            });
+        } finally {
+            writes.touched = null;
+        }
+    }
+    
+    /**
+     * The products an index wrote while its {@link #warmUp} scan is running. The index reports
+     * every change it applies, under the lock it passes to the warm-up.
+     */
+    public static final class WriteTracker {
+        
+        private volatile Set<Long> touched;
+        
+        public void written(Long productId) {
+            Set<Long> current = touched;
+            if (current != null) {
+                current.add(productId);
+            }
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.dto.ProductChangeDTO;
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Feed of product changes for dashboards that would otherwise poll the low-stock, expiring and
+ * inventory value endpoints. Every product write is turned into a {@link ProductChangeDTO} after
+ * commit; a write that moves a product into or out of low stock is followed by a
+ * LOW_STOCK_ENTERED or LOW_STOCK_CLEARED entry carrying the same snapshots.
+ * <p>
+ * The latest {@code inventory.change-feed.history-size} entries are kept so that a subscriber
+ * can resume after the last id it received. Ids start at the boot time in microseconds, so ids
+ * from an earlier run fall before the history and are reported as a gap rather than matched to
+ * unrelated entries. Each subscriber gets its own buffer of {@code inventory.change-feed.buffer-size}
+ * entries, filled on the writing thread and drained at the subscriber's pace; a full buffer
+ * drops its oldest entry, or with {@link Overflow#COALESCE} first folds entries for the same
+ * product into one. Either way a subscriber that missed entries learns so through
+ * {@link Subscription#takeDropped()} and should reload what it shows.
+ * <p>
+ * Products deleted with their category or supplier are not announced individually, and writes
+ * made by other application instances are not seen, like the other in-memory views.
+ */
+@Component
+public class ProductChangeFeed {
+    
+    public enum Overflow {
+        DROP_OLDEST,
+        COALESCE
+    }
+    
+    /**
+     * Matches entries whose product is, or was before the change, in the given category and from
+     * the given supplier; null matches any.
+     */
+    public record Filter(Long categoryId, Long supplierId) {
+        
+        public static final Filter ALL = new Filter(null, null);
+        
+        public boolean matches(ProductChangeDTO change) {
+            return matches(change.getPrevious()) || matches(change.getCurrent());
+        }
+        
+        private boolean matches(ProductResponseDTO product) {
+            return product != null
+                    && (categoryId == null || categoryId.equals(product.getCategoryId()))
+                    && (supplierId == null || supplierId.equals(product.getSupplierId()));
+        }
+    }
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<ProductChangeDTO> history = new ArrayDeque<>();
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Map<Overflow, Counter> droppedCounters = new LinkedHashMap<>();
+    
+    private final boolean enabled;
+    private final int historySize;
+    private final int bufferSize;
+    
+    // Guarded by lock
+    private long nextId = System.currentTimeMillis() * 1000;
+    
+    @Autowired
+    public ProductChangeFeed(MeterRegistry meterRegistry,
+                             @Value("${inventory.change-feed.enabled:true}") boolean enabled,
+                             @Value("${inventory.change-feed.history-size:10000}") int historySize,
+                             @Value("${inventory.change-feed.buffer-size:1000}") int bufferSize) {
+        if (historySize < 0 || bufferSize < 1) {
+            throw new IllegalArgumentException("Change feed history size must not be negative and buffer size must be positive");
+        }
+        this.enabled = enabled;
+        this.historySize = historySize;
+        this.bufferSize = bufferSize;
+        Gauge.builder("inventory.change.feed.subscribers", subscriptions, List::size)
+                .description("Open subscriptions to the product change feed")
+                .register(meterRegistry);
+        for (Overflow overflow : Overflow.values()) {
+            droppedCounters.put(overflow, Counter.builder("inventory.change.feed.dropped")
+                    .description("Change feed entries dropped from full subscriber buffers")
+                    .tag("overflow", overflow.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Opens a subscription. With a {@code lastEventId} the entries after it that are still in the
+     * history are buffered first; if the history no longer reaches back to it, the subscription
+     * starts at the next entry and {@link Subscription#isResumeGap()} is set.
+     */
+    public Subscription subscribe(Filter filter, Overflow overflow, Long lastEventId) {
+        Subscription subscription = new Subscription(filter, overflow);
+        lock.lock();
+        try {
+            if (lastEventId != null) {
+                long oldest = history.isEmpty() ? nextId : history.getFirst().getId();
+                if (lastEventId < oldest - 1 || lastEventId >= nextId) {
+                    subscription.resumeGap = true;
+                } else {
+                    for (ProductChangeDTO change : history) {
+                        if (change.getId() > lastEventId) {
+                            subscription.offer(change);
+                        }
+                    }
+                }
+            }
+            subscriptions.add(subscription);
+        } finally {
+            lock.unlock();
+        }
+        return subscription;
+    }
+    
+    // Id the next published entry will get
+    public long getNextId() {
+        lock.lock();
+        try {
+            return nextId;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Subscription> notified = new ArrayList<>();
+        lock.lock();
+        try {
+            // Ids, history and buffers change together so a concurrent subscribe sees each entry once
+            for (ProductChangeDTO.Type type : typesOf(event)) {
+                ProductChangeDTO change = new ProductChangeDTO(nextId++, type, event.getProductId(), now,
+                        event.getPrevious(), event.getCurrent());
+                if (historySize > 0) {
+                    if (history.size() == historySize) {
+                        history.removeFirst();
+                    }
+                    history.addLast(change);
+                }
+                for (Subscription subscription : subscriptions) {
+                    if (subscription.offer(change) && !notified.contains(subscription)) {
+                        notified.add(subscription);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        notified.forEach(Subscription::signal);
+    }
+    
+    private static List<ProductChangeDTO.Type> typesOf(ProductChangedEvent event) {
+        ProductChangeDTO.Type type = switch (event.getType()) {
+            case CREATED -> ProductChangeDTO.Type.CREATED;
+            case UPDATED -> ProductChangeDTO.Type.UPDATED;
+            case DELETED -> ProductChangeDTO.Type.DELETED;
+            case STOCK_CHANGED -> ProductChangeDTO.Type.STOCK_CHANGED;
+        };
+        ProductChangeDTO.Type transition = lowStockTransition(event.getPrevious(), event.getCurrent());
+        return transition == null ? List.of(type) : List.of(type, transition);
+    }
+    
+    private static ProductChangeDTO.Type lowStockTransition(ProductResponseDTO previous, ProductResponseDTO current) {
+        boolean wasLow = previous != null && Boolean.TRUE.equals(previous.getIsLowStock());
+        boolean isLow = current != null && Boolean.TRUE.equals(current.getIsLowStock());
+        if (isLow && !wasLow) {
+            return ProductChangeDTO.Type.LOW_STOCK_ENTERED;
+        }
+        if (wasLow && !isLow && current != null) {
+            return ProductChangeDTO.Type.LOW_STOCK_CLEARED;
+        }
+        return null;
+    }
+    
+    /**
+     * Pending entries for one product folded into one: the earliest previous snapshot and the
+     * latest current one, typed by what changed between them. Null when the product was created
+     * and deleted again, or nothing is left to report.
+     */
+    static ProductChangeDTO coalesce(ProductChangeDTO older, ProductChangeDTO newer) {
+        ProductResponseDTO previous = older.getPrevious();
+        ProductResponseDTO current = newer.getCurrent();
+        ProductChangeDTO.Type type;
+        if (previous == null && current == null) {
+            return null;
+        } else if (previous == null) {
+            type = ProductChangeDTO.Type.CREATED;
+        } else if (current == null) {
+            type = ProductChangeDTO.Type.DELETED;
+        } else {
+            ProductChangeDTO.Type transition = lowStockTransition(previous, current);
+            if (transition != null) {
+                type = transition;
+            } else if (older.getType() == ProductChangeDTO.Type.UPDATED || newer.getType() == ProductChangeDTO.Type.UPDATED) {
+                type = ProductChangeDTO.Type.UPDATED;
+            } else {
+                type = ProductChangeDTO.Type.STOCK_CHANGED;
+            }
+        }
+        return new ProductChangeDTO(newer.getId(), type, newer.getProductId(), newer.getOccurredAt(), previous, current);
+    }
+    
+    /**
+     * One subscriber's filtered, bounded buffer. Entries are taken with {@link #poll()}; the
+     * callback registered with {@link #onAvailable(Runnable)} runs on the writing thread whenever
+     * entries were added, so it should only schedule a drain.
+     */
+    public final class Subscription implements AutoCloseable {
+        
+        private final Filter filter;
+        private final Overflow overflow;
+        private final ReentrantLock bufferLock = new ReentrantLock();
+        private final ArrayDeque<ProductChangeDTO> queue = new ArrayDeque<>();
+        private final LinkedHashMap<Long, ProductChangeDTO> byProduct = new LinkedHashMap<>();
+        
+        private volatile Runnable listener;
+        private boolean resumeGap;
+        private long dropped;
+        
+        private Subscription(Filter filter, Overflow overflow) {
+            this.filter = filter;
+            this.overflow = overflow;
+        }
+        
+        public Overflow getOverflow() {
+            return overflow;
+        }
+        
+        // Whether the requested resume point was no longer in the history
+        public boolean isResumeGap() {
+            return resumeGap;
+        }
+        
+        public void onAvailable(Runnable listener) {
+            this.listener = listener;
+        }
+        
+        // Next buffered entry, or null when the buffer is empty
+        public ProductChangeDTO poll() {
+            bufferLock.lock();
+            try {
+                if (overflow == Overflow.DROP_OLDEST) {
+                    return queue.pollFirst();
+                }
+                Iterator<ProductChangeDTO> iterator = byProduct.values().iterator();
+                if (!iterator.hasNext()) {
+                    return null;
+                }
+                ProductChangeDTO next = iterator.next();
+                iterator.remove();
+                return next;
+            } finally {
+                bufferLock.unlock();
+            }
+        }
+        
+        // Entries dropped since the last call
+        public long takeDropped() {
+            bufferLock.lock();
+            try {
+                long count = dropped;
+                dropped = 0;
+                return count;
+            } finally {
+                bufferLock.unlock();
+            }
+        }
+        
+        public int size() {
+            bufferLock.lock();
+            try {
+                return overflow == Overflow.DROP_OLDEST ? queue.size() : byProduct.size();
+            } finally {
+                bufferLock.unlock();
+            }
+        }
+        
+        @Override
+        public void close() {
+            subscriptions.remove(this);
+        }
+        
+        private boolean offer(ProductChangeDTO change) {
+            if (!filter.matches(change)) {
+                return false;
+            }
+            bufferLock.lock();
+            try {
+                if (overflow == Overflow.DROP_OLDEST) {
+                    if (queue.size() == bufferSize) {
+                        queue.removeFirst();
+                        drop();
+                    }
+                    queue.addLast(change);
+                    return true;
+                }
+                // Re-inserted rather than replaced so the buffer stays in id order
+                ProductChangeDTO pending = byProduct.remove(change.getProductId());
+                ProductChangeDTO merged = pending == null ? change : coalesce(pending, change);
+                if (merged == null) {
+                    return false;
+                }
+                if (byProduct.size() == bufferSize) {
+                    Iterator<ProductChangeDTO> eldest = byProduct.values().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    drop();
+                }
+                byProduct.put(merged.getProductId(), merged);
+                return true;
+            } finally {
+                bufferLock.unlock();
+            }
+        }
+        
+        private void drop() {
+            dropped++;
+            droppedCounters.get(overflow).increment();
+        }
+        
+        private void signal() {
+            Runnable current = listener;
+            if (current != null) {
+                current.run();
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.picnic.inventory.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position for product list pages.
+ * <p>
+ * The token encodes the sort key of the last row of a page ({@code id} or {@code name,id})
+ * so the next page can continue with a {@code WHERE key > :last} seek instead of an OFFSET scan.
+ * Clients must treat the Base64 value as opaque.
+ */
+final class ProductCursor {
+    
+    static final String SORT_ID = "id";
+    static final String SORT_NAME = "name";
+    
+    private static final char SEPARATOR = ':';
+    
+    private final String sort;
+    private final long lastId;
+    private final String lastName;
+    
+    private ProductCursor(String sort, long lastId, String lastName) {
+        this.sort = sort;
+        this.lastId = lastId;
+        this.lastName = lastName;
+    }
+    
+    static ProductCursor start(String sort) {
+        return new ProductCursor(sort, 0L, "");
+    }
+    
+    boolean isStart() {
+        return lastId == 0L && lastName.isEmpty();
+    }
+    
+    static ProductCursor after(String sort, long lastId, String lastName) {
+        return new ProductCursor(sort, lastId, SORT_NAME.equals(sort) ? lastName : "");
+    }
+    
+    static ProductCursor decode(String token, String expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int first = raw.indexOf(SEPARATOR);
+            int second = raw.indexOf(SEPARATOR, first + 1);
+            if (first < 0 || second < 0) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            String sort = raw.substring(0, first);
+            if (!sort.equals(expectedSort)) {
+                throw new IllegalArgumentException("Cursor was issued for sort '" + sort + "', not '" + expectedSort + "'");
+            }
+            long lastId = Long.parseLong(raw.substring(first + 1, second));
+            return new ProductCursor(sort, lastId, raw.substring(second + 1));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and Base64 decoding errors are IllegalArgumentExceptions too
+            throw new IllegalArgumentException("Invalid cursor: " + e.getMessage(), e);
+        }
+    }
+    
+    String encode() {
+        String raw = sort + SEPARATOR + lastId + SEPARATOR + lastName;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    long getLastId() {
+        return lastId;
+    }
+    
+    String getLastName() {
+        return lastName;
+    }
+}
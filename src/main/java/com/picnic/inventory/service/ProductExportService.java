@@ -0,0 +1,153 @@
+package com.picnic.inventory.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picnic.inventory.dto.ProductResponseDTO;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Writes the full product catalog straight to an output stream as NDJSON or CSV.
+ * <p>
+ * Rows are read through {@link ProductCatalogScanner}'s forward-only cursor and the response is
+ * flushed every {@link #FLUSH_INTERVAL} rows, so memory use stays flat regardless of the catalog size.
+ */
+@Service
+@Timed(value = "inventory.service", histogram = true)
+public class ProductExportService {
+    
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+    
+    static final int FLUSH_INTERVAL = 500;
+    
+    private static final String[] CSV_HEADER = {
+        "id", "name", "description", "sku", "barcode", "price", "stockQuantity", "minStockLevel",
+        "expirationDate", "isPerishable", "storageLocation", "categoryName", "supplierName",
+        "isLowStock", "isExpired", "isExpiringSoon", "createdAt", "updatedAt"
+    };
+    
+    private final ProductCatalogScanner catalogScanner;
+    private final ObjectMapper objectMapper;
+    
+    @Autowired
+    public ProductExportService(ProductCatalogScanner catalogScanner, ObjectMapper objectMapper) {
+        this.catalogScanner = catalogScanner;
+        this.objectMapper = objectMapper;
+    }
+    
+    public static boolean isSupportedFormat(String format) {
+        return FORMAT_NDJSON.equals(format) || FORMAT_CSV.equals(format);
+    }
+    
+    /**
+     * Streams every product to {@code out} and returns the number of rows written.
+     * The output stream is flushed but not closed.
+     */
+    public long exportProducts(String format, OutputStream out) throws IOException {
+        if (!isSupportedFormat(format)) {
+            throw new IllegalArgumentException("Unsupported export format: " + format);
+        }
+        
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        JsonGenerator json = FORMAT_NDJSON.equals(format) ? createLineGenerator(writer) : null;
+        if (json == null) {
+            writeCsvRow(writer, CSV_HEADER);
+        }
+        
+        long count;
+        try {
+            count = catalogScanner.scan(new Consumer<>() {
+                private long written;
+                
+                @Override
+                public void accept(ProductResponseDTO dto) {
+                    try {
+                        if (json == null) {
+                            writeCsvRow(writer, toCsvFields(dto));
+                        } else {
+                            objectMapper.writeValue(json, dto);
+                            json.writeRaw('\n');
+                        }
+                        if (++written % FLUSH_INTERVAL == 0) {
+                            if (json != null) {
+                                json.flush();
+                            }
+                            writer.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        
+        if (json != null) {
+            json.close();
+        }
+        writer.flush();
+        return count;
+    }
+    
+    // One generator for the whole export; values are newline-terminated and flushing is left to the caller
+    private JsonGenerator createLineGenerator(Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+    
+    private static String[] toCsvFields(ProductResponseDTO dto) {
+        return new String[] {
+            str(dto.getId()), dto.getName(), dto.getDescription(), dto.getSku(), dto.getBarcode(),
+            dto.getPrice() != null ? dto.getPrice().toPlainString() : null,
+            str(dto.getStockQuantity()), str(dto.getMinStockLevel()), str(dto.getExpirationDate()),
+            str(dto.getIsPerishable()), dto.getStorageLocation(), dto.getCategoryName(), dto.getSupplierName(),
+            str(dto.getIsLowStock()), str(dto.getIsExpired()), str(dto.getIsExpiringSoon()),
+            str(dto.getCreatedAt()), str(dto.getUpdatedAt())
+        };
+    }
+    
+    private static String str(Object value) {
+        return value != null ? value.toString() : null;
+    }
+    
+    private static void writeCsvRow(Writer writer, String[] fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvField(writer, fields[i]);
+        }
+        writer.write("\r\n");
+    }
+    
+    // RFC 4180 quoting: wrap fields containing separators, quotes or line breaks
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
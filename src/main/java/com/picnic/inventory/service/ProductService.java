@@ -1,58 +1,191 @@
 package com.picnic.inventory.service;
 
 import com.picnic.inventory.dto.ProductCreateDTO;
+import com.picnic.inventory.dto.ProductPageDTO;
 import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.dto.ProductSuggestionDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import com.picnic.inventory.index.ExpirationCalendar;
+import com.picnic.inventory.index.ProductLookupIndex;
+import com.picnic.inventory.index.ProductSearchIndex;
+import com.picnic.inventory.index.ProductSuggestIndex;
 import com.picnic.inventory.model.Product;
 import com.picnic.inventory.model.Category;
 import com.picnic.inventory.model.Supplier;
+import com.picnic.inventory.repository.InLists;
 import com.picnic.inventory.repository.ProductRepository;
+import com.picnic.inventory.repository.ProductSpecifications;
 import com.picnic.inventory.repository.CategoryRepository;
 import com.picnic.inventory.repository.SupplierRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = "inventory.service", histogram = true)
 @Transactional
 public class ProductService {
     
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int DEFAULT_SUGGESTIONS = 10;
+    public static final int MAX_SUGGESTIONS = 50;
+    public static final int EXPIRING_SOON_DAYS = 7;
+    
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final SupplierRepository supplierRepository;
+    private final ProductLookupIndex lookupIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockLedger stockLedger;
+    private final ExpirationCalendar expirationCalendar;
+    private final ProductSearchIndex searchIndex;
+    private final ProductSuggestIndex suggestIndex;
     
     @Autowired
     public ProductService(ProductRepository productRepository, 
                          CategoryRepository categoryRepository,
-                         SupplierRepository supplierRepository) {
+                         SupplierRepository supplierRepository,
+                         ProductLookupIndex lookupIndex,
+                         ApplicationEventPublisher eventPublisher,
+                         StockLedger stockLedger,
+                         ExpirationCalendar expirationCalendar,
+                         ProductSearchIndex searchIndex,
+                         ProductSuggestIndex suggestIndex) {
         this.productRepository = productRepository;
         this.categoryRepository = categoryRepository;
         this.supplierRepository = supplierRepository;
+        this.lookupIndex = lookupIndex;
+        this.eventPublisher = eventPublisher;
+        this.stockLedger = stockLedger;
+        this.expirationCalendar = expirationCalendar;
+        this.searchIndex = searchIndex;
+        this.suggestIndex = suggestIndex;
     }
     
     public List<ProductResponseDTO> getAllProducts() {
+        LocalDate today = LocalDate.now();
         return productRepository.findAll().stream()
-                .map(this::convertToResponseDTO)
+                .map(product -> toResponse(product, today))
                 .collect(Collectors.toList());
     }
     
+    /**
+     * Returns one keyset page of products. The page after {@code cursor} is located with an
+     * index seek on the sort key, so the cost does not grow with how deep the client has paged.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public ProductPageDTO getProductPage(String cursor, Integer size, String sort,
+                                         Long categoryId, Long supplierId, String name, boolean lowStockOnly) {
+        String sortKey = sort == null ? ProductCursor.SORT_ID : sort.toLowerCase();
+        if (!ProductCursor.SORT_ID.equals(sortKey) && !ProductCursor.SORT_NAME.equals(sortKey)) {
+            throw new IllegalArgumentException("Unsupported sort: " + sort);
+        }
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        
+        ProductCursor position = cursor == null || cursor.isBlank()
+                ? ProductCursor.start(sortKey)
+                : ProductCursor.decode(cursor, sortKey);
+        String namePattern = name == null || name.isBlank() ? null : "%" + ProductSpecifications.escapeLike(name) + "%";
+        if (lowStockOnly) {
+            // The low-stock filter runs in SQL, so pending ledger deltas must reach the table
+            // first; they are flushed before the read transaction starts
+            return stockLedger.flushThenRead(() ->
+                    readPage(sortKey, pageSize, position, categoryId, supplierId, namePattern, true));
+        }
+        return stockLedger.read(() ->
+                readPage(sortKey, pageSize, position, categoryId, supplierId, namePattern, false));
+    }
+    
+    private ProductPageDTO readPage(String sortKey, int pageSize, ProductCursor position,
+                                    Long categoryId, Long supplierId, String namePattern, boolean lowStockOnly) {
+        boolean byName = ProductCursor.SORT_NAME.equals(sortKey);
+        Specification<Product> filter = ProductSpecifications.matching(categoryId, supplierId, namePattern, lowStockOnly);
+        if (!position.isStart()) {
+            filter = filter.and(byName
+                    ? ProductSpecifications.nameAndIdAfter(position.getLastName(), position.getLastId())
+                    : ProductSpecifications.idAfter(position.getLastId()));
+        }
+        Sort order = byName ? Sort.by("name", "id") : Sort.by("id");
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        List<Product> rows = productRepository.findBy(filter, query -> query
+                .project("category", "supplier")
+                .sortBy(order)
+                .limit(pageSize + 1)
+                .all());
+        
+        boolean hasMore = rows.size() > pageSize;
+        List<Product> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            Product last = page.get(page.size() - 1);
+            nextCursor = ProductCursor.after(sortKey, last.getId(), last.getName()).encode();
+        }
+        
+        LocalDate today = LocalDate.now();
+        List<ProductResponseDTO> items = page.stream()
+                .map(product -> toResponse(product, today))
+                .collect(Collectors.toList());
+        return new ProductPageDTO(items, nextCursor);
+    }
+    
+    // Single-product lookups are served from the lookup index and fall back to the database
     public Optional<ProductResponseDTO> getProductById(Long id) {
-        return productRepository.findById(id)
-                .map(this::convertToResponseDTO);
+        Optional<ProductResponseDTO> indexed = lookupIndex.findById(id);
+        if (indexed.isPresent()) {
+            return indexed.map(this::withLedgerStock);
+        }
+        long stamp = lookupIndex.stamp();
+        return admit(productRepository.findById(id), stamp);
     }
     
     public Optional<ProductResponseDTO> getProductBySku(String sku) {
-        return productRepository.findBySku(sku)
-                .map(this::convertToResponseDTO);
+        Optional<ProductResponseDTO> indexed = lookupIndex.findBySku(sku);
+        if (indexed.isPresent()) {
+            return indexed.map(this::withLedgerStock);
+        }
+        long stamp = lookupIndex.stamp();
+        return admit(productRepository.findBySku(sku), stamp);
     }
     
     public Optional<ProductResponseDTO> getProductByBarcode(String barcode) {
-        return productRepository.findByBarcode(barcode)
-                .map(this::convertToResponseDTO);
+        Optional<ProductResponseDTO> indexed = lookupIndex.findByBarcode(barcode);
+        if (indexed.isPresent()) {
+            return indexed.map(this::withLedgerStock);
+        }
+        long stamp = lookupIndex.stamp();
+        return admit(productRepository.findByBarcode(barcode), stamp);
+    }
+    
+    private Optional<ProductResponseDTO> admit(Optional<Product> product, long stamp) {
+        Optional<ProductResponseDTO> dto = product.map(this::toResponse);
+        // While the ledger holds an unflushed change the row's stock and updated_at are behind it;
+        // such a product is only admitted by a later read, or refreshed by the change's event
+        dto.filter(found -> !stockLedger.hasUnflushedChange(found.getId()))
+                .ifPresent(found -> lookupIndex.admit(found, stamp));
+        return dto;
     }
     
     public ProductResponseDTO createProduct(ProductCreateDTO createDTO) {
@@ -66,16 +199,7 @@ public class ProductService {
         }
         
         Product product = new Product();
-        product.setName(createDTO.getName());
-        product.setDescription(createDTO.getDescription());
-        product.setSku(createDTO.getSku());
-        product.setBarcode(createDTO.getBarcode());
-        product.setPrice(createDTO.getPrice());
-        product.setStockQuantity(createDTO.getStockQuantity());
-        product.setMinStockLevel(createDTO.getMinStockLevel());
-        product.setExpirationDate(createDTO.getExpirationDate());
-        product.setIsPerishable(createDTO.getIsPerishable());
-        product.setStorageLocation(createDTO.getStorageLocation());
+        copyFields(createDTO, product);
         
         // Set category if provided
         if (createDTO.getCategoryId() != null) {
@@ -92,12 +216,15 @@ public class ProductService {
         }
         
         Product savedProduct = productRepository.save(product);
-        return convertToResponseDTO(savedProduct);
+        ProductResponseDTO created = convertToResponseDTO(savedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.created(created));
+        return created;
     }
     
     public ProductResponseDTO updateProduct(Long id, ProductCreateDTO updateDTO) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + id));
+        ProductResponseDTO previous = toResponse(product);
         
         // Check for SKU uniqueness if it's being changed
         if (!product.getSku().equals(updateDTO.getSku())) {
@@ -114,16 +241,12 @@ public class ProductService {
         }
         
         // Update fields
-        product.setName(updateDTO.getName());
-        product.setDescription(updateDTO.getDescription());
-        product.setSku(updateDTO.getSku());
-        product.setBarcode(updateDTO.getBarcode());
-        product.setPrice(updateDTO.getPrice());
-        product.setStockQuantity(updateDTO.getStockQuantity());
-        product.setMinStockLevel(updateDTO.getMinStockLevel());
-        product.setExpirationDate(updateDTO.getExpirationDate());
-        product.setIsPerishable(updateDTO.getIsPerishable());
-        product.setStorageLocation(updateDTO.getStorageLocation());
+        Integer storedStock = product.getStockQuantity();
+        copyFields(updateDTO, product);
+        if (stockLedger.isEnabled()) {
+            // Stock goes through the ledger; the unchanged column is left out of the UPDATE
+            product.setStockQuantity(storedStock);
+        }
         
         // Update category if provided
         if (updateDTO.getCategoryId() != null) {
@@ -139,42 +262,168 @@ public class ProductService {
             product.setSupplier(supplier);
         }
         
-        Product savedProduct = productRepository.save(product);
-        return convertToResponseDTO(savedProduct);
+        ProductResponseDTO updated;
+        if (stockLedger.isEnabled()) {
+            Product savedProduct = productRepository.save(product);
+            updated = withChangedStock(convertToResponseDTO(savedProduct), updateDTO.getStockQuantity());
+            stockLedger.setAfterCommit(id, updateDTO.getStockQuantity(),
+                    change -> correctStock(previous, change.previous()));
+        } else {
+            updated = convertToResponseDTO(productRepository.save(product));
+        }
+        eventPublisher.publishEvent(ProductChangedEvent.updated(previous, updated));
+        return updated;
     }
     
     public void deleteProduct(Long id) {
         if (!productRepository.existsById(id)) {
             throw new IllegalArgumentException("Product not found with id: " + id);
         }
+        // Loaded into the persistence context here, so deleteById does not select it again
+        Optional<ProductResponseDTO> previous = productRepository.findById(id)
+                .map(this::toResponse);
         productRepository.deleteById(id);
+        previous.ifPresent(deleted -> eventPublisher.publishEvent(ProductChangedEvent.deleted(deleted)));
     }
     
     // Business logic methods
+    
+    // Low stock is filtered in SQL, so pending ledger deltas are flushed before the read transaction starts
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<ProductResponseDTO> getLowStockProducts() {
-        return productRepository.findLowStockProducts().stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+        LocalDate today = LocalDate.now();
+        return stockLedger.flushThenRead(() -> productRepository.findLowStockProducts().stream()
+                .map(product -> toResponse(product, today))
+                .collect(Collectors.toList()));
     }
     
+    // Expiration lists come from the expiration calendar once it is built, otherwise from range queries
     public List<ProductResponseDTO> getProductsExpiringWithinDays(int days) {
         LocalDate today = LocalDate.now();
         LocalDate futureDate = today.plusDays(days);
+        if (expirationCalendar.isReady()) {
+            if (days < 0) {
+                return List.of();
+            }
+            return loadCalendarProducts(expirationCalendar.findExpiringWithinDays(days), today,
+                    product -> product.getExpirationDate() != null
+                            && !product.getExpirationDate().isBefore(today)
+                            && !product.getExpirationDate().isAfter(futureDate));
+        }
         return productRepository.findProductsExpiringWithinDays(today, futureDate).stream()
-                .map(this::convertToResponseDTO)
+                .map(product -> toResponse(product, today))
                 .collect(Collectors.toList());
     }
     
     public List<ProductResponseDTO> getExpiredProducts() {
-        return productRepository.findExpiredProducts(LocalDate.now()).stream()
-                .map(this::convertToResponseDTO)
+        LocalDate today = LocalDate.now();
+        if (expirationCalendar.isReady()) {
+            return loadCalendarProducts(expirationCalendar.findExpired(), today,
+                    product -> product.isExpired(today));
+        }
+        return productRepository.findExpiredProducts(today).stream()
+                .map(product -> toResponse(product, today))
                 .collect(Collectors.toList());
     }
     
-    public List<ProductResponseDTO> searchProductsByName(String name) {
-        return productRepository.findByNameContainingIgnoreCase(name).stream()
-                .map(this::convertToResponseDTO)
-                .collect(Collectors.toList());
+    // Loads calendar ids in calendar order, dropping rows whose date no longer matches and ids that
+    // no longer exist (products deleted with their category or supplier)
+    private List<ProductResponseDTO> loadCalendarProducts(List<Long> ids, LocalDate today, Predicate<Product> stillMatches) {
+        Map<Long, Product> loaded = new HashMap<>();
+        for (List<Long> chunk : InLists.chunks(ids)) {
+            for (Product product : productRepository.findAllById(chunk)) {
+                loaded.put(product.getId(), product);
+            }
+        }
+        List<ProductResponseDTO> products = new ArrayList<>(loaded.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            Product product = loaded.get(id);
+            if (product == null) {
+                missing.add(id);
+            } else if (stillMatches.test(product)) {
+                products.add(toResponse(product, today));
+            }
+        }
+        if (!missing.isEmpty()) {
+            expirationCalendar.forget(missing);
+        }
+        return products;
+    }
+    
+    /**
+     * Returns one page of products matching every word of {@code query}, best matches first.
+     * Served from the search index over name, SKU and description once it is built; until then
+     * the database is paged through by name only. In {@code fuzzy} mode words match product name
+     * words within a few typos, closest and most picked products first; the database cannot do
+     * that, so fuzzy searches fail with IllegalStateException until the index is built.
+     */
+    @Transactional(readOnly = true)
+    public Page<ProductResponseDTO> searchProducts(String query, Integer limit, Integer page, boolean fuzzy) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        int pageNumber = page == null ? 0 : page;
+        if (pageNumber < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        // The index takes an int offset
+        if ((long) pageNumber * pageSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Page is beyond the last possible result");
+        }
+        
+        LocalDate today = LocalDate.now();
+        if (!searchIndex.isReady()) {
+            if (fuzzy) {
+                throw new IllegalStateException("Fuzzy search is not available until the search index is built");
+            }
+            Pageable pageable = PageRequest.of(pageNumber, pageSize, Sort.by("name", "id"));
+            return productRepository.findByNameContainingIgnoreCase(query.trim(), pageable)
+                    .map(product -> toResponse(product, today));
+        }
+        
+        Pageable pageable = PageRequest.of(pageNumber, pageSize);
+        ProductSearchIndex.SearchResult result = fuzzy
+                ? searchIndex.searchFuzzy(query, (int) pageable.getOffset(), pageSize)
+                : searchIndex.search(query, (int) pageable.getOffset(), pageSize);
+        Map<Long, Product> loaded = productRepository.findAllById(result.productIds()).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+        List<ProductResponseDTO> products = new ArrayList<>(loaded.size());
+        List<Long> missing = new ArrayList<>();
+        for (Long id : result.productIds()) {
+            Product product = loaded.get(id);
+            if (product == null) {
+                missing.add(id);
+            } else {
+                products.add(toResponse(product, today));
+            }
+        }
+        if (!missing.isEmpty()) {
+            // Deleted with their category or supplier, which is not announced per product
+            searchIndex.forget(missing);
+        }
+        return new PageImpl<>(products, pageable, result.total() - missing.size());
+    }
+    
+    /**
+     * Returns up to {@code limit} products whose name, SKU or barcode starts with {@code prefix}.
+     * Served from the suggest trie once it is built; until then by a prefix query.
+     */
+    @Transactional(readOnly = true)
+    public List<ProductSuggestionDTO> suggestProducts(String prefix, Integer limit) {
+        int count = limit == null ? DEFAULT_SUGGESTIONS : limit;
+        if (count < 1 || count > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        if (suggestIndex.isReady()) {
+            return suggestIndex.suggest(prefix, count);
+        }
+        return productRepository.findSuggestions(ProductSpecifications.escapeLike(prefix) + "%",
+                PageRequest.of(0, count));
     }
     
     public ProductResponseDTO updateStock(Long id, Integer newQuantity) {
@@ -185,17 +434,129 @@ public class ProductService {
             throw new IllegalArgumentException("Stock quantity cannot be negative");
         }
         
+        if (stockLedger.isEnabled()) {
+            ProductResponseDTO previous = toResponse(product);
+            ProductResponseDTO updated = withChangedStock(previous, newQuantity);
+            stockLedger.setAfterCommit(id, newQuantity, change -> correctStock(previous, change.previous()));
+            eventPublisher.publishEvent(ProductChangedEvent.stockChanged(previous, updated));
+            return updated;
+        }
+        
+        ProductResponseDTO previous = convertToResponseDTO(product);
         product.setStockQuantity(newQuantity);
         Product savedProduct = productRepository.save(product);
-        return convertToResponseDTO(savedProduct);
+        ProductResponseDTO updated = convertToResponseDTO(savedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.stockChanged(previous, updated));
+        return updated;
     }
     
-    public Double getTotalInventoryValue() {
-        return productRepository.getTotalInventoryValue();
+    public ProductResponseDTO incrementStock(Long id, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        return adjustStock(id, quantity);
+    }
+    
+    public ProductResponseDTO decrementStock(Long id, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        return adjustStock(id, -quantity);
+    }
+    
+    /**
+     * Applies a relative stock change with a single conditional UPDATE, so concurrent pickers and
+     * receivers never lose each other's changes and the row lock is held only for the statement.
+     */
+    private ProductResponseDTO adjustStock(Long id, int delta) {
+        if (stockLedger.isEnabled()) {
+            StockLedger.StockChange change = stockLedger.adjust(id, delta);
+            ProductResponseDTO product = lookupIndex.findById(id)
+                    .or(() -> productRepository.findById(id).map(ProductService::convertToResponseDTO))
+                    .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + id));
+            return publishStockChange(product, change);
+        }
+        
+        int updated = productRepository.adjustStock(id, delta, LocalDateTime.now());
+        if (updated == 0) {
+            if (!productRepository.existsById(id)) {
+                throw new IllegalArgumentException("Product not found with id: " + id);
+            }
+            throw new IllegalStateException("Insufficient stock for product " + id + " to apply change of " + delta);
+        }
+        
+        // The row is locked by this transaction until commit, so this read sees exactly our change
+        Product product = productRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + id));
+        ProductResponseDTO updatedProduct = convertToResponseDTO(product);
+        ProductResponseDTO previous = withStockQuantity(updatedProduct, product.getStockQuantity() - delta);
+        eventPublisher.publishEvent(ProductChangedEvent.stockChanged(previous, updatedProduct));
+        return updatedProduct;
+    }
+    
+    private ProductResponseDTO publishStockChange(ProductResponseDTO product, StockLedger.StockChange change) {
+        ProductResponseDTO previous = withStockQuantity(product, change.previous());
+        ProductResponseDTO updated = withChangedStock(product, change.current());
+        eventPublisher.publishEvent(ProductChangedEvent.stockChanged(previous, updated));
+        return updated;
+    }
+    
+    // Ledger stock is set after commit, just before the change event is delivered; the event's
+    // previous snapshot is corrected then in case another change landed in between
+    private static void correctStock(ProductResponseDTO snapshot, int stockQuantity) {
+        snapshot.setStockQuantity(stockQuantity);
+        snapshot.setIsLowStock(stockQuantity <= snapshot.getMinStockLevel());
+    }
+    
+    // Helper method to convert a loaded Product, with the stock ledger's quantity when it is newer
+    private ProductResponseDTO toResponse(Product product) {
+        return withLedgerStock(convertToResponseDTO(product));
+    }
+    
+    private ProductResponseDTO toResponse(Product product, LocalDate today) {
+        return withLedgerStock(convertToResponseDTO(product, today));
+    }
+    
+    private ProductResponseDTO withLedgerStock(ProductResponseDTO product) {
+        return stockLedger.isEnabled() ? stockLedger.applyTo(product) : product;
+    }
+    
+    // Helper method to copy the editable fields of a create/update request onto a Product
+    static void copyFields(ProductCreateDTO source, Product product) {
+        product.setName(source.getName());
+        product.setDescription(source.getDescription());
+        product.setSku(source.getSku());
+        product.setBarcode(source.getBarcode());
+        product.setPrice(source.getPrice());
+        product.setStockQuantity(source.getStockQuantity());
+        product.setMinStockLevel(source.getMinStockLevel());
+        product.setExpirationDate(source.getExpirationDate());
+        product.setIsPerishable(source.getIsPerishable());
+        product.setStorageLocation(source.getStorageLocation());
+    }
+    
+    // Helper method to copy a response with a different stock quantity and low-stock flag
+    static ProductResponseDTO withStockQuantity(ProductResponseDTO source, int stockQuantity) {
+        ProductResponseDTO dto = new ProductResponseDTO(source);
+        dto.setStockQuantity(stockQuantity);
+        dto.setIsLowStock(stockQuantity <= source.getMinStockLevel());
+        return dto;
+    }
+    
+    // The response after a stock change the row may not hold yet; stamped with the change time so
+    // index entries refreshed from it give a Last-Modified that covers the change
+    static ProductResponseDTO withChangedStock(ProductResponseDTO source, int stockQuantity) {
+        ProductResponseDTO dto = withStockQuantity(source, stockQuantity);
+        dto.setUpdatedAt(LocalDateTime.now());
+        return dto;
     }
     
     // Helper method to convert Product to ProductResponseDTO
-    private ProductResponseDTO convertToResponseDTO(Product product) {
+    static ProductResponseDTO convertToResponseDTO(Product product) {
+        return convertToResponseDTO(product, LocalDate.now());
+    }
+    
+    static ProductResponseDTO convertToResponseDTO(Product product, LocalDate today) {
         ProductResponseDTO dto = new ProductResponseDTO();
         dto.setId(product.getId());
         dto.setName(product.getName());
@@ -210,21 +571,25 @@ public class ProductService {
         dto.setStorageLocation(product.getStorageLocation());
         dto.setCreatedAt(product.getCreatedAt());
         dto.setUpdatedAt(product.getUpdatedAt());
+        dto.setLowStockSince(product.getLowStockSince());
+        dto.setLowStockClearedAt(product.getLowStockClearedAt());
         
-        // Set category name
+        // Set category reference
         if (product.getCategory() != null) {
+            dto.setCategoryId(product.getCategory().getId());
             dto.setCategoryName(product.getCategory().getName());
         }
         
-        // Set supplier name
+        // Set supplier reference
         if (product.getSupplier() != null) {
+            dto.setSupplierId(product.getSupplier().getId());
             dto.setSupplierName(product.getSupplier().getName());
         }
         
         // Set business logic flags
         dto.setIsLowStock(product.isLowStock());
-        dto.setIsExpired(product.isExpired());
-        dto.setIsExpiringSoon(product.isExpiringSoon(7)); // 7 days threshold
+        dto.setIsExpired(product.isExpired(today));
+        dto.setIsExpiringSoon(product.isExpiringSoon(EXPIRING_SOON_DAYS, today));
         
         return dto;
     }
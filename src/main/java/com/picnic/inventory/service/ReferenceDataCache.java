@@ -0,0 +1,42 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.event.ReferenceDataChangedEvent;
+import com.picnic.inventory.model.Category;
+import com.picnic.inventory.model.Supplier;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Evicts categories and suppliers from the second-level cache after a {@link CategoryService} or
+ * {@link SupplierService} update or delete commits, together with the cached name and email
+ * lookups. Hibernate already invalidates the regions for writes it flushes itself; this also
+ * covers rows removed by the cascade from a delete and keeps the cache from outliving a change
+ * by up to its TTL if a write bypasses the session.
+ */
+@Component
+public class ReferenceDataCache {
+    
+    // Region of the findByName / existsByName / existsByEmail query hints (see ehcache.xml)
+    public static final String QUERY_REGION = "reference-data-queries";
+    
+    private final EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    public ReferenceDataCache(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        // Hibernate already invalidates the cached lookups for its own inserts
+        if (event.isCreated()) {
+            return;
+        }
+        Class<?> type = event.getKind() == ReferenceDataChangedEvent.Kind.CATEGORY ? Category.class : Supplier.class;
+        entityManagerFactory.getCache().evict(type, event.getId());
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictQueryRegion(QUERY_REGION);
+    }
+}
@@ -0,0 +1,129 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.dto.ReorderLineDTO;
+import com.picnic.inventory.dto.ReorderProposalDTO;
+import com.picnic.inventory.model.Supplier;
+import com.picnic.inventory.repository.ProductRepository;
+import com.picnic.inventory.repository.SupplierRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Reorder proposals for suppliers, built from the products at or below their minimum stock level.
+ * Each such product is ordered back up to {@code inventory.replenishment.target-multiplier} times
+ * its minimum level; products with a minimum of zero and products without a supplier are never
+ * proposed.
+ * <p>
+ * Proposals for all suppliers come from one read of the low-stock rows and one of their
+ * suppliers, however many suppliers there are; the rows are then grouped by supplier and each
+ * supplier's proposal is built in parallel. Stock and low-stock flags are read from the table, so
+ * pending ledger deltas are flushed before the read transaction starts.
+ */
+@Service
+@Timed(value = "inventory.service", histogram = true)
+@Transactional(propagation = Propagation.SUPPORTS)
+public class ReplenishmentService {
+    
+    // Empty shelves first, then the lowest stock relative to the minimum level
+    private static final Comparator<ReorderLineDTO> MOST_URGENT_FIRST = ((Comparator<ReorderLineDTO>) (left, right) ->
+            Long.compare((long) left.getStockQuantity() * right.getMinStockLevel(),
+                    (long) right.getStockQuantity() * left.getMinStockLevel()))
+            .thenComparing(ReorderLineDTO::getProductId);
+    
+    private final ProductRepository productRepository;
+    private final SupplierRepository supplierRepository;
+    private final StockLedger stockLedger;
+    private final int targetMultiplier;
+    
+    @Autowired
+    public ReplenishmentService(ProductRepository productRepository,
+                                SupplierRepository supplierRepository,
+                                StockLedger stockLedger,
+                                @Value("${inventory.replenishment.target-multiplier:2}") int targetMultiplier) {
+        if (targetMultiplier < 1) {
+            throw new IllegalArgumentException("Replenishment target multiplier must be at least 1");
+        }
+        this.productRepository = productRepository;
+        this.supplierRepository = supplierRepository;
+        this.stockLedger = stockLedger;
+        this.targetMultiplier = targetMultiplier;
+    }
+    
+    /**
+     * The proposal for one supplier, with no lines when nothing needs reordering, or empty if the
+     * supplier does not exist.
+     */
+    public Optional<ReorderProposalDTO> getProposal(Long supplierId) {
+        return stockLedger.flushThenRead(() -> supplierRepository.findById(supplierId)
+                .map(supplier -> propose(supplier, productRepository.findReorderCandidatesBySupplierId(supplierId),
+                        LocalDateTime.now())));
+    }
+    
+    /**
+     * Proposals for every supplier with something to reorder, by supplier id.
+     */
+    public List<ReorderProposalDTO> getAllProposals() {
+        Map<Long, List<ReorderLineDTO>> linesBySupplier = stockLedger.flushThenRead(() ->
+                productRepository.findReorderCandidates().stream()
+                        .collect(Collectors.groupingBy(ReorderLineDTO::getSupplierId)));
+        if (linesBySupplier.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Supplier> suppliers = supplierRepository.findAllById(linesBySupplier.keySet()).stream()
+                .collect(Collectors.toMap(Supplier::getId, Function.identity()));
+        LocalDateTime now = LocalDateTime.now();
+        // No database access from here on, so the pool threads need neither the session nor the transaction
+        return linesBySupplier.entrySet().parallelStream()
+                .map(entry -> {
+                    Supplier supplier = suppliers.get(entry.getKey());
+                    return supplier == null ? null : propose(supplier, entry.getValue(), now);
+                })
+                .filter(proposal -> proposal != null && !proposal.getLines().isEmpty())
+                .sorted(Comparator.comparing(ReorderProposalDTO::getSupplierId))
+                .toList();
+    }
+    
+    private ReorderProposalDTO propose(Supplier supplier, List<ReorderLineDTO> candidates, LocalDateTime now) {
+        List<ReorderLineDTO> lines = new ArrayList<>(candidates.size());
+        long totalUnits = 0;
+        BigDecimal totalValue = BigDecimal.ZERO;
+        for (ReorderLineDTO line : candidates) {
+            int quantity = reorderQuantity(line.getStockQuantity(), line.getMinStockLevel());
+            if (quantity <= 0) {
+                continue;
+            }
+            line.setReorderQuantity(quantity);
+            line.setLineValue(Objects.requireNonNullElse(line.getPrice(), BigDecimal.ZERO).multiply(BigDecimal.valueOf(quantity)));
+            lines.add(line);
+            totalUnits += quantity;
+            totalValue = totalValue.add(line.getLineValue());
+        }
+        lines.sort(MOST_URGENT_FIRST);
+        return new ReorderProposalDTO(supplier.getId(), supplier.getName(), supplier.getEmail(), now,
+                lines, totalUnits, totalValue);
+    }
+    
+    // Up to the target level; zero above the reorder point
+    int reorderQuantity(int stockQuantity, int minStockLevel) {
+        if (stockQuantity > minStockLevel) {
+            return 0;
+        }
+        long target = (long) minStockLevel * targetMultiplier;
+        return (int) Math.min(Integer.MAX_VALUE, target - stockQuantity);
+    }
+}
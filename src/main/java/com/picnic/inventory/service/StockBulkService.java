@@ -0,0 +1,326 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.dto.BatchItemResultDTO;
+import com.picnic.inventory.dto.BatchResultDTO;
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.dto.StockAdjustmentDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import com.picnic.inventory.model.Product;
+import com.picnic.inventory.repository.InLists;
+import com.picnic.inventory.repository.ProductKeyView;
+import com.picnic.inventory.repository.ProductRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Applies cycle counts and receiving to many products at once.
+ * <p>
+ * Lines are resolved to product ids with set-based lookups and then applied in chunks of
+ * {@link #CHUNK_SIZE}, each in its own short transaction: the chunk's products are loaded and
+ * row-locked with one query in id order, every line is applied in request order in memory, and the
+ * resulting quantities are written back as one JDBC batch that also bumps each row's version. A
+ * failing line never aborts the others.
+ * <p>
+ * A chunk is all-or-nothing: if its transaction fails, every line of the chunk is reported as
+ * failed and not applied, and the following chunks are still applied. Chunks committed before the
+ * failure stay committed, so the per-line results always say exactly which lines took effect.
+ * <p>
+ * When the {@link StockLedger} is enabled, lines are applied to the ledger instead and no rows are
+ * locked. Ledger changes are durable as soon as each line is applied, so there only the lines
+ * after a failure are reported as not applied.
+ */
+@Service
+@Timed(value = "inventory.service", histogram = true)
+public class StockBulkService {
+    
+    private static final Logger log = LoggerFactory.getLogger(StockBulkService.class);
+    
+    public static final int MAX_LINES = 20000;
+    
+    public static final int CHUNK_SIZE = 500;
+    
+    // Maintains the low-stock columns as Product does for entity writes, and bumps the version
+    // so that concurrent entity updates of the same products fail their optimistic check
+    private static final String UPDATE_SQL = "UPDATE products SET stock_quantity = ?, updated_at = ?, version = version + 1, "
+            + "low_stock_since = CASE WHEN ? <= min_stock_level AND low_stock = false THEN ? ELSE low_stock_since END, "
+            + "low_stock_cleared_at = CASE WHEN ? > min_stock_level AND low_stock = true THEN ? ELSE low_stock_cleared_at END, "
+            + "low_stock = CASE WHEN ? <= min_stock_level THEN true ELSE false END "
+            + "WHERE id = ?";
+    
+    private final ProductRepository productRepository;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockLedger stockLedger;
+    
+    @Autowired
+    public StockBulkService(ProductRepository productRepository,
+                            EntityManager entityManager,
+                            JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            ApplicationEventPublisher eventPublisher,
+                            StockLedger stockLedger) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.stockLedger = stockLedger;
+    }
+    
+    public BatchResultDTO adjustStock(List<StockAdjustmentDTO> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("Adjustment must contain at least one line");
+        }
+        if (lines.size() > MAX_LINES) {
+            throw new IllegalArgumentException("Adjustment cannot contain more than " + MAX_LINES + " lines");
+        }
+        
+        BatchItemResultDTO[] results = new BatchItemResultDTO[lines.size()];
+        Long[] productIds = resolveProductIds(lines, results);
+        
+        for (int from = 0; from < lines.size(); from += CHUNK_SIZE) {
+            int to = Math.min(from + CHUNK_SIZE, lines.size());
+            int chunkStart = from;
+            boolean ledger = stockLedger.isEnabled();
+            try {
+                if (ledger) {
+                    transactionTemplate.executeWithoutResult(status -> applyChunkToLedger(lines, productIds, results, chunkStart, to));
+                } else {
+                    transactionTemplate.executeWithoutResult(status -> applyChunk(lines, productIds, results, chunkStart, to));
+                }
+            } catch (RuntimeException e) {
+                log.warn("Stock adjustment lines {} to {} were not applied", chunkStart, to - 1, e);
+                rejectChunk(lines, productIds, results, chunkStart, to, !ledger, e);
+            }
+        }
+        return new BatchResultDTO(List.of(results));
+    }
+    
+    private void applyChunk(List<StockAdjustmentDTO> lines, Long[] productIds, BatchItemResultDTO[] results,
+                            int from, int to) {
+        Set<Long> ids = new TreeSet<>();
+        for (int i = from; i < to; i++) {
+            if (productIds[i] != null) {
+                ids.add(productIds[i]);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        
+        // Loaded for the row locks and the change events only; the entities are never modified
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllByIdInForUpdate(ids)) {
+            products.put(product.getId(), product);
+        }
+        Map<Long, Integer> quantities = new HashMap<>();
+        
+        for (int i = from; i < to; i++) {
+            if (productIds[i] == null) {
+                continue;
+            }
+            StockAdjustmentDTO line = lines.get(i);
+            Product product = products.get(productIds[i]);
+            if (product == null) {
+                results[i] = BatchItemResultDTO.failed(i, keyOf(line), "Product not found with id: " + productIds[i]);
+                continue;
+            }
+            int current = quantities.getOrDefault(product.getId(), product.getStockQuantity());
+            long next = line.getDelta() != null ? (long) current + line.getDelta() : line.getQuantity();
+            if (next < 0 || next > Integer.MAX_VALUE) {
+                results[i] = BatchItemResultDTO.failed(i, keyOf(line), "Insufficient stock: " + current + " on hand");
+                continue;
+            }
+            quantities.put(product.getId(), (int) next);
+            BatchItemResultDTO result = BatchItemResultDTO.succeeded(i, keyOf(line), product.getId());
+            result.setStockQuantity((int) next);
+            results[i] = result;
+        }
+        
+        List<Map.Entry<Long, Integer>> changed = quantities.entrySet().stream()
+                .filter(entry -> !entry.getValue().equals(products.get(entry.getKey()).getStockQuantity()))
+                .sorted(Map.Entry.comparingByKey())
+                .toList();
+        writeQuantities(changed);
+        for (Map.Entry<Long, Integer> entry : changed) {
+            ProductResponseDTO previous = ProductService.convertToResponseDTO(products.get(entry.getKey()));
+            eventPublisher.publishEvent(ProductChangedEvent.stockChanged(previous,
+                    ProductService.withChangedStock(previous, entry.getValue())));
+        }
+        entityManager.clear();
+    }
+    
+    // One JDBC batch for the chunk; entity updates are dynamic and Hibernate sends those one by one
+    private void writeQuantities(List<Map.Entry<Long, Integer>> quantities) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_SQL, quantities, CHUNK_SIZE, (statement, row) -> {
+            int quantity = row.getValue();
+            statement.setInt(1, quantity);
+            statement.setTimestamp(2, now);
+            statement.setInt(3, quantity);
+            statement.setTimestamp(4, now);
+            statement.setInt(5, quantity);
+            statement.setTimestamp(6, now);
+            statement.setInt(7, quantity);
+            statement.setLong(8, row.getKey());
+        });
+    }
+    
+    private void applyChunkToLedger(List<StockAdjustmentDTO> lines, Long[] productIds, BatchItemResultDTO[] results,
+                                    int from, int to) {
+        Set<Long> ids = new TreeSet<>();
+        for (int i = from; i < to; i++) {
+            if (productIds[i] != null) {
+                ids.add(productIds[i]);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        
+        // Loaded only to build the change events; the ledger owns the quantities
+        Map<Long, ProductResponseDTO> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            products.put(product.getId(), ProductService.convertToResponseDTO(product));
+        }
+        Map<Long, Integer> before = new HashMap<>();
+        Map<Long, Integer> after = new HashMap<>();
+        
+        for (int i = from; i < to; i++) {
+            if (productIds[i] == null) {
+                continue;
+            }
+            StockAdjustmentDTO line = lines.get(i);
+            Long id = productIds[i];
+            if (!products.containsKey(id)) {
+                results[i] = BatchItemResultDTO.failed(i, keyOf(line), "Product not found with id: " + id);
+                continue;
+            }
+            try {
+                StockLedger.StockChange change = line.getDelta() != null
+                        ? stockLedger.adjust(id, line.getDelta())
+                        : stockLedger.set(id, line.getQuantity());
+                before.putIfAbsent(id, change.previous());
+                after.put(id, change.current());
+                BatchItemResultDTO result = BatchItemResultDTO.succeeded(i, keyOf(line), id);
+                result.setStockQuantity(change.current());
+                results[i] = result;
+            } catch (IllegalArgumentException | IllegalStateException | UncheckedIOException e) {
+                results[i] = BatchItemResultDTO.failed(i, keyOf(line), e.getMessage());
+            }
+        }
+        
+        for (Map.Entry<Long, Integer> changed : after.entrySet()) {
+            int previous = before.get(changed.getKey());
+            if (previous != changed.getValue()) {
+                ProductResponseDTO product = products.get(changed.getKey());
+                eventPublisher.publishEvent(ProductChangedEvent.stockChanged(
+                        ProductService.withStockQuantity(product, previous),
+                        ProductService.withChangedStock(product, changed.getValue())));
+            }
+        }
+    }
+    
+    // Rolled back lines already reported as succeeded are reported as failed too, unless the ledger kept them
+    private static void rejectChunk(List<StockAdjustmentDTO> lines, Long[] productIds, BatchItemResultDTO[] results,
+                                    int from, int to, boolean rolledBack, RuntimeException cause) {
+        String error = "Not applied: lines " + from + " to " + (to - 1) + " failed together (" + cause.getMessage() + ")";
+        for (int i = from; i < to; i++) {
+            if (productIds[i] != null && (results[i] == null || rolledBack)) {
+                results[i] = BatchItemResultDTO.failed(i, keyOf(lines.get(i)), error);
+            }
+        }
+    }
+    
+    // Validates each line and resolves SKUs and barcodes to ids with one query per chunk of keys
+    private Long[] resolveProductIds(List<StockAdjustmentDTO> lines, BatchItemResultDTO[] results) {
+        Long[] productIds = new Long[lines.size()];
+        Set<String> skus = new HashSet<>();
+        Set<String> barcodes = new HashSet<>();
+        for (int i = 0; i < lines.size(); i++) {
+            StockAdjustmentDTO line = lines.get(i);
+            String error = validate(line);
+            if (error != null) {
+                results[i] = BatchItemResultDTO.failed(i, line != null ? keyOf(line) : null, error);
+            } else if (line.getSku() != null) {
+                skus.add(line.getSku());
+            } else if (line.getBarcode() != null) {
+                barcodes.add(line.getBarcode());
+            }
+        }
+        
+        Map<String, Long> idsBySku = lookup(skus, productRepository::findIdsBySkuIn);
+        Map<String, Long> idsByBarcode = lookup(barcodes, productRepository::findIdsByBarcodeIn);
+        for (int i = 0; i < lines.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            StockAdjustmentDTO line = lines.get(i);
+            Long id = line.getId() != null ? line.getId()
+                    : line.getSku() != null ? idsBySku.get(line.getSku())
+                    : idsByBarcode.get(line.getBarcode());
+            if (id == null) {
+                results[i] = BatchItemResultDTO.failed(i, keyOf(line), "Product not found: " + keyOf(line));
+            } else {
+                productIds[i] = id;
+            }
+        }
+        return productIds;
+    }
+    
+    private static String validate(StockAdjustmentDTO line) {
+        if (line == null) {
+            return "Adjustment line is required";
+        }
+        int identifiers = (line.getId() != null ? 1 : 0) + (line.getSku() != null ? 1 : 0) + (line.getBarcode() != null ? 1 : 0);
+        if (identifiers != 1) {
+            return "Exactly one of id, sku or barcode is required";
+        }
+        if ((line.getDelta() == null) == (line.getQuantity() == null)) {
+            return "Exactly one of delta or quantity is required";
+        }
+        if (line.getQuantity() != null && line.getQuantity() < 0) {
+            return "Stock quantity cannot be negative";
+        }
+        return null;
+    }
+    
+    private static String keyOf(StockAdjustmentDTO line) {
+        if (line.getId() != null) {
+            return "id:" + line.getId();
+        }
+        return line.getSku() != null ? "sku:" + line.getSku() : "barcode:" + line.getBarcode();
+    }
+    
+    private static Map<String, Long> lookup(Set<String> keys, Function<Collection<String>, List<ProductKeyView>> query) {
+        Map<String, Long> ids = new HashMap<>();
+        for (List<String> chunk : InLists.chunks(keys)) {
+            for (ProductKeyView view : query.apply(chunk)) {
+                ids.put(view.getNaturalKey(), view.getId());
+            }
+        }
+        return ids;
+    }
+}
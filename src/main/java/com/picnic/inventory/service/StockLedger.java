@@ -0,0 +1,558 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import com.picnic.inventory.event.ReferenceDataChangedEvent;
+import com.picnic.inventory.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntToLongFunction;
+import java.util.function.Supplier;
+
+/**
+ * Optional in-memory stock engine (inventory.stock-ledger.enabled). Current quantities of recently
+ * written products are held in slots guarded by striped locks, so stock changes on different
+ * products never contend and a change is acknowledged without a database round trip.
+ * <p>
+ * Every change is appended to a local log ({@link StockLedgerLog}) and forced to disk before it is
+ * acknowledged or visible to readers; a change whose fsync fails is not applied. Net deltas per
+ * product are written behind to the {@code products} table on a fixed interval, or sooner once
+ * enough changes have accumulated, in one JDBC batch together with a checkpoint naming the last log
+ * segment it covers. On startup, segments newer than the checkpoint are replayed into the table, so
+ * a crash loses no acknowledged change and never applies one twice.
+ * <p>
+ * Slots that saw no writes for a whole flush interval are evicted once their deltas are persisted,
+ * which keeps memory proportional to the write working set rather than the catalog.
+ */
+@Component
+public class StockLedger {
+    
+    private static final Logger log = LoggerFactory.getLogger(StockLedger.class);
+    
+    private static final int STRIPES = 64;
+    private static final int FLUSH_BATCH_SIZE = 500;
+    
+    // Also maintains the low-stock flag and transition timestamps that Product keeps for entity writes
+    private static final String FLUSH_SQL = "UPDATE products SET stock_quantity = stock_quantity + ?, updated_at = ?, "
+            + "low_stock_since = CASE WHEN stock_quantity + ? <= min_stock_level AND low_stock = false THEN ? ELSE low_stock_since END, "
+            + "low_stock_cleared_at = CASE WHEN stock_quantity + ? > min_stock_level AND low_stock = true THEN ? ELSE low_stock_cleared_at END, "
+            + "low_stock = CASE WHEN stock_quantity + ? <= min_stock_level THEN true ELSE false END "
+            + "WHERE id = ?";
+    
+    private final ProductRepository productRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readTransaction;
+    private final StockLedgerLog ledgerLog;
+    private final boolean enabled;
+    private final long flushThreshold;
+    
+    private final ConcurrentHashMap<Long, Slot> slots = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+    private final List<Set<Long>> dirty = new ArrayList<>(STRIPES);
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicLong evictionEpoch = new AtomicLong();
+    private final AtomicLong unflushedChanges = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    
+    private ExecutorService flushExecutor;
+    
+    @Autowired
+    public StockLedger(ProductRepository productRepository,
+                       JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${inventory.stock-ledger.enabled:false}") boolean enabled,
+                       @Value("${inventory.stock-ledger.directory:data/stock-ledger}") String directory,
+                       @Value("${inventory.stock-ledger.fsync:true}") boolean fsync,
+                       @Value("${inventory.stock-ledger.flush-threshold:1000}") long flushThreshold) {
+        this(productRepository, jdbcTemplate, transactionManager, new StockLedgerLog(Path.of(directory), fsync),
+                enabled, flushThreshold);
+    }
+    
+    // Lets tests supply a log whose syncs fail
+    StockLedger(ProductRepository productRepository,
+                JdbcTemplate jdbcTemplate,
+                PlatformTransactionManager transactionManager,
+                StockLedgerLog ledgerLog,
+                boolean enabled,
+                long flushThreshold) {
+        this.productRepository = productRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // Flushes commit on their own, ahead of the reads that need them
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.ledgerLog = ledgerLog;
+        this.enabled = enabled;
+        this.flushThreshold = flushThreshold;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+            dirty.add(new HashSet<>());
+        }
+    }
+    
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS stock_ledger_checkpoint (id INTEGER PRIMARY KEY, segment BIGINT NOT NULL)");
+        recover();
+        flushExecutor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "stock-ledger-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @PreDestroy
+    public void stop() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Whatever was not written behind is replayed from the log on the next start
+            log.error("Stock ledger flush on shutdown failed", e);
+        }
+        ledgerLog.close();
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Adds {@code delta} to the product's stock. Throws {@link IllegalStateException} if the
+     * result would be negative and {@link IllegalArgumentException} if the product does not exist.
+     */
+    public StockChange adjust(Long productId, int delta) {
+        return apply(productId, current -> (long) current + delta);
+    }
+    
+    /**
+     * Sets the product's stock to {@code quantity}, recorded as the delta from the current value.
+     */
+    public StockChange set(Long productId, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Stock quantity cannot be negative");
+        }
+        return apply(productId, current -> quantity);
+    }
+    
+    /**
+     * Sets the product's stock to {@code quantity} once the surrounding transaction commits, or
+     * straight away outside one, so a rolled-back update leaves no change in the ledger.
+     * {@code applied} receives the change when it is made.
+     */
+    public void setAfterCommit(Long productId, int quantity, Consumer<StockChange> applied) {
+        if (!enabled) {
+            throw new IllegalStateException("Stock ledger is not enabled");
+        }
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Stock quantity cannot be negative");
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applied.accept(set(productId, quantity));
+                }
+            });
+        } else {
+            applied.accept(set(productId, quantity));
+        }
+    }
+    
+    /**
+     * Returns the ledger's quantity for a product, if the product currently has a slot.
+     */
+    public OptionalInt currentQuantity(Long productId) {
+        Slot slot = slots.get(productId);
+        return slot != null && !slot.retired ? OptionalInt.of(slot.quantity) : OptionalInt.empty();
+    }
+    
+    /**
+     * Returns whether a product has a change that has not reached its row yet, either pending or
+     * in a flush that has not finished. The row's {@code updated_at} does not cover such a change.
+     */
+    public boolean hasUnflushedChange(Long productId) {
+        Slot slot = slots.get(productId);
+        if (slot == null) {
+            return false;
+        }
+        ReentrantLock lock = stripes[stripeOf(productId)];
+        lock.lock();
+        try {
+            // touched stays set until the flush that wrote the change has committed
+            return !slot.retired && (slot.pending != 0 || slot.touched);
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns {@code product} with its stock replaced by the ledger's value where they differ, so
+     * responses built from database rows never show a quantity older than an acknowledged change.
+     */
+    public ProductResponseDTO applyTo(ProductResponseDTO product) {
+        if (!enabled) {
+            return product;
+        }
+        OptionalInt quantity = currentQuantity(product.getId());
+        if (quantity.isEmpty() || quantity.getAsInt() == product.getStockQuantity()) {
+            return product;
+        }
+        return ProductService.withStockQuantity(product, quantity.getAsInt());
+    }
+    
+    /**
+     * Writes all pending deltas, then runs {@code read} in a read-only transaction. Queries that
+     * filter or aggregate on stock in SQL go through here so they see every acknowledged change.
+     * Call it outside a transaction: the flush then commits before the read transaction begins, and
+     * both run on the request's connection instead of holding a second one from the pool.
+     */
+    public <T> T flushThenRead(Supplier<T> read) {
+        flush();
+        return read(read);
+    }
+    
+    // Same transaction as flushThenRead, for callers that only sometimes need the flush
+    public <T> T read(Supplier<T> read) {
+        return readTransaction.execute(status -> read.get());
+    }
+    
+    /**
+     * Writes all pending deltas to the database.
+     */
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            flushPending();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not rotate stock ledger log", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${inventory.stock-ledger.flush-interval-ms:1000}")
+    public void scheduledFlush() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Deltas stay pending and the log segments stay on disk; the next run retries
+            log.error("Stock ledger flush failed", e);
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (enabled && event.getType() == ProductChangedEvent.Type.DELETED) {
+            retire(event.getProductId(), true);
+        }
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReferenceDataChanged(ReferenceDataChangedEvent event) {
+        // Category and supplier deletes cascade to products; dropping every idle slot makes the next
+        // write to one of those products reload it, and fail as not found
+        if (enabled && event.isDeleted()) {
+            flush();
+            for (Long productId : new ArrayList<>(slots.keySet())) {
+                retire(productId, false);
+            }
+        }
+    }
+    
+    private StockChange apply(Long productId, IntToLongFunction next) {
+        if (!enabled) {
+            throw new IllegalStateException("Stock ledger is not enabled");
+        }
+        while (true) {
+            Slot slot = slotFor(productId);
+            int stripe = stripeOf(productId);
+            int previous;
+            int current;
+            stripes[stripe].lock();
+            try {
+                if (slot.retired) {
+                    continue;
+                }
+                previous = slot.quantity;
+                long target = next.applyAsLong(previous);
+                if (target < 0 || target > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Insufficient stock for product " + productId
+                            + " to apply change of " + (target - previous));
+                }
+                current = (int) target;
+                if (current == previous) {
+                    return new StockChange(previous, current);
+                }
+                // The slot is only updated once the record is durable, so neither readers nor later
+                // changes to the product see a quantity a failed fsync would leave unrecorded.
+                // Writers on other stripes still share the fsync.
+                long record = ledgerLog.append(productId, current - previous);
+                ledgerLog.awaitDurable(record);
+                slot.quantity = current;
+                slot.pending += current - previous;
+                slot.touched = true;
+                dirty.get(stripe).add(productId);
+            } finally {
+                stripes[stripe].unlock();
+            }
+            if (unflushedChanges.incrementAndGet() >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+                flushExecutor.execute(() -> {
+                    flushRequested.set(false);
+                    scheduledFlush();
+                });
+            }
+            return new StockChange(previous, current);
+        }
+    }
+    
+    private Slot slotFor(Long productId) {
+        while (true) {
+            Slot slot = slots.get(productId);
+            if (slot != null) {
+                return slot;
+            }
+            // A slot evicted while we read the row may have carried a newer value; retry if so
+            long epoch = evictionEpoch.get();
+            Integer stored = productRepository.findStockQuantityById(productId)
+                    .orElseThrow(() -> new IllegalArgumentException("Product not found with id: " + productId));
+            ReentrantLock lock = stripes[stripeOf(productId)];
+            lock.lock();
+            try {
+                if (evictionEpoch.get() == epoch) {
+                    return slots.computeIfAbsent(productId, id -> new Slot(stored));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    // Removes a slot; unless forced, only once its deltas are persisted
+    private void retire(Long productId, boolean force) {
+        ReentrantLock lock = stripes[stripeOf(productId)];
+        lock.lock();
+        try {
+            Slot slot = slots.get(productId);
+            if (slot != null && (force || slot.pending == 0)) {
+                evictionEpoch.incrementAndGet();
+                slot.retired = true;
+                slots.remove(productId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Callers hold flushLock
+    private void flushPending() throws IOException {
+        if (unflushedChanges.get() == 0 && !ledgerLog.hasRecordsSinceRotate()) {
+            return;
+        }
+        // Rotate the log and drain deltas atomically with respect to writers: the closed segment
+        // then holds exactly the changes being flushed
+        Map<Long, Integer> deltas = new HashMap<>();
+        long segment;
+        lockAllStripes();
+        try {
+            segment = ledgerLog.rotate();
+            for (int stripe = 0; stripe < STRIPES; stripe++) {
+                for (Long productId : dirty.get(stripe)) {
+                    Slot slot = slots.get(productId);
+                    if (slot != null && slot.pending != 0) {
+                        deltas.put(productId, slot.pending);
+                        slot.pending = 0;
+                    }
+                }
+                dirty.get(stripe).clear();
+            }
+            unflushedChanges.set(0);
+        } finally {
+            unlockAllStripes();
+        }
+        
+        try {
+            writeToDatabase(deltas, segment);
+        } catch (RuntimeException e) {
+            restore(deltas);
+            throw e;
+        }
+        for (long closed : ledgerLog.listSegments()) {
+            if (closed <= segment) {
+                ledgerLog.delete(closed);
+            }
+        }
+        evictIdleSlots();
+    }
+    
+    // Puts the deltas of a failed flush back; their log segments are kept until a later flush succeeds
+    private void restore(Map<Long, Integer> deltas) {
+        for (Map.Entry<Long, Integer> delta : deltas.entrySet()) {
+            int stripe = stripeOf(delta.getKey());
+            stripes[stripe].lock();
+            try {
+                Slot slot = slots.get(delta.getKey());
+                if (slot != null) {
+                    slot.pending += delta.getValue();
+                    dirty.get(stripe).add(delta.getKey());
+                    unflushedChanges.incrementAndGet();
+                }
+            } finally {
+                stripes[stripe].unlock();
+            }
+        }
+    }
+    
+    // Evicts slots that were not written since the previous flush and have nothing pending
+    private void evictIdleSlots() {
+        for (Map.Entry<Long, Slot> entry : slots.entrySet()) {
+            ReentrantLock lock = stripes[stripeOf(entry.getKey())];
+            lock.lock();
+            try {
+                Slot slot = entry.getValue();
+                if (slot.touched || slot.pending != 0) {
+                    slot.touched = false;
+                } else if (!slot.retired) {
+                    evictionEpoch.incrementAndGet();
+                    slot.retired = true;
+                    slots.remove(entry.getKey(), slot);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+    
+    private void writeToDatabase(Map<Long, ? extends Number> deltas, long segment) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Map.Entry<Long, ? extends Number>> rows = new ArrayList<>(deltas.entrySet());
+        transactionTemplate.executeWithoutResult(status -> {
+            // Stock is changed relatively and without a version bump: entity updates never write
+            // stock_quantity while the ledger is enabled, so they cannot conflict with a flush
+            jdbcTemplate.batchUpdate(FLUSH_SQL, rows, FLUSH_BATCH_SIZE, (statement, row) -> {
+                long delta = row.getValue().longValue();
+                statement.setLong(1, delta);
+                statement.setTimestamp(2, now);
+                statement.setLong(3, delta);
+                statement.setTimestamp(4, now);
+                statement.setLong(5, delta);
+                statement.setTimestamp(6, now);
+                statement.setLong(7, delta);
+                statement.setLong(8, row.getKey());
+            });
+            if (jdbcTemplate.update("UPDATE stock_ledger_checkpoint SET segment = ? WHERE id = 1", segment) == 0) {
+                jdbcTemplate.update("INSERT INTO stock_ledger_checkpoint (id, segment) VALUES (1, ?)", segment);
+            }
+        });
+    }
+    
+    private void recover() throws IOException {
+        List<Long> checkpoints = jdbcTemplate.queryForList("SELECT segment FROM stock_ledger_checkpoint WHERE id = 1", Long.class);
+        long checkpoint = checkpoints.isEmpty() ? 0 : checkpoints.get(0);
+        List<Long> segments = ledgerLog.listSegments();
+        
+        Map<Long, Long> deltas = new HashMap<>();
+        long last = checkpoint;
+        for (long segment : segments) {
+            if (segment > checkpoint) {
+                ledgerLog.replay(segment, deltas);
+            }
+            last = Math.max(last, segment);
+        }
+        if (last > checkpoint) {
+            writeToDatabase(deltas, last);
+            log.info("Stock ledger replayed deltas for {} products from log segments up to {}", deltas.size(), last);
+        }
+        for (long segment : segments) {
+            ledgerLog.delete(segment);
+        }
+        ledgerLog.open(last + 1);
+    }
+    
+    private void lockAllStripes() {
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+    }
+    
+    private void unlockAllStripes() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            stripes[i].unlock();
+        }
+    }
+    
+    private static int stripeOf(Long productId) {
+        return Long.hashCode(productId) & (STRIPES - 1);
+    }
+    
+    /**
+     * Stock before and after a ledger change.
+     */
+    public record StockChange(int previous, int current) {
+    }
+    
+    // Fields are guarded by the slot's stripe lock; quantity and retired are also read without it
+    private static final class Slot {
+        private volatile int quantity;
+        private volatile boolean retired;
+        private int pending;
+        private boolean touched;
+        
+        private Slot(int quantity) {
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.picnic.inventory.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Segmented append-only log of stock deltas backing {@link StockLedger}.
+ * <p>
+ * Each record is a fixed 24-byte entry (product id, delta, record number, CRC32). Appends are
+ * made durable with group commit: {@link #awaitDurable(long)} forces the channel once for every
+ * record written so far, so concurrent writers share a single fsync. A torn record at the tail of
+ * a segment (crash mid-write) fails its checksum and is ignored on replay.
+ * <p>
+ * A failed force leaves it unknown which unforced records reached the disk, so the log then
+ * refuses further appends and rotations until the process restarts and replays what is there.
+ */
+class StockLedgerLog {
+    
+    private static final int RECORD_SIZE = 24;
+    private static final String PREFIX = "stock-ledger-";
+    private static final String SUFFIX = ".log";
+    
+    private final Path directory;
+    private final boolean fsync;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+    
+    private FileChannel channel;
+    private long segment;
+    private long written;
+    private long writtenAtRotate;
+    private volatile long durable;
+    private volatile IOException failure;
+    
+    StockLedgerLog(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+    
+    /**
+     * Returns the numbers of the segments currently on disk, oldest first.
+     */
+    List<Long> listSegments() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+    
+    /**
+     * Adds the deltas recorded in {@code segment} to {@code deltas}, stopping at the first torn record.
+     */
+    void replay(long segment, Map<Long, Long> deltas) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        CRC32 check = new CRC32();
+        try (FileChannel in = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+            while (true) {
+                record.clear();
+                while (record.hasRemaining() && in.read(record) > 0) {
+                    // keep reading until the record is complete or the file ends
+                }
+                if (record.hasRemaining()) {
+                    return;
+                }
+                record.flip();
+                check.reset();
+                check.update(record.array(), 0, RECORD_SIZE - 4);
+                long productId = record.getLong(0);
+                int delta = record.getInt(8);
+                if ((int) check.getValue() != record.getInt(RECORD_SIZE - 4)) {
+                    return;
+                }
+                deltas.merge(productId, (long) delta, Long::sum);
+            }
+        }
+    }
+    
+    /**
+     * Starts appending to {@code segment}.
+     */
+    void open(long segment) throws IOException {
+        appendLock.lock();
+        try {
+            Files.createDirectories(directory);
+            this.channel = FileChannel.open(segmentPath(segment),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            this.segment = segment;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    /**
+     * Appends a delta and returns its record number for {@link #awaitDurable(long)}.
+     */
+    long append(long productId, int delta) {
+        appendLock.lock();
+        try {
+            checkNotFailed();
+            long number = ++written;
+            buffer.clear();
+            buffer.putLong(productId).putInt(delta).putLong(number);
+            crc.reset();
+            crc.update(buffer.array(), 0, RECORD_SIZE - 4);
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            return number;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to stock ledger log", e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    /**
+     * Blocks until record {@code number} has been forced to disk. One force covers every record
+     * appended before it, so concurrent callers usually return without their own fsync.
+     */
+    void awaitDurable(long number) {
+        if (!fsync || durable >= number) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (durable >= number) {
+                return;
+            }
+            checkNotFailed();
+            long target;
+            FileChannel current;
+            appendLock.lock();
+            try {
+                target = written;
+                current = channel;
+            } finally {
+                appendLock.unlock();
+            }
+            force(current);
+            durable = target;
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException("Could not sync stock ledger log", e);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+    
+    /**
+     * Closes the current segment after forcing it and continues in the next one.
+     * Returns the number of the segment that was closed.
+     */
+    long rotate() throws IOException {
+        syncLock.lock();
+        appendLock.lock();
+        try {
+            if (failure != null) {
+                throw new IOException("Stock ledger log failed to sync; restart to replay it", failure);
+            }
+            long closed = segment;
+            force(channel);
+            channel.close();
+            durable = written;
+            channel = FileChannel.open(segmentPath(closed + 1),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            segment = closed + 1;
+            writtenAtRotate = written;
+            return closed;
+        } finally {
+            appendLock.unlock();
+            syncLock.unlock();
+        }
+    }
+    
+    boolean hasRecordsSinceRotate() {
+        appendLock.lock();
+        try {
+            return written != writtenAtRotate;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    void delete(long segment) throws IOException {
+        Files.deleteIfExists(segmentPath(segment));
+    }
+    
+    void close() throws IOException {
+        appendLock.lock();
+        try {
+            if (channel != null) {
+                if (failure == null) {
+                    force(channel);
+                }
+                channel.close();
+                channel = null;
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    // Separate so tests can make forcing fail
+    void force(FileChannel channel) throws IOException {
+        channel.force(false);
+    }
+    
+    private void checkNotFailed() {
+        if (failure != null) {
+            throw new UncheckedIOException("Stock ledger log failed to sync; restart to replay it", failure);
+        }
+    }
+    
+    private Path segmentPath(long segment) {
+        return directory.resolve(PREFIX + segment + SUFFIX);
+    }
+}
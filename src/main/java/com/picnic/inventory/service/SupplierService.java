@@ -1,23 +1,47 @@
 package com.picnic.inventory.service;
 
+import com.picnic.inventory.dto.InventoryStatsDTO;
+import com.picnic.inventory.event.ReferenceDataChangedEvent;
 import com.picnic.inventory.model.Supplier;
 import com.picnic.inventory.repository.SupplierRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Timed(value = "inventory.service", histogram = true)
 @Transactional
 public class SupplierService {
     
     private final SupplierRepository supplierRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockLedger stockLedger;
     
     @Autowired
-    public SupplierService(SupplierRepository supplierRepository) {
+    public SupplierService(SupplierRepository supplierRepository, ApplicationEventPublisher eventPublisher, StockLedger stockLedger) {
         this.supplierRepository = supplierRepository;
+        this.eventPublisher = eventPublisher;
+        this.stockLedger = stockLedger;
+    }
+    
+    // Inventory figures for every supplier, and for the products without one, computed by the
+    // database in a single grouped query. Stock and low-stock flags are read from the table, so
+    // pending ledger deltas are flushed before the read transaction starts
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<InventoryStatsDTO> getSupplierStats() {
+        LocalDate today = LocalDate.now();
+        List<InventoryStatsDTO> stats = new ArrayList<>(stockLedger.flushThenRead(() ->
+                supplierRepository.findInventoryStats(today, today.plusDays(ProductService.EXPIRING_SOON_DAYS))));
+        stats.sort(InventoryStatsDTO.BY_NAME);
+        return stats;
     }
     
     public List<Supplier> getAllSuppliers() {
@@ -38,7 +62,9 @@ public class SupplierService {
         }
         
         Supplier supplier = new Supplier(name, email, phone, address);
-        return supplierRepository.save(supplier);
+        Supplier savedSupplier = supplierRepository.save(supplier);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Kind.SUPPLIER, savedSupplier.getId(), ReferenceDataChangedEvent.Change.CREATED));
+        return savedSupplier;
     }
     
     public Supplier updateSupplier(Long id, String name, String email, String phone, String address, String contactPerson) {
@@ -55,7 +81,9 @@ public class SupplierService {
         supplier.setPhone(phone);
         supplier.setAddress(address);
         supplier.setContactPerson(contactPerson);
-        return supplierRepository.save(supplier);
+        Supplier savedSupplier = supplierRepository.save(supplier);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Kind.SUPPLIER, id, ReferenceDataChangedEvent.Change.UPDATED));
+        return savedSupplier;
     }
     
     public void deleteSupplier(Long id) {
@@ -63,6 +91,7 @@ public class SupplierService {
             throw new IllegalArgumentException("Supplier not found with id: " + id);
         }
         supplierRepository.deleteById(id);
+        eventPublisher.publishEvent(new ReferenceDataChangedEvent(ReferenceDataChangedEvent.Kind.SUPPLIER, id, ReferenceDataChangedEvent.Change.DELETED));
     }
     
     public List<Supplier> searchSuppliersByName(String name) {
@@ -0,0 +1,102 @@
+package com.picnic.inventory.sql;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements each request runs and checks them against a budget for its endpoint,
+ * so N+1 loads and stray lazy initializations show up before they show up as latency. Budgets
+ * are keyed by method and mapping pattern ({@code GET /api/products/{id}}); endpoints without
+ * one get the default.
+ * <p>
+ * In {@code log} mode an over-budget request is logged; in {@code reject} mode, meant for tests,
+ * the filter throws after the request has run so the calling test fails.
+ */
+@Component
+public class SqlBudgetFilter extends OncePerRequestFilter {
+    
+    private static final Logger log = LoggerFactory.getLogger(SqlBudgetFilter.class);
+    
+    public enum Mode { OFF, LOG, REJECT }
+    
+    private final Mode mode;
+    private final int defaultMaxStatements;
+    private final Map<String, Integer> endpointBudgets;
+    
+    @Autowired
+    public SqlBudgetFilter(@Value("${inventory.sql-budget.mode:log}") String mode,
+                           @Value("${inventory.sql-budget.max-statements:50}") int defaultMaxStatements,
+                           @Value("${inventory.sql-budget.endpoints:}") String[] endpointBudgets) {
+        this.mode = Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        this.defaultMaxStatements = defaultMaxStatements;
+        this.endpointBudgets = parseBudgets(endpointBudgets);
+    }
+    
+    public int getBudget(String method, String pattern) {
+        return endpointBudgets.getOrDefault(method + " " + pattern, defaultMaxStatements);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (mode == Mode.OFF) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
+        int statements;
+        long databaseMillis;
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            filterChain.doFilter(request, response);
+            statements = scope.getStatements();
+            databaseMillis = scope.getDatabaseTime().toMillis();
+        }
+        
+        // Set by the handler mapping; absent for requests no controller handled
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) {
+            return;
+        }
+        int budget = getBudget(request.getMethod(), pattern.toString());
+        log.debug("{} {} ran {} SQL statements in {} ms", request.getMethod(), pattern, statements, databaseMillis);
+        if (statements > budget) {
+            String message = String.format("%s %s ran %d SQL statements (%d ms), over its budget of %d",
+                    request.getMethod(), pattern, statements, databaseMillis, budget);
+            if (mode == Mode.REJECT) {
+                throw new IllegalStateException(message);
+            }
+            log.warn(message);
+        }
+    }
+    
+    // Entries look like "GET /api/products=1"
+    private static Map<String, Integer> parseBudgets(String[] entries) {
+        Map<String, Integer> budgets = new HashMap<>();
+        for (String entry : entries) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("SQL budget entry '" + entry + "' must look like 'GET /path=max'");
+            }
+            String endpoint = entry.substring(0, separator).trim().replaceAll("\\s+", " ");
+            budgets.put(endpoint, Integer.parseInt(entry.substring(separator + 1).trim()));
+        }
+        return budgets;
+    }
+}
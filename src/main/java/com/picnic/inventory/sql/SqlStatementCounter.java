@@ -0,0 +1,62 @@
+package com.picnic.inventory.sql;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the JDBC statements run on the current thread, and the time spent in them, between
+ * {@link #open()} and {@link Scope#close()}. Scopes nest: a statement counts towards every scope
+ * open on the thread, so a test can measure a request that the budget filter also measures.
+ */
+public final class SqlStatementCounter {
+    
+    private static final ThreadLocal<List<Scope>> OPEN_SCOPES = new ThreadLocal<>();
+    
+    private SqlStatementCounter() {}
+    
+    public static Scope open() {
+        List<Scope> scopes = OPEN_SCOPES.get();
+        if (scopes == null) {
+            scopes = new ArrayList<>(2);
+            OPEN_SCOPES.set(scopes);
+        }
+        Scope scope = new Scope();
+        scopes.add(scope);
+        return scope;
+    }
+    
+    static void record(long elapsedNanos) {
+        List<Scope> scopes = OPEN_SCOPES.get();
+        if (scopes == null) {
+            return;
+        }
+        for (Scope scope : scopes) {
+            scope.statements++;
+            scope.elapsedNanos += elapsedNanos;
+        }
+    }
+    
+    public static final class Scope implements AutoCloseable {
+        private int statements;
+        private long elapsedNanos;
+        
+        private Scope() {}
+        
+        public int getStatements() {
+            return statements;
+        }
+        
+        public Duration getDatabaseTime() {
+            return Duration.ofNanos(elapsedNanos);
+        }
+        
+        @Override
+        public void close() {
+            List<Scope> scopes = OPEN_SCOPES.get();
+            if (scopes != null && scopes.remove(this) && scopes.isEmpty()) {
+                OPEN_SCOPES.remove();
+            }
+        }
+    }
+}
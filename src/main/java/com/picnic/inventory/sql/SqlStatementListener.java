@@ -0,0 +1,46 @@
+package com.picnic.inventory.sql;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.DefaultQueryLogEntryCreator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Attached to the proxied DataSource: feeds every statement's execution time to
+ * {@link SqlStatementCounter} and logs statements slower than the threshold with their bind
+ * parameters. A batch execution counts as one statement. The time is the one datasource-proxy
+ * measured around the execution, in nanoseconds: the proxy must be configured with a
+ * {@link net.ttddyy.dsproxy.proxy.NanoTimeStopwatchFactory}, as SqlMonitoringConfiguration does.
+ */
+public class SqlStatementListener implements QueryExecutionListener {
+    
+    private static final Logger log = LoggerFactory.getLogger(SqlStatementListener.class);
+    
+    private final long slowThresholdNanos;
+    private final DefaultQueryLogEntryCreator logEntryCreator = new DefaultQueryLogEntryCreator();
+    
+    public SqlStatementListener(Duration slowThreshold) {
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+    
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+    
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        SqlStatementCounter.record(elapsed);
+        
+        if (slowThresholdNanos > 0 && elapsed >= slowThresholdNanos) {
+            log.warn("Slow SQL statement ({} ms): {}", TimeUnit.NANOSECONDS.toMillis(elapsed),
+                    logEntryCreator.getLogEntry(execInfo, queryInfoList, false, false, false));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.picnic.inventory.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the monitor in a context of its own. JFR sees every thread in the JVM, and other tests'
+ * contexts may pin virtual threads meanwhile, so the test looks for the pin of its own named
+ * thread in the monitor's log rather than counting events.
+ */
+@ExtendWith(OutputCaptureExtension.class)
+public class VirtualThreadPinningMonitorTest {
+    
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withPropertyValues("spring.threads.virtual.enabled=true", "inventory.virtual-threads.pinned-threshold-ms=10")
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withUserConfiguration(VirtualThreadPinningMonitor.class);
+    
+    @Test
+    void testBlockingInsideSynchronizedIsTimed(CapturedOutput output) {
+        contextRunner.run(context -> {
+            Timer pinned = context.getBean(MeterRegistry.class).get("inventory.virtual.threads.pinned").timer();
+            Object lock = new Object();
+            
+            Thread.ofVirtual().name("pinning-monitor-test").start(() -> {
+                synchronized (lock) {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }).join();
+            
+            // JFR hands events to the stream about once a second
+            String reported = "Virtual thread pinning-monitor-test pinned to its carrier";
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!output.getAll().contains(reported) && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+            assertTrue(output.getAll().contains(reported));
+            assertTrue(output.getAll().contains(VirtualThreadPinningMonitorTest.class.getName()));
+            assertTrue(pinned.count() >= 1);
+            assertTrue(pinned.max(TimeUnit.MILLISECONDS) >= 50);
+        });
+    }
+    
+    @Test
+    void testNotStartedWithoutVirtualThreads() {
+        new ApplicationContextRunner()
+                .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+                .withUserConfiguration(VirtualThreadPinningMonitor.class)
+                .run(context -> assertTrue(context.getBeansOfType(VirtualThreadPinningMonitor.class).isEmpty()));
+    }
+}
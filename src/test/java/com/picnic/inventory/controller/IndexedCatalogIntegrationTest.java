@@ -0,0 +1,156 @@
+package com.picnic.inventory.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picnic.inventory.dto.ProductCreateDTO;
+import com.picnic.inventory.index.ExpirationCalendar;
+import com.picnic.inventory.index.ProductSearchIndex;
+import com.picnic.inventory.index.ProductSuggestIndex;
+import com.picnic.inventory.model.Product;
+import com.picnic.inventory.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The read endpoints with the expiration calendar, search index, suggest trie and valuation
+ * enabled, as they run in production; application-test.properties turns them off for the other
+ * integration tests. Not transactional: the indexes only apply committed writes. Each test uses
+ * its own product names, since rows are never removed behind the indexes' backs.
+ */
+@SpringBootTest(properties = {
+    "inventory.expiration-calendar.enabled=true",
+    "inventory.search-index.enabled=true",
+    "inventory.suggest-index.enabled=true",
+    "inventory.valuation.enabled=true"
+})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@DirtiesContext
+public class IndexedCatalogIntegrationTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private ExpirationCalendar expirationCalendar;
+    
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    
+    @Autowired
+    private ProductSuggestIndex suggestIndex;
+    
+    @Test
+    void testWarmUpLoadsRowsWrittenBeforeStart() throws Exception {
+        // Saved through the repository, so no index hears of them until it scans the table
+        LocalDate today = LocalDate.now();
+        saveRow("Greek Yogurt", "IDX-YOG-001", "5900000000101", today.plusDays(3));
+        saveRow("Sourdough Loaf", "IDX-SOU-001", "5900000000102", today.plusDays(30));
+        
+        expirationCalendar.warmUp();
+        searchIndex.warmUp();
+        suggestIndex.warmUp();
+        assertTrue(expirationCalendar.isReady() && searchIndex.isReady() && suggestIndex.isReady());
+        
+        mockMvc.perform(get("/api/products/search").param("name", "yoghurt").param("fuzzy", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].sku", contains("IDX-YOG-001")));
+        mockMvc.perform(get("/api/products/suggest").param("prefix", "sourd"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].sku", contains("IDX-SOU-001")));
+        mockMvc.perform(get("/api/products/expiring").param("days", "7"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].sku", hasItem("IDX-YOG-001")))
+                .andExpect(jsonPath("$[*].sku", not(hasItem("IDX-SOU-001"))));
+    }
+    
+    @Test
+    void testApiWritesAreServedFromTheIndexes() throws Exception {
+        ProductCreateDTO oatMilk = createDTO("Oat Milk", "IDX-OAT-001", LocalDate.now().plusDays(2));
+        String created = mockMvc.perform(post("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(oatMilk)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("id").asLong();
+        
+        mockMvc.perform(get("/api/products/search").param("name", "oat"))
+                .andExpect(jsonPath("$[*].sku", contains("IDX-OAT-001")));
+        mockMvc.perform(get("/api/products/suggest").param("prefix", "idx-oat"))
+                .andExpect(jsonPath("$[*].name", contains("Oat Milk")));
+        mockMvc.perform(get("/api/products/expiring").param("days", "7"))
+                .andExpect(jsonPath("$[*].sku", hasItem("IDX-OAT-001")));
+        
+        ProductCreateDTO renamed = createDTO("Almond Drink", "IDX-OAT-001", null);
+        mockMvc.perform(put("/api/products/{id}", id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(renamed)))
+                .andExpect(status().isOk());
+        
+        mockMvc.perform(get("/api/products/search").param("name", "milk"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/products/search").param("name", "almond"))
+                .andExpect(jsonPath("$[*].sku", contains("IDX-OAT-001")));
+        mockMvc.perform(get("/api/products/expiring").param("days", "7"))
+                .andExpect(jsonPath("$[*].sku", not(hasItem("IDX-OAT-001"))));
+        
+        mockMvc.perform(delete("/api/products/{id}", id))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/products/search").param("name", "almond"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/products/suggest").param("prefix", "almond"))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+    
+    @Test
+    void testSearchPageBeyondIntOffsetIsRejected() throws Exception {
+        mockMvc.perform(get("/api/products/search").param("name", "milk")
+                        .param("limit", "500").param("page", "4294968"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products/search").param("name", "milk")
+                        .param("limit", "500").param("page", "4294967"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+    
+    private void saveRow(String name, String sku, String barcode, LocalDate expirationDate) {
+        Product product = new Product(name, sku, barcode, new BigDecimal("1.99"), 20, 5);
+        product.setExpirationDate(expirationDate);
+        product.setIsPerishable(true);
+        productRepository.save(product);
+    }
+    
+    private static ProductCreateDTO createDTO(String name, String sku, LocalDate expirationDate) {
+        ProductCreateDTO dto = new ProductCreateDTO();
+        dto.setName(name);
+        dto.setSku(sku);
+        dto.setBarcode("5900000000001");
+        dto.setPrice(new BigDecimal("2.49"));
+        dto.setStockQuantity(20);
+        dto.setMinStockLevel(5);
+        dto.setExpirationDate(expirationDate);
+        dto.setIsPerishable(expirationDate != null);
+        return dto;
+    }
+}
@@ -0,0 +1,52 @@
+package com.picnic.inventory.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Metrics export is off in tests by default; {@link AutoConfigureObservability} turns the
+ * Prometheus registry back on so the scrape endpoint can be checked.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+public class MetricsEndpointTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Test
+    void testPrometheusScrapeCoversEndpointsServicesRepositoriesAndHibernate() throws Exception {
+        mockMvc.perform(get("/api/products")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/categories")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/suppliers/stats")).andExpect(status().isOk());
+        
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+                .andExpect(content().string(containsString("uri=\"/api/products\"")))
+                .andExpect(content().string(containsString("uri=\"/api/suppliers/stats\"")))
+                .andExpect(content().string(containsString("inventory_service_seconds_bucket{")))
+                .andExpect(content().string(containsString("class=\"com.picnic.inventory.service.CategoryService\"")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_bucket{")))
+                .andExpect(content().string(containsString("repository=\"CategoryRepository\"")))
+                .andExpect(content().string(containsString("hibernate_query_executions_total")))
+                .andExpect(content().string(containsString("hibernate_entities_loads_total")))
+                .andExpect(content().string(containsString("hibernate_statements_total")))
+                .andExpect(content().string(containsString("hibernate_second_level_cache_requests_total{")))
+                .andExpect(content().string(containsString("region=\"com.picnic.inventory.model.Category\"")));
+    }
+}
@@ -8,23 +8,38 @@ import com.picnic.inventory.model.Supplier;
 import com.picnic.inventory.repository.CategoryRepository;
 import com.picnic.inventory.repository.ProductRepository;
 import com.picnic.inventory.repository.SupplierRepository;
+import com.picnic.inventory.service.ProductExportService;
+import com.picnic.inventory.service.ProductService;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static com.picnic.inventory.sql.SqlStatementAssertions.assertMaxStatements;
+import static com.picnic.inventory.sql.SqlStatementAssertions.assertStatements;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -48,6 +63,12 @@ public class ProductControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
     
+    @Autowired
+    private ProductExportService productExportService;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
     private Category testCategory;
     private Supplier testSupplier;
     
@@ -71,7 +92,132 @@ public class ProductControllerIntegrationTest {
         mockMvc.perform(get("/api/products"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$", hasSize(0)));
+                .andExpect(jsonPath("$.items", hasSize(0)))
+                .andExpect(jsonPath("$.hasMore", is(false)));
+    }
+    
+    @Test
+    void testGetAllProducts_CursorPagination() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            Product product = new Product("Product " + i, "PAGE-00" + i, "123456789000" + i,
+                    new BigDecimal("1.99"), 20, 5);
+            product.setCategory(testCategory);
+            productRepository.save(product);
+        }
+        // Requests share the test transaction; flush so the next one's SQL budget does not pay for these writes
+        entityManager.flush();
+        
+        String firstPage = mockMvc.perform(get("/api/products").param("size", "3").param("sort", "name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(3)))
+                .andExpect(jsonPath("$.items[0].name", is("Product 1")))
+                .andExpect(jsonPath("$.hasMore", is(true)))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+        
+        mockMvc.perform(get("/api/products").param("size", "3").param("sort", "name").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].name", is("Product 4")))
+                .andExpect(jsonPath("$.hasMore", is(false)))
+                .andExpect(jsonPath("$.nextCursor", nullValue()));
+        
+        // A cursor issued for one sort order cannot be replayed against another
+        mockMvc.perform(get("/api/products").param("sort", "id").param("cursor", cursor))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    void testGetAllProducts_FiltersCombineWithCursor() throws Exception {
+        Category otherCategory = categoryRepository.save(new Category("Other Category", null));
+        saveProduct("Oat Milk", "FLT-001", 2, testCategory, testSupplier);
+        saveProduct("Oat Bar", "FLT-002", 2, testCategory, null);
+        saveProduct("Oat Flakes", "FLT-003", 50, testCategory, testSupplier);
+        saveProduct("Rice Milk", "FLT-004", 2, testCategory, testSupplier);
+        saveProduct("Oat Drink", "FLT-005", 2, otherCategory, testSupplier);
+        saveProduct("Oat Cookies", "FLT-006", 2, testCategory, testSupplier);
+        entityManager.flush();
+        
+        RequestBuilder firstRequest = get("/api/products").param("size", "1")
+                .param("categoryId", testCategory.getId().toString())
+                .param("supplierId", testSupplier.getId().toString())
+                .param("name", "OAT")
+                .param("lowStock", "true");
+        MvcResult firstPage = assertMaxStatements(1, () -> mockMvc.perform(firstRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].sku", contains("FLT-001")))
+                .andExpect(jsonPath("$.hasMore", is(true)))
+                .andReturn());
+        String cursor = objectMapper.readTree(firstPage.getResponse().getContentAsString()).get("nextCursor").asText();
+        
+        mockMvc.perform(get("/api/products").param("size", "1").param("cursor", cursor)
+                .param("categoryId", testCategory.getId().toString())
+                .param("supplierId", testSupplier.getId().toString())
+                .param("name", "OAT")
+                .param("lowStock", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].sku", contains("FLT-006")))
+                .andExpect(jsonPath("$.items[0].categoryName", is("Test Category")))
+                .andExpect(jsonPath("$.hasMore", is(false)));
+    }
+    
+    @Test
+    void testGetAllProducts_NameWildcardsMatchLiterally() throws Exception {
+        saveProduct("Juice 50% Less Sugar", "WLD-001", 20, testCategory, null);
+        saveProduct("Rice 500g", "WLD-002", 20, testCategory, null);
+        saveProduct("Snack_Mix", "WLD-003", 20, testCategory, null);
+        saveProduct("Snack Bar", "WLD-004", 20, testCategory, null);
+        saveProduct("Snack_Bar", "WLD-005", 20, testCategory, null);
+        entityManager.flush();
+        
+        mockMvc.perform(get("/api/products").param("name", "50%"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].sku", contains("WLD-001")));
+        
+        String firstPage = mockMvc.perform(get("/api/products").param("size", "1").param("sort", "name")
+                        .param("name", "K_"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].sku", contains("WLD-005")))
+                .andExpect(jsonPath("$.hasMore", is(true)))
+                .andReturn().getResponse().getContentAsString();
+        String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+        
+        mockMvc.perform(get("/api/products").param("size", "1").param("sort", "name")
+                        .param("name", "K_").param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].sku", contains("WLD-003")))
+                .andExpect(jsonPath("$.hasMore", is(false)));
+    }
+    
+    @Test
+    void testExportProducts_Csv() throws Exception {
+        Product product = new Product("Cheddar, Aged", "EXP-001", "1234567890555", new BigDecimal("5.99"), 40, 10);
+        product.setCategory(testCategory);
+        product.setSupplier(testSupplier);
+        productRepository.save(product);
+        
+        // The export runs in its own read transaction off the request thread, so check the
+        // rows written by the service directly and the HTTP contract through MockMvc
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = productExportService.exportProducts(ProductExportService.FORMAT_CSV, out);
+        String csv = out.toString(StandardCharsets.UTF_8);
+        assertEquals(1, rows);
+        assertTrue(csv.startsWith("id,name,description,sku"));
+        assertTrue(csv.contains("\"Cheddar, Aged\",,EXP-001,1234567890555,5.99,40,10"));
+        
+        MvcResult result = mockMvc.perform(get("/api/products/export").param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", containsString("products.csv")));
+    }
+    
+    @Test
+    void testExportProducts_UnsupportedFormat() throws Exception {
+        mockMvc.perform(get("/api/products/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
     }
     
     @Test
@@ -102,6 +248,43 @@ public class ProductControllerIntegrationTest {
                 .andExpect(jsonPath("$.stockQuantity", is(100)));
     }
     
+    @Test
+    void testCreateProductsBatch_PerItemResults() throws Exception {
+        ProductCreateDTO valid = batchItem("BATCH-001", "2000000000001");
+        ProductCreateDTO duplicateSku = batchItem("BATCH-001", "2000000000002");
+        ProductCreateDTO unknownCategory = batchItem("BATCH-003", "2000000000003");
+        unknownCategory.setCategoryId(999_999L);
+        ProductCreateDTO invalid = batchItem("BATCH-004", "200");
+        
+        mockMvc.perform(post("/api/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(valid, duplicateSku, unknownCategory, invalid))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(4)))
+                .andExpect(jsonPath("$.succeeded", is(1)))
+                .andExpect(jsonPath("$.results[0].status", is("SUCCEEDED")))
+                .andExpect(jsonPath("$.results[0].id", notNullValue()))
+                .andExpect(jsonPath("$.results[1].error", is("Product with SKU BATCH-001 already exists")))
+                .andExpect(jsonPath("$.results[2].error", containsString("Category not found")))
+                .andExpect(jsonPath("$.results[3].error", containsString("barcode")));
+        
+        assertTrue(productRepository.findBySku("BATCH-001").isPresent());
+        assertTrue(productRepository.findBySku("BATCH-003").isEmpty());
+    }
+    
+    private ProductCreateDTO batchItem(String sku, String barcode) {
+        ProductCreateDTO item = new ProductCreateDTO();
+        item.setName("Batch Product " + sku);
+        item.setSku(sku);
+        item.setBarcode(barcode);
+        item.setPrice(new BigDecimal("3.49"));
+        item.setStockQuantity(25);
+        item.setMinStockLevel(5);
+        item.setCategoryId(testCategory.getId());
+        item.setSupplierId(testSupplier.getId());
+        return item;
+    }
+    
     @Test
     void testCreateProduct_ValidationError() throws Exception {
         ProductCreateDTO productCreateDTO = new ProductCreateDTO();
@@ -144,6 +327,63 @@ public class ProductControllerIntegrationTest {
                 .andExpect(status().isNotFound());
     }
     
+    @Test
+    void testProductLookups_OneStatementWithCategoryAndSupplier() throws Exception {
+        Product product = new Product("Lookup Product", "LOOK-001", "1234567890777", new BigDecimal("4.99"), 30, 5);
+        product.setCategory(testCategory);
+        product.setSupplier(testSupplier);
+        product = productRepository.save(product);
+        entityManager.flush();
+        entityManager.clear();
+        Long id = product.getId();
+        
+        assertMaxStatements(1, () -> mockMvc.perform(get("/api/products/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.categoryName", is("Test Category"))));
+        entityManager.clear();
+        assertMaxStatements(1, () -> mockMvc.perform(get("/api/products/barcode/{barcode}", "1234567890777"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.supplierName", is("Test Supplier"))));
+    }
+    
+    @Test
+    void testConditionalGets_NotModifiedWithoutStatements() throws Exception {
+        Product product = new Product("Cached Product", "ETAG-001", "9876543210001", new BigDecimal("1.99"), 20, 5);
+        product.setCategory(testCategory);
+        product = productRepository.save(product);
+        entityManager.flush();
+        
+        MvcResult page = mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn();
+        String etag = page.getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue(etag.startsWith("\"catalog-"));
+        
+        // A current tag is answered before the database or the serializer is reached
+        for (String url : List.of("/api/products", "/api/products/" + product.getId(),
+                "/api/products/sku/ETAG-001", "/api/categories", "/api/categories/" + testCategory.getId(),
+                "/api/suppliers", "/api/suppliers/" + testSupplier.getId())) {
+            assertStatements(0, () -> mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified())
+                    .andExpect(content().string("")));
+        }
+        
+        // Single items carry their own Last-Modified and honour If-Modified-Since on it
+        MvcResult item = mockMvc.perform(get("/api/products/{id}", product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andReturn();
+        List<String> lastModified = item.getResponse().getHeaders(HttpHeaders.LAST_MODIFIED);
+        assertEquals(1, lastModified.size());
+        mockMvc.perform(get("/api/products/{id}", product.getId()).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified.get(0)))
+                .andExpect(status().isNotModified());
+        
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, "\"catalog-0-2000-01-01\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)));
+    }
+    
     @Test
     void testGetLowStockProducts() throws Exception {
         // Create a low stock product
@@ -157,6 +397,7 @@ public class ProductControllerIntegrationTest {
         lowStockProduct.setCategory(testCategory);
         lowStockProduct.setSupplier(testSupplier);
         productRepository.save(lowStockProduct);
+        entityManager.flush();
         
         mockMvc.perform(get("/api/products/low-stock"))
                 .andExpect(status().isOk())
@@ -165,6 +406,154 @@ public class ProductControllerIntegrationTest {
                 .andExpect(jsonPath("$[0].isLowStock", is(true)));
     }
     
+    @Test
+    void testLowStockTransitions_RecordEntryAndExit() throws Exception {
+        Product product = productRepository.save(new Product("Flour", "LOW-002", "1234567890125", new BigDecimal("2.49"), 20, 10));
+        // Requests share the test transaction; flush so the next one's SQL budget does not pay for these writes
+        entityManager.flush();
+        
+        mockMvc.perform(get("/api/products/low-stock"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        
+        mockMvc.perform(patch("/api/products/{id}/stock", product.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": 4}"))
+                .andExpect(status().isOk());
+        entityManager.flush();
+        mockMvc.perform(get("/api/products/low-stock"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].lowStockSince", notNullValue()))
+                .andExpect(jsonPath("$[0].lowStockClearedAt", nullValue()));
+        
+        // The atomic increment is a bulk UPDATE, which maintains the flag without entity callbacks
+        mockMvc.perform(post("/api/products/{id}/stock/increment", product.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quantity\": 30}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/products/low-stock"))
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/products/{id}", product.getId()))
+                .andExpect(jsonPath("$.isLowStock", is(false)))
+                .andExpect(jsonPath("$.lowStockSince", notNullValue()))
+                .andExpect(jsonPath("$.lowStockClearedAt", notNullValue()));
+    }
+    
+    @Test
+    void testSearchBeforeIndexIsBuilt_FuzzyIsUnavailable() throws Exception {
+        // The search index is disabled in the test profile, so it never becomes ready
+        productRepository.save(new Product("Cheddar Cheese", "SR-001", "7654321000201", new BigDecimal("3.10"), 8, 2));
+        
+        mockMvc.perform(get("/api/products/search").param("name", "cheddar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].sku", contains("SR-001")));
+        mockMvc.perform(get("/api/products/search").param("name", "chedar").param("fuzzy", "true"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "5"));
+    }
+    
+    @Test
+    void testListEndpoints_OneStatementRegardlessOfRowCount() throws Exception {
+        for (int i = 1; i <= 5; i++) {
+            Category category = categoryRepository.save(new Category("Category " + i, null));
+            Supplier supplier = supplierRepository.save(new Supplier("Supplier " + i, "s" + i + "@supplier.com", null, null));
+            Product product = new Product("Milk " + i, "N1-00" + i, "765432100000" + i, new BigDecimal("1.00"), 1, 5);
+            product.setExpirationDate(LocalDate.now().minusDays(i));
+            product.setCategory(category);
+            product.setSupplier(supplier);
+            productRepository.save(product);
+        }
+        // Start from an empty persistence context so category and supplier are not already loaded
+        entityManager.flush();
+        entityManager.clear();
+        
+        assertStatementCount(1, get("/api/products"), 5);
+        assertStatementCount(1, get("/api/products/low-stock"), 5);
+        assertStatementCount(1, get("/api/products/expired"), 5);
+        assertStatementCount(1, get("/api/products/search").param("name", "milk"), 5);
+        
+        mockMvc.perform(get("/api/products/sku/{sku}", "N1-001"))
+                .andExpect(jsonPath("$.categoryName", is("Category 1")))
+                .andExpect(jsonPath("$.supplierName", is("Supplier 1")));
+    }
+    
+    @Test
+    void testGroupStats_OneStatementForEveryGroup() throws Exception {
+        categoryRepository.save(new Category("Empty Category", null));
+        Product milk = new Product("Milk", "ST-001", "7654321000101", new BigDecimal("1.25"), 4, 5);
+        milk.setExpirationDate(LocalDate.now().plusDays(2));
+        milk.setCategory(testCategory);
+        milk.setSupplier(testSupplier);
+        productRepository.save(milk);
+        Product cheese = new Product("Cheese", "ST-002", "7654321000102", new BigDecimal("3.50"), 10, 5);
+        cheese.setExpirationDate(LocalDate.now().minusDays(1));
+        cheese.setCategory(testCategory);
+        productRepository.save(cheese);
+        // On the expiring-soon boundary: a week out is no longer expiring soon, six days is
+        Product yogurt = new Product("Yogurt", "ST-003", "7654321000103", new BigDecimal("2.00"), 20, 5);
+        yogurt.setExpirationDate(LocalDate.now().plusDays(ProductService.EXPIRING_SOON_DAYS));
+        yogurt.setCategory(testCategory);
+        yogurt.setSupplier(testSupplier);
+        productRepository.save(yogurt);
+        Product cream = new Product("Cream", "ST-004", "7654321000104", new BigDecimal("1.00"), 3, 1);
+        cream.setExpirationDate(LocalDate.now().plusDays(ProductService.EXPIRING_SOON_DAYS - 1));
+        cream.setSupplier(testSupplier);
+        productRepository.save(cream);
+        entityManager.flush();
+        
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/categories/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].name", is("Empty Category")))
+                .andExpect(jsonPath("$[0].productCount", is(0)))
+                .andExpect(jsonPath("$[0].value", is(0)))
+                .andExpect(jsonPath("$[1].name", is("Test Category")))
+                .andExpect(jsonPath("$[1].productCount", is(3)))
+                .andExpect(jsonPath("$[1].units", is(34)))
+                .andExpect(jsonPath("$[1].value", is(80.0)))
+                .andExpect(jsonPath("$[1].lowStockCount", is(1)))
+                .andExpect(jsonPath("$[1].expiringCount", is(2)))
+                .andExpect(jsonPath("$[1].expiredCount", is(1)))
+                // Products without a category
+                .andExpect(jsonPath("$[2].id", nullValue()))
+                .andExpect(jsonPath("$[2].productCount", is(1)))
+                .andExpect(jsonPath("$[2].value", is(3.0)))
+                .andExpect(jsonPath("$[2].expiringCount", is(1)));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        
+        mockMvc.perform(get("/api/suppliers/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].name", is("Test Supplier")))
+                .andExpect(jsonPath("$[0].productCount", is(3)))
+                .andExpect(jsonPath("$[0].value", is(48.0)))
+                .andExpect(jsonPath("$[0].expiringCount", is(2)))
+                .andExpect(jsonPath("$[0].expiredCount", is(0)))
+                .andExpect(jsonPath("$[1].id", nullValue()))
+                .andExpect(jsonPath("$[1].productCount", is(1)))
+                .andExpect(jsonPath("$[1].expiringCount", is(1)))
+                .andExpect(jsonPath("$[1].expiredCount", is(1)));
+        
+        // The per-product flag draws the line in the same place
+        mockMvc.perform(get("/api/products/sku/{sku}", "ST-003"))
+                .andExpect(jsonPath("$.isExpiringSoon", is(false)));
+        mockMvc.perform(get("/api/products/sku/{sku}", "ST-004"))
+                .andExpect(jsonPath("$.isExpiringSoon", is(true)));
+    }
+    
+    private void assertStatementCount(long expected, RequestBuilder request, int expectedRows) throws Exception {
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        entityManager.clear();
+        statistics.clear();
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn();
+        String body = result.getResponse().getContentAsString();
+        assertEquals(expectedRows, body.split("\"supplierName\"", -1).length - 1, body);
+        assertEquals(expected, statistics.getPrepareStatementCount(), "SQL statements for " + body);
+    }
+    
     @Test
     void testUpdateProductStock() throws Exception {
         // Create a product
@@ -188,6 +577,34 @@ public class ProductControllerIntegrationTest {
                 .andExpect(jsonPath("$.stockQuantity", is(150)));
     }
     
+    @Test
+    void testBulkStockAdjustment_PerLineResults() throws Exception {
+        Product product = new Product("Bulk Product", "BULK-001", "3000000000001", new BigDecimal("2.00"), 10, 5);
+        product = productRepository.save(product);
+        
+        String lines = "[" +
+                "{\"sku\": \"BULK-001\", \"delta\": 15}," +
+                "{\"barcode\": \"3000000000001\", \"delta\": -30}," +
+                "{\"id\": " + product.getId() + ", \"quantity\": 40}," +
+                "{\"sku\": \"MISSING\", \"delta\": 1}," +
+                "{\"sku\": \"BULK-001\"}" +
+                "]";
+        
+        mockMvc.perform(post("/api/products/stock/bulk")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(lines))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded", is(2)))
+                .andExpect(jsonPath("$.failed", is(3)))
+                .andExpect(jsonPath("$.results[0].stockQuantity", is(25)))
+                .andExpect(jsonPath("$.results[1].status", is("FAILED")))
+                .andExpect(jsonPath("$.results[2].stockQuantity", is(40)))
+                .andExpect(jsonPath("$.results[3].error", containsString("not found")))
+                .andExpect(jsonPath("$.results[4].error", containsString("delta or quantity")));
+        
+        assertEquals(40, productRepository.findById(product.getId()).orElseThrow().getStockQuantity());
+    }
+    
     @Test
     void testDeleteProduct_Success() throws Exception {
         // Create a product
@@ -209,4 +626,11 @@ public class ProductControllerIntegrationTest {
         mockMvc.perform(get("/api/products/{id}", product.getId()))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+    
+    private void saveProduct(String name, String sku, int stock, Category category, Supplier supplier) {
+        Product product = new Product(name, sku, "4" + sku.substring(4) + "000000000", new BigDecimal("1.50"), stock, 5);
+        product.setCategory(category);
+        product.setSupplier(supplier);
+        productRepository.save(product);
+    }
+}
@@ -0,0 +1,80 @@
+package com.picnic.inventory.index;
+
+import com.picnic.inventory.dto.ProductCreateDTO;
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the expiration lists through committed service writes, which is how the calendar is
+ * kept up to date. Not transactional on purpose: the calendar only applies committed changes.
+ */
+@SpringBootTest(properties = "inventory.expiration-calendar.enabled=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@DirtiesContext
+public class ExpirationCalendarTest {
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ExpirationCalendar expirationCalendar;
+    
+    @Test
+    void testCalendarFollowsWritesAndSweeps() {
+        LocalDate today = LocalDate.now();
+        Long expiredId = createProduct("EXP-001", "8100000000001", today.minusDays(1)).getId();
+        Long soonId = createProduct("EXP-002", "8100000000002", today.plusDays(2)).getId();
+        Long laterId = createProduct("EXP-003", "8100000000003", today.plusDays(10)).getId();
+        createProduct("EXP-004", "8100000000004", null);
+        
+        assertTrue(expirationCalendar.isReady());
+        assertEquals(List.of(soonId), ids(productService.getProductsExpiringWithinDays(7)));
+        assertEquals(List.of(expiredId), ids(productService.getExpiredProducts()));
+        
+        // Changing the date moves the product to its new bucket
+        productService.updateProduct(laterId, createDTO("EXP-003", "8100000000003", today.plusDays(5)));
+        assertEquals(List.of(soonId, laterId), ids(productService.getProductsExpiringWithinDays(7)));
+        
+        productService.deleteProduct(soonId);
+        assertEquals(List.of(laterId), ids(productService.getProductsExpiringWithinDays(7)));
+        
+        // The midnight sweep moves every bucket dated before the new day into the expired bucket
+        expirationCalendar.advanceTo(today.plusDays(6));
+        assertEquals(List.of(expiredId, laterId), expirationCalendar.findExpired());
+    }
+    
+    private ProductResponseDTO createProduct(String sku, String barcode, LocalDate expirationDate) {
+        return productService.createProduct(createDTO(sku, barcode, expirationDate));
+    }
+    
+    private static ProductCreateDTO createDTO(String sku, String barcode, LocalDate expirationDate) {
+        ProductCreateDTO dto = new ProductCreateDTO();
+        dto.setName("Yogurt " + sku);
+        dto.setSku(sku);
+        dto.setBarcode(barcode);
+        dto.setPrice(new BigDecimal("0.99"));
+        dto.setStockQuantity(30);
+        dto.setMinStockLevel(5);
+        dto.setExpirationDate(expirationDate);
+        dto.setIsPerishable(true);
+        return dto;
+    }
+    
+    private static List<Long> ids(List<ProductResponseDTO> products) {
+        return products.stream().map(ProductResponseDTO::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,172 @@
+package com.picnic.inventory.index;
+
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives the index directly with a 1 MB budget and a clock the test moves. Transactions are
+ * simulated through TransactionSynchronizationManager, so admission on commit can be observed
+ * without a database.
+ */
+public class ProductLookupIndexTest {
+    
+    private final MovableClock clock = new MovableClock();
+    private final ProductLookupIndex index = new ProductLookupIndex(null, 1, false, clock);
+    
+    @Test
+    void testEntriesAreCopiedInAndOut() {
+        ProductResponseDTO admitted = product(1L, 20);
+        index.admit(admitted, index.stamp());
+        admitted.setStockQuantity(19);
+        index.findById(1L).orElseThrow().setStockQuantity(0);
+        
+        assertEquals(20, index.findBySku("SKU-1").orElseThrow().getStockQuantity());
+    }
+    
+    @Test
+    void testReadAdmissionStopsAtMemoryBudget() {
+        long id = 0;
+        while (index.getRejectedCount() == 0) {
+            index.admit(product(++id, 20), index.stamp());
+        }
+        assertEquals(id - 1, index.size());
+        assertTrue(index.getEstimatedBytes() <= index.getMemoryBudgetBytes());
+        assertTrue(index.findById(id).isEmpty());
+        
+        // A resident product written bigger than the room left is dropped, not kept over budget
+        ProductResponseDTO grown = product(1L, 20);
+        grown.setDescription("x".repeat(10_000));
+        index.onProductChanged(ProductChangedEvent.updated(product(1L, 20), grown));
+        assertTrue(index.findById(1L).isEmpty());
+        assertTrue(index.getEstimatedBytes() <= index.getMemoryBudgetBytes());
+    }
+    
+    @Test
+    void testCreatesDoNotGrowTheIndex() {
+        for (long id = 1; id <= 10_000; id++) {
+            index.onProductChanged(ProductChangedEvent.created(product(id, 20)));
+            index.onProductChanged(ProductChangedEvent.stockChanged(product(id, 20), product(id, 19)));
+        }
+        assertEquals(0, index.size());
+        assertEquals(0, index.getEstimatedBytes());
+        
+        // The next read admits them, under the budget
+        for (long id = 1; id <= 10_000; id++) {
+            index.admit(product(id, 19), index.stamp());
+        }
+        assertTrue(index.size() > 0);
+        assertTrue(index.getRejectedCount() > 0);
+        assertTrue(index.getEstimatedBytes() <= index.getMemoryBudgetBytes());
+    }
+    
+    @Test
+    void testWritesRefreshResidentEntries() {
+        index.admit(product(1L, 20), index.stamp());
+        index.onProductChanged(ProductChangedEvent.stockChanged(product(1L, 20), product(1L, 5)));
+        
+        assertEquals(5, index.findBySku("SKU-1").orElseThrow().getStockQuantity());
+        assertEquals(1, index.size());
+    }
+    
+    @Test
+    void testRowLoadedBeforeAWriteIsNotAdmitted() {
+        ProductResponseDTO loaded = product(1L, 20);
+        long stamp = index.stamp();
+        // The write commits while the reader is still converting its row
+        index.onProductChanged(ProductChangedEvent.stockChanged(loaded, product(1L, 5)));
+        index.admit(loaded, stamp);
+        
+        assertTrue(index.findById(1L).isEmpty());
+        assertEquals(1, index.getRejectedCount());
+        
+        index.admit(product(1L, 5), index.stamp());
+        stamp = index.stamp();
+        index.onProductChanged(ProductChangedEvent.deleted(product(1L, 5)));
+        index.admit(product(1L, 5), stamp);
+        assertTrue(index.findById(1L).isEmpty());
+    }
+    
+    @Test
+    void testEntriesBuiltOnAnEarlierDayAreMisses() {
+        index.admit(product(1L, 20), index.stamp());
+        assertTrue(index.findByBarcode("8700000000001").isPresent());
+        
+        clock.advance(Duration.ofDays(1));
+        assertTrue(index.findByBarcode("8700000000001").isEmpty());
+        assertEquals(1, index.getMissCount());
+        
+        index.admit(product(1L, 20), index.stamp());
+        assertTrue(index.findByBarcode("8700000000001").isPresent());
+    }
+    
+    @Test
+    void testAdmissionInsideATransactionWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.admit(product(1L, 20), index.stamp());
+            assertTrue(index.findById(1L).isEmpty());
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(index.findById(1L).isPresent());
+        
+        // Rolled back: afterCommit never runs
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            index.admit(product(2L, 20), index.stamp());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(index.findById(2L).isEmpty());
+    }
+    
+    private static ProductResponseDTO product(long id, int stock) {
+        ProductResponseDTO product = new ProductResponseDTO();
+        product.setId(id);
+        product.setName("Oat Milk " + id);
+        product.setSku("SKU-" + id);
+        product.setBarcode(String.format("87%011d", id));
+        product.setPrice(new BigDecimal("1.49"));
+        product.setStockQuantity(stock);
+        product.setMinStockLevel(10);
+        product.setIsLowStock(stock <= 10);
+        return product;
+    }
+    
+    private static final class MovableClock extends Clock {
+        
+        private Instant instant = Instant.parse("2024-03-10T12:00:00Z");
+        
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+        
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+        
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+        
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.picnic.inventory.index;
+
+import com.picnic.inventory.dto.ProductCreateDTO;
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import com.picnic.inventory.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives search through committed service writes, which is how the index is kept up to date.
+ * Not transactional on purpose: the index only applies committed changes.
+ */
+@SpringBootTest(properties = "inventory.search-index.enabled=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@DirtiesContext
+public class ProductSearchIndexTest {
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ProductSearchIndex searchIndex;
+    
+    @Test
+    void testSearchRanksFollowsWritesAndPages() {
+        Long wholeMilk = createProduct("Whole Milk", "DAI-001", null).getId();
+        Long chocolateMilk = createProduct("Chocolate Milk Drink", "DAI-002", null).getId();
+        Long oatDrink = createProduct("Oat Drink", "VEG-001", "Creamy alternative to milk").getId();
+        Long buttermilk = createProduct("Buttermilk", "DAI-003", null).getId();
+        
+        assertTrue(searchIndex.isReady());
+        // Word matches in the name first, then inside a word, then the description
+        assertEquals(List.of(chocolateMilk, wholeMilk, buttermilk, oatDrink), search("milk", 50, 0));
+        assertEquals(List.of(chocolateMilk, oatDrink), search("MILK drink", 50, 0));
+        assertEquals(List.of(buttermilk, chocolateMilk, wholeMilk), search("dai-00", 50, 0));
+        assertEquals(List.of(buttermilk), search("dai-003", 50, 0));
+        assertEquals(List.of(oatDrink), search("oa", 50, 0));
+        assertEquals(List.of(chocolateMilk, wholeMilk), ids(productService.searchProducts("mlk", 50, 0, true).getContent()));
+        
+        Page<ProductResponseDTO> secondPage = productService.searchProducts("milk", 2, 1, false);
+        assertEquals(List.of(buttermilk, oatDrink), ids(secondPage.getContent()));
+        assertEquals(4, secondPage.getTotalElements());
+        
+        productService.updateProduct(oatDrink, createDTO("Oat Beverage", "VEG-001", null));
+        productService.deleteProduct(wholeMilk);
+        assertEquals(List.of(chocolateMilk, buttermilk), search("milk", 50, 0));
+        assertEquals(List.of(oatDrink), search("beverage", 50, 0));
+        assertEquals(List.of(), search("drink oat", 50, 0));
+    }
+    
+    @Test
+    void testCompactionKeepsLiveDocuments() {
+        ProductSearchIndex index = new ProductSearchIndex(null, true);
+        for (long id = 1; id <= 2000; id++) {
+            index.onProductChanged(ProductChangedEvent.created(document(id, "Apple " + id)));
+        }
+        // Renaming every product leaves a tombstone each, which triggers compaction
+        for (long id = 1; id <= 2000; id++) {
+            index.onProductChanged(ProductChangedEvent.updated(document(id, "Apple " + id), document(id, "Pear " + id)));
+        }
+        
+        assertEquals(2000, index.size());
+        assertEquals(0, index.search("apple", 0, 10).total());
+        assertEquals(2000, index.search("pear", 0, 10).total());
+        assertEquals(List.of(1234L), index.search("pear 1234", 0, 10).productIds());
+    }
+    
+    @Test
+    void testShortWordsMatchWordStartsOnEitherSideOfTheCandidateThreshold() {
+        // The second word is checked against the first word's matches when there are at most 64
+        for (int products : new int[] {64, 65}) {
+            ProductSearchIndex index = new ProductSearchIndex(null, true);
+            for (long id = 1; id <= products; id++) {
+                index.onProductChanged(ProductChangedEvent.created(document(id, "Oat Milk " + id)));
+            }
+            
+            assertEquals(products, index.search("oat mi", 0, 100).total());
+            assertEquals(0, index.search("oat lk", 0, 100).total());
+            assertEquals(products, index.search("oat ilk", 0, 100).total());
+        }
+    }
+    
+    @Test
+    void testPagesComeFromTheFullRanking() {
+        ProductSearchIndex index = new ProductSearchIndex(null, true);
+        for (long id = 1; id <= 30; id++) {
+            index.onProductChanged(ProductChangedEvent.created(document(id, "Tea " + (char) ('z' - id % 26) + id)));
+        }
+        List<Long> all = index.search("tea", 0, 30).productIds();
+        
+        assertEquals(30, all.size());
+        assertEquals(all.subList(10, 20), index.search("tea", 10, 10).productIds());
+        assertEquals(all.subList(25, 30), index.search("tea", 25, 10).productIds());
+        assertEquals(List.of(), index.search("tea", 30, 10).productIds());
+        assertEquals(30, index.search("tea", 30, 10).total());
+    }
+    
+    @Test
+    void testFuzzySearch_RanksByDistanceThenPopularity() {
+        ProductSearchIndex index = new ProductSearchIndex(null, true);
+        index.onProductChanged(ProductChangedEvent.created(document(1L, "Banana")));
+        index.onProductChanged(ProductChangedEvent.created(document(2L, "Banana Chips")));
+        index.onProductChanged(ProductChangedEvent.created(document(3L, "Cheddar Cheese")));
+        index.onProductChanged(ProductChangedEvent.created(document(4L, "Mature Cheddar")));
+        index.onProductChanged(ProductChangedEvent.created(document(5L, "Pork Chops")));
+        
+        assertEquals(List.of(1L, 2L), index.searchFuzzy("banan", 0, 10).productIds());
+        assertEquals(List.of(3L, 4L), index.searchFuzzy("chedar", 0, 10).productIds());
+        assertEquals(List.of(3L), index.searchFuzzy("chedar chese", 0, 10).productIds());
+        assertEquals(List.of(), index.search("chedar", 0, 10).productIds());
+        
+        // Picks break ties between equally close products, but never outrank a closer match
+        index.onProductChanged(ProductChangedEvent.stockChanged(withStock(document(2L, "Banana Chips"), 10),
+                withStock(document(2L, "Banana Chips"), 9)));
+        index.onProductChanged(ProductChangedEvent.stockChanged(withStock(document(5L, "Pork Chops"), 10),
+                withStock(document(5L, "Pork Chops"), 8)));
+        assertEquals(List.of(2L, 1L), index.searchFuzzy("banan", 0, 10).productIds());
+        assertEquals(List.of(2L, 5L), index.searchFuzzy("chips", 0, 10).productIds());
+    }
+    
+    private List<Long> search(String query, int limit, int page) {
+        return ids(productService.searchProducts(query, limit, page, false).getContent());
+    }
+    
+    private ProductResponseDTO createProduct(String name, String sku, String description) {
+        return productService.createProduct(createDTO(name, sku, description));
+    }
+    
+    private static ProductCreateDTO createDTO(String name, String sku, String description) {
+        ProductCreateDTO dto = new ProductCreateDTO();
+        dto.setName(name);
+        dto.setSku(sku);
+        dto.setDescription(description);
+        dto.setBarcode("80000" + sku.replaceAll("\\D", "") + sku.charAt(0));
+        dto.setPrice(new BigDecimal("1.49"));
+        dto.setStockQuantity(20);
+        dto.setMinStockLevel(5);
+        return dto;
+    }
+    
+    private static ProductResponseDTO document(long id, String name) {
+        ProductResponseDTO product = new ProductResponseDTO();
+        product.setId(id);
+        product.setName(name);
+        product.setSku("FRU-" + id);
+        return product;
+    }
+    
+    private static ProductResponseDTO withStock(ProductResponseDTO product, int stockQuantity) {
+        product.setStockQuantity(stockQuantity);
+        return product;
+    }
+    
+    private static List<Long> ids(List<ProductResponseDTO> products) {
+        return products.stream().map(ProductResponseDTO::getId).collect(Collectors.toList());
+    }
+}
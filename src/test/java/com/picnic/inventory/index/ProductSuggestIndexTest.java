@@ -0,0 +1,138 @@
+package com.picnic.inventory.index;
+
+import com.picnic.inventory.dto.ProductCreateDTO;
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.dto.ProductSuggestionDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import com.picnic.inventory.repository.ProductRepository;
+import com.picnic.inventory.repository.ProductSpecifications;
+import com.picnic.inventory.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives suggestions through committed service writes, which is how the trie is kept up to date.
+ * Not transactional on purpose: the trie only applies committed changes.
+ */
+@SpringBootTest(properties = "inventory.suggest-index.enabled=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@DirtiesContext
+public class ProductSuggestIndexTest {
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ProductSuggestIndex suggestIndex;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Test
+    void testSuggestByNameSkuAndBarcodePrefix() {
+        Long apples = createProduct("Apples", "FRU-100", "8710000000017").getId();
+        Long apricots = createProduct("Apricots", "FRU-101", "8710000000024").getId();
+        Long applePie = createProduct("Apple Pie", "BAK-100", "8720000000016").getId();
+        
+        assertTrue(suggestIndex.isReady());
+        assertEquals(List.of(applePie, apples, apricots), suggest("AP", 10));
+        assertEquals(List.of(applePie, apples), suggest("apple", 10));
+        assertEquals(List.of(apples, apricots), suggest("fru-10", 10));
+        assertEquals(List.of(apples), suggest("87100000000", 1));
+        assertEquals(List.of(), suggest("banana", 10));
+        
+        productService.updateProduct(apricots, createDTO("Bananas", "FRU-101", "8710000000024"));
+        productService.deleteProduct(applePie);
+        assertEquals(List.of(apples), suggest("ap", 10));
+        assertEquals(List.of(apricots), suggest("banana", 10));
+        
+        assertTrue(meterRegistry.get("inventory.suggest.latency").timer().count() > 0);
+        assertEquals(6, meterRegistry.get("inventory.suggest.entries").gauge().value());
+        assertTrue(meterRegistry.get("inventory.suggest.bytes.per.entry").gauge().value() > 0);
+    }
+    
+    @Test
+    void testRemovalMergesEdgesBack() {
+        ProductSuggestIndex index = new ProductSuggestIndex(null, new SimpleMeterRegistry(), true);
+        index.onProductChanged(ProductChangedEvent.created(document(1L, "Milk", "DAI-1")));
+        index.onProductChanged(ProductChangedEvent.created(document(2L, "Milkshake", "DAI-2")));
+        index.onProductChanged(ProductChangedEvent.created(document(3L, "Mint", "DAI-3")));
+        
+        index.onProductChanged(ProductChangedEvent.deleted(document(1L, "Milk", "DAI-1")));
+        assertEquals(List.of(2L, 3L), index.suggest("mi", 10).stream().map(ProductSuggestionDTO::getId).toList());
+        assertEquals(List.of(2L), index.suggest("milks", 10).stream().map(ProductSuggestionDTO::getId).toList());
+        
+        index.onProductChanged(ProductChangedEvent.deleted(document(3L, "Mint", "DAI-3")));
+        assertEquals(List.of(2L), index.suggest("m", 10).stream().map(ProductSuggestionDTO::getId).toList());
+        assertEquals(List.of(2L), index.suggest("dai", 10).stream().map(ProductSuggestionDTO::getId).toList());
+        assertEquals(2, index.entries());
+    }
+    
+    @Test
+    void testDatabaseFallbackMatchesTheTrie() {
+        Long percent = createProduct("50% Cream", "DAI-500", "8730000000015").getId();
+        Long butter = createProduct("500g Butter", "DAI-501", "8730000000022").getId();
+        Long sameName = createProduct("500g Butter", "DAI-502", "8730000000039").getId();
+        Long underscore = createProduct("5_Pack Eggs", "EGG-500", "8730000000046").getId();
+        // Re-added to its trie nodes after the product created later
+        productService.updateProduct(butter, createDTO("500g Butter", "DAI-501", "8730000000022"));
+        
+        for (String prefix : List.of("5", "50", "50%", "5_", "500g", "dai-50", "8730000000")) {
+            List<Long> trie = suggest(prefix, 10);
+            List<Long> database = productRepository.findSuggestions(
+                            ProductSpecifications.escapeLike(prefix) + "%", PageRequest.of(0, 10)).stream()
+                    .map(ProductSuggestionDTO::getId)
+                    .collect(Collectors.toList());
+            assertEquals(trie, database, prefix);
+        }
+        assertEquals(List.of(percent, butter, sameName, underscore), suggest("5", 10));
+        assertEquals(List.of(percent), suggest("50%", 10));
+        assertEquals(List.of(underscore), suggest("5_", 10));
+    }
+    
+    private List<Long> suggest(String prefix, int limit) {
+        return productService.suggestProducts(prefix, limit).stream()
+                .map(ProductSuggestionDTO::getId)
+                .collect(Collectors.toList());
+    }
+    
+    private ProductResponseDTO createProduct(String name, String sku, String barcode) {
+        return productService.createProduct(createDTO(name, sku, barcode));
+    }
+    
+    private static ProductCreateDTO createDTO(String name, String sku, String barcode) {
+        ProductCreateDTO dto = new ProductCreateDTO();
+        dto.setName(name);
+        dto.setSku(sku);
+        dto.setBarcode(barcode);
+        dto.setPrice(new BigDecimal("2.49"));
+        dto.setStockQuantity(40);
+        dto.setMinStockLevel(5);
+        return dto;
+    }
+    
+    private static ProductResponseDTO document(Long id, String name, String sku) {
+        ProductResponseDTO product = new ProductResponseDTO();
+        product.setId(id);
+        product.setName(name);
+        product.setSku(sku);
+        return product;
+    }
+}
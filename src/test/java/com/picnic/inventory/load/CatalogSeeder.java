@@ -0,0 +1,131 @@
+package com.picnic.inventory.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picnic.inventory.dto.BatchItemResultDTO;
+import com.picnic.inventory.dto.BatchResultDTO;
+import com.picnic.inventory.dto.ProductCreateDTO;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seeds the load generators' catalog through the REST API: categories, suppliers, then products
+ * in chunks through the batch endpoint. Every other product is perishable with an expiration date
+ * spread around today, and stock levels leave a share of the catalog low on stock.
+ */
+final class CatalogSeeder {
+    
+    static final String[] NOUNS = {
+        "Milk", "Cheddar", "Banana", "Yogurt", "Bread", "Apple", "Salmon", "Coffee", "Butter", "Tomato",
+        "Spinach", "Almonds", "Chicken", "Pasta", "Water", "Orange", "Lettuce", "Cereal", "Honey", "Rice"
+    };
+    static final int CATEGORIES = 50;
+    
+    private static final String[] ADJECTIVES = {
+        "Fresh", "Organic", "Whole", "Smoked", "Aged", "Greek", "Sparkling", "Frozen", "Roasted", "Salted"
+    };
+    private static final int SEED_CHUNK_SIZE = 1000;
+    private static final int SUPPLIERS = 20;
+    private static final long MAX_PRODUCTS = 10_000_000;
+    
+    record Catalog(List<Long> productIds, List<String> barcodes) {}
+    
+    private final HttpClient client;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    
+    CatalogSeeder(HttpClient client, ObjectMapper objectMapper, String baseUrl) {
+        this.client = client;
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl;
+    }
+    
+    Catalog seed(int products) throws IOException, InterruptedException {
+        if (products > MAX_PRODUCTS) {
+            throw new IllegalArgumentException("At most " + MAX_PRODUCTS + " products can be seeded");
+        }
+        long started = System.nanoTime();
+        // Unique per run so an already running server can be seeded more than once
+        long run = System.currentTimeMillis() / 1000 % 10_000;
+        List<Long> categoryIds = new ArrayList<>();
+        for (int i = 0; i < CATEGORIES; i++) {
+            categoryIds.add(createReference("/api/categories", Map.of("name", "Category " + run + "-" + i)));
+        }
+        List<Long> supplierIds = new ArrayList<>();
+        for (int i = 0; i < SUPPLIERS; i++) {
+            supplierIds.add(createReference("/api/suppliers",
+                    Map.of("name", "Supplier " + i, "email", "supplier" + i + "." + run + "@load.test")));
+        }
+        
+        List<Long> productIds = new ArrayList<>();
+        List<String> barcodes = new ArrayList<>();
+        for (int from = 0; from < products; from += SEED_CHUNK_SIZE) {
+            List<ProductCreateDTO> chunk = new ArrayList<>(SEED_CHUNK_SIZE);
+            for (int i = from; i < Math.min(from + SEED_CHUNK_SIZE, products); i++) {
+                ProductCreateDTO dto = createDTO(i, "LOAD-" + run + "-", barcode('2', run * MAX_PRODUCTS + i));
+                dto.setStockQuantity(i % 200);
+                if (i % 2 == 0) {
+                    dto.setExpirationDate(LocalDate.now().plusDays(i % 60 - 10));
+                    dto.setIsPerishable(true);
+                }
+                dto.setCategoryId(categoryIds.get(i % categoryIds.size()));
+                dto.setSupplierId(supplierIds.get(i % supplierIds.size()));
+                chunk.add(dto);
+            }
+            HttpResponse<String> response = client.send(post("/api/products/batch", chunk),
+                    HttpResponse.BodyHandlers.ofString());
+            BatchResultDTO result = objectMapper.readValue(response.body(), BatchResultDTO.class);
+            for (BatchItemResultDTO item : result.getResults()) {
+                if (item.getId() != null) {
+                    productIds.add(item.getId());
+                    barcodes.add(chunk.get(item.getIndex()).getBarcode());
+                }
+            }
+        }
+        if (productIds.isEmpty()) {
+            throw new IllegalStateException("Seeding created no products");
+        }
+        System.out.printf("Seeded %d products in %d ms%n", productIds.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return new Catalog(productIds, barcodes);
+    }
+    
+    static ProductCreateDTO createDTO(long i, String skuPrefix, String barcode) {
+        ProductCreateDTO dto = new ProductCreateDTO();
+        dto.setName(ADJECTIVES[(int) (i % ADJECTIVES.length)] + " " + NOUNS[(int) (i / ADJECTIVES.length % NOUNS.length)] + " " + i);
+        dto.setSku(skuPrefix + i);
+        dto.setBarcode(barcode);
+        dto.setPrice(BigDecimal.valueOf(50 + i % 2000, 2));
+        dto.setStockQuantity(100);
+        dto.setMinStockLevel(20);
+        return dto;
+    }
+    
+    static String barcode(char prefix, long i) {
+        return prefix + String.format("%012d", i);
+    }
+    
+    private Long createReference(String path, Map<String, String> body) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(post(path, body), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("Seeding " + path + " failed with status " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body()).get("id").asLong();
+    }
+    
+    private HttpRequest post(String path, Object body) throws IOException {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+}
@@ -0,0 +1,379 @@
+package com.picnic.inventory.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picnic.inventory.SmartGroceryInventoryApplication;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Replays a store-floor traffic mix against the app started on the demo H2 profile. Not a test:
+ * run through the load profile in pom.xml.
+ * <p>
+ * The catalog is seeded by {@link CatalogSeeder}. Requests then arrive on a Poisson schedule at
+ * a fixed rate (open model), each on its own virtual thread, whether or not earlier requests
+ * have returned. Latency is measured from the scheduled start, so time spent queued behind a
+ * slow server counts. Per-endpoint p50/p95/p99/max and error rate are printed at the end and the
+ * full HDR histograms are written next to them as .hgrm files.
+ * <p>
+ * {@code --threads} picks the server's request threads: platform (Tomcat's pool), virtual, or
+ * both, which runs the same schedule against a fresh app in each mode and compares them.
+ */
+public class InventoryLoadGenerator {
+    
+    private static final String DEFAULT_MIX = "scan:40,stock:20,search:15,list:10,expiring:5,low-stock:5,create:5";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final List<String> THREAD_MODES = List.of("platform", "virtual");
+    
+    // Latencies are recorded in microseconds and reported in milliseconds
+    private static final double MICROS_PER_MILLI = 1000.0;
+    
+    private final Map<String, String> options;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+    private final Path output;
+    
+    private List<Long> productIds;
+    private List<String> barcodes;
+    private final AtomicLong createdProducts = new AtomicLong();
+    
+    private InventoryLoadGenerator(Map<String, String> options, HttpClient client,
+                                   ObjectMapper objectMapper, String baseUrl, Path output) {
+        this.options = options;
+        this.client = client;
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl;
+        this.output = output;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String threads = options.getOrDefault("threads", "platform");
+        List<String> modes = "both".equals(threads) ? THREAD_MODES : List.of(threads);
+        if (!THREAD_MODES.containsAll(modes)) {
+            throw new IllegalArgumentException("Expected --threads=platform, virtual or both but got '" + threads + "'");
+        }
+        Path output = Path.of(options.getOrDefault("output", "target/load"));
+        
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (String mode : modes) {
+            System.out.printf("%n== %s request threads ==%n", mode);
+            results.put(mode, runAgainstNewApplication(options, mode, modes.size() > 1 ? output.resolve(mode) : output));
+        }
+        if (results.size() > 1) {
+            System.out.printf("%n%-10s %10s %8s %10s %10s %10s %10s%n",
+                    "threads", "req/s", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms");
+            results.forEach((mode, result) -> printRow(mode, result.achievedRate(), result.latency(), result.errors()));
+        }
+    }
+    
+    private static Result runAgainstNewApplication(Map<String, String> options, String mode, Path output) throws Exception {
+        // The client keeps its own executor: the request threads' executor is shut down to drain them
+        try (ConfigurableApplicationContext context = startApplication("virtual".equals(mode));
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(5))
+                     .build();
+             ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            InventoryLoadGenerator generator = new InventoryLoadGenerator(options, client,
+                    context.getBean(ObjectMapper.class), "http://localhost:" + port, output);
+            generator.seed(intOption(options, "products", 10000));
+            return generator.run(virtualThreads);
+        }
+    }
+    
+    private static ConfigurableApplicationContext startApplication(boolean virtualThreads) {
+        // Command-line arguments so they override application-demo.properties
+        return new SpringApplicationBuilder(SmartGroceryInventoryApplication.class)
+                .profiles("demo")
+                .logStartupInfo(false)
+                .run("--server.port=0",
+                        "--inventory.reactive.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.picnic.inventory=WARN",
+                        "--logging.level.org.springframework.web=WARN");
+    }
+    
+    private void seed(int products) throws IOException, InterruptedException {
+        CatalogSeeder.Catalog catalog = new CatalogSeeder(client, objectMapper, baseUrl).seed(products);
+        productIds = catalog.productIds();
+        barcodes = catalog.barcodes();
+    }
+    
+    private Result run(ExecutorService virtualThreads) throws IOException {
+        double rate = doubleOption(options, "rate", 200);
+        int warmupSeconds = intOption(options, "warmup", 10);
+        int durationSeconds = intOption(options, "duration", 60);
+        String mixOption = options.getOrDefault("mix", DEFAULT_MIX);
+        List<Endpoint> mix = parseMix(mixOption);
+        int totalWeight = mix.stream().mapToInt(Endpoint::weight).sum();
+        
+        System.out.printf("Offering %.0f req/s for %d s (after %d s warm-up): %s%n",
+                rate, durationSeconds, warmupSeconds, mixOption);
+        
+        SplittableRandom random = new SplittableRandom(42);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long next = start;
+        long measuredRequests = 0;
+        while (next < end) {
+            // Exponential gaps give Poisson arrivals at the offered rate
+            next += (long) (-Math.log(1 - random.nextDouble()) / rate * TimeUnit.SECONDS.toNanos(1));
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            
+            Endpoint endpoint = pick(mix, totalWeight, random);
+            HttpRequest request = endpoint.request.apply(random);
+            long scheduled = next;
+            boolean measured = scheduled >= measureFrom;
+            if (measured) {
+                measuredRequests++;
+            }
+            virtualThreads.execute(() -> send(endpoint, request, scheduled, measured));
+        }
+        long dispatched = System.nanoTime();
+        
+        // Let in-flight requests finish before reading the histograms
+        virtualThreads.shutdown();
+        try {
+            if (!virtualThreads.awaitTermination(REQUEST_TIMEOUT.toSeconds() + 5, TimeUnit.SECONDS)) {
+                System.out.println("Some requests were still in flight when the run ended");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        double achieved = measuredRequests / ((dispatched - measureFrom) / 1e9);
+        return report(mix, achieved);
+    }
+    
+    private void send(Endpoint endpoint, HttpRequest request, long scheduled, boolean measured) {
+        String failure = null;
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() >= 400) {
+                failure = "HTTP " + response.statusCode();
+            }
+        } catch (IOException e) {
+            failure = e.toString();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (measured) {
+            endpoint.latency.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled)));
+            if (failure != null) {
+                endpoint.errors.incrementAndGet();
+                endpoint.firstFailure.compareAndSet(null, failure);
+            }
+        }
+    }
+    
+    private Result report(List<Endpoint> mix, double achievedRate) throws IOException {
+        Files.createDirectories(output);
+        
+        System.out.printf("%nMeasured arrival rate: %.1f req/s%n", achievedRate);
+        System.out.printf("%-10s %9s %8s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        Histogram all = new Histogram(3);
+        long allErrors = 0;
+        for (Endpoint endpoint : mix) {
+            Histogram histogram = endpoint.latency.getIntervalHistogram();
+            long errors = endpoint.errors.get();
+            printRow(endpoint.name, histogram, errors);
+            writeHistogram(output.resolve(endpoint.name + ".hgrm"), histogram);
+            all.add(histogram);
+            allErrors += errors;
+        }
+        printRow("all", all, allErrors);
+        for (Endpoint endpoint : mix) {
+            if (endpoint.firstFailure.get() != null) {
+                System.out.printf("First %s failure: %s%n", endpoint.name, endpoint.firstFailure.get());
+            }
+        }
+        writeHistogram(output.resolve("all.hgrm"), all);
+        System.out.println("HDR histograms written to " + output.toAbsolutePath());
+        return new Result(achievedRate, all, allErrors);
+    }
+    
+    private static void printRow(String name, Histogram histogram, long errors) {
+        long count = histogram.getTotalCount();
+        System.out.printf("%-10s %9d %7.2f%% %10.2f %10.2f %10.2f %10.2f%n", name, count,
+                errorRate(histogram, errors),
+                histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(95) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                histogram.getMaxValue() / MICROS_PER_MILLI);
+    }
+    
+    private static void printRow(String name, double rate, Histogram histogram, long errors) {
+        System.out.printf("%-10s %10.1f %7.2f%% %10.2f %10.2f %10.2f %10.2f%n", name, rate,
+                errorRate(histogram, errors),
+                histogram.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(95) / MICROS_PER_MILLI,
+                histogram.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                histogram.getMaxValue() / MICROS_PER_MILLI);
+    }
+    
+    private static double errorRate(Histogram histogram, long errors) {
+        long count = histogram.getTotalCount();
+        return count == 0 ? 0.0 : 100.0 * errors / count;
+    }
+    
+    private static void writeHistogram(Path file, Histogram histogram) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+    
+    private List<Endpoint> parseMix(String mix) {
+        Map<String, Function<SplittableRandom, HttpRequest>> requests = new HashMap<>();
+        requests.put("scan", random -> get("/api/products/barcode/" + barcodes.get(random.nextInt(barcodes.size()))));
+        requests.put("stock", random -> patch("/api/products/" + productIds.get(random.nextInt(productIds.size())) + "/stock",
+                Map.of("quantity", random.nextInt(200))));
+        requests.put("search", random -> get("/api/products/search?limit=20&name="
+                + URLEncoder.encode(CatalogSeeder.NOUNS[random.nextInt(CatalogSeeder.NOUNS.length)].toLowerCase(), StandardCharsets.UTF_8)));
+        requests.put("list", random -> get("/api/products?size=50&sort=name&categoryId=" + (1 + random.nextInt(CatalogSeeder.CATEGORIES))));
+        requests.put("expiring", random -> get("/api/products/expiring?days=7"));
+        requests.put("low-stock", random -> get("/api/products/low-stock"));
+        requests.put("create", random -> {
+            long i = createdProducts.incrementAndGet();
+            return post("/api/products", CatalogSeeder.createDTO(i, "LOAD-NEW-", CatalogSeeder.barcode('3', i)));
+        });
+        
+        Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            Function<SplittableRandom, HttpRequest> request = requests.get(parts[0]);
+            if (parts.length != 2 || request == null) {
+                throw new IllegalArgumentException("Invalid mix entry '" + entry + "'; expected one of "
+                        + requests.keySet() + " followed by :weight");
+            }
+            int weight = Integer.parseInt(parts[1]);
+            if (weight > 0) {
+                endpoints.put(parts[0], new Endpoint(parts[0], weight, request));
+            }
+        }
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("Mix must give at least one endpoint a positive weight");
+        }
+        return new ArrayList<>(endpoints.values());
+    }
+    
+    private static Endpoint pick(List<Endpoint> mix, int totalWeight, SplittableRandom random) {
+        int ticket = random.nextInt(totalWeight);
+        for (Endpoint endpoint : mix) {
+            ticket -= endpoint.weight;
+            if (ticket < 0) {
+                return endpoint;
+            }
+        }
+        return mix.get(mix.size() - 1);
+    }
+    
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+    }
+    
+    private HttpRequest post(String path, Object body) {
+        return withBody(path, "POST", body);
+    }
+    
+    private HttpRequest patch(String path, Object body) {
+        return withBody(path, "PATCH", body);
+    }
+    
+    private HttpRequest withBody(String path, String method, Object body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got '" + arg + "'");
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+    
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+    
+    private static double doubleOption(Map<String, String> options, String name, double defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+    
+    private record Result(double achievedRate, Histogram latency, long errors) {}
+    
+    private static final class Endpoint {
+        private final String name;
+        private final int weight;
+        private final Function<SplittableRandom, HttpRequest> request;
+        private final Recorder latency = new Recorder(3);
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicReference<String> firstFailure = new AtomicReference<>();
+        
+        private Endpoint(String name, int weight, Function<SplittableRandom, HttpRequest> request) {
+            this.name = name;
+            this.weight = weight;
+            this.request = request;
+        }
+        
+        private int weight() {
+            return weight;
+        }
+    }
+}
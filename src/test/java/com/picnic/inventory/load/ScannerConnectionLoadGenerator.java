@@ -0,0 +1,353 @@
+package com.picnic.inventory.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picnic.inventory.SmartGroceryInventoryApplication;
+import com.picnic.inventory.reactive.ReactiveProductServer;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds many scanner connections open against the barcode lookup and reports what they cost the
+ * server: open connections, live platform threads, busy request threads and database connections
+ * in use, sampled every second from the actuator metrics endpoint. Not a test: run through the
+ * scanner-load profile in pom.xml.
+ * <p>
+ * Each client is a virtual thread with its own keep-alive socket that scans a random barcode,
+ * waits an exponentially distributed think time and scans again, reconnecting if the server
+ * closes the connection. {@code --target} picks the reactive scanner API, the servlet API or both
+ * in turn. Without {@code --url} the app is started in this JVM on the demo profile, whose thread
+ * counts then include the clients' carrier threads; for 10k clients run the app on its own (each
+ * connection takes a file descriptor on both sides) and pass its servlet and scanner URLs.
+ */
+public class ScannerConnectionLoadGenerator {
+    
+    private static final List<String> TARGETS = List.of("reactive", "servlet");
+    private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+    private static final int READ_TIMEOUT_MILLIS = 30_000;
+    // A saturated servlet container queues the metrics requests too; show those samples as "-"
+    private static final Duration METRICS_TIMEOUT = Duration.ofMillis(200);
+    
+    // Server-side gauges sampled during the run, by column heading
+    private static final Map<String, String> SERVER_METRICS = new LinkedHashMap<>();
+    static {
+        SERVER_METRICS.put("threads", "jvm.threads.live");
+        SERVER_METRICS.put("netty-conns", "inventory.reactive.connections");
+        SERVER_METRICS.put("tomcat-conns", "tomcat.connections.current");
+        SERVER_METRICS.put("tomcat-busy", "tomcat.threads.busy");
+        SERVER_METRICS.put("r2dbc-used", "r2dbc.pool.acquired");
+        SERVER_METRICS.put("jdbc-used", "hikaricp.connections.active");
+    }
+    
+    private static final double MICROS_PER_MILLI = 1000.0;
+    
+    private final HttpClient metricsClient;
+    private final ObjectMapper objectMapper;
+    private final String servletUrl;
+    private final List<String> barcodes;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicInteger connected = new AtomicInteger();
+    private final AtomicLong scans = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicReference<String> firstFailure = new AtomicReference<>();
+    private final Recorder latency = new Recorder(3);
+    
+    private ScannerConnectionLoadGenerator(HttpClient metricsClient, ObjectMapper objectMapper,
+                                           String servletUrl, List<String> barcodes) {
+        this.metricsClient = metricsClient;
+        this.objectMapper = objectMapper;
+        this.servletUrl = servletUrl;
+        this.barcodes = barcodes;
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String target = options.getOrDefault("target", "reactive");
+        List<String> targets = "both".equals(target) ? TARGETS : List.of(target);
+        if (!TARGETS.containsAll(targets)) {
+            throw new IllegalArgumentException("Expected --target=reactive, servlet or both but got '" + target + "'");
+        }
+        
+        ConfigurableApplicationContext context = null;
+        String servletUrl = options.get("url");
+        String scannerUrl = options.get("scanner-url");
+        if (servletUrl == null) {
+            context = startApplication();
+            servletUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+            scannerUrl = "http://localhost:" + context.getBean(ReactiveProductServer.class).getPort();
+        } else if (scannerUrl == null) {
+            URI servlet = URI.create(servletUrl);
+            scannerUrl = servlet.getScheme() + "://" + servlet.getHost() + ":8081";
+        }
+        
+        try (HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build()) {
+            ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+            List<String> barcodes = new CatalogSeeder(client, objectMapper, servletUrl)
+                    .seed(intOption(options, "products", 10000)).barcodes();
+            for (String each : targets) {
+                ScannerConnectionLoadGenerator generator =
+                        new ScannerConnectionLoadGenerator(client, objectMapper, servletUrl, barcodes);
+                System.out.printf("%n== %s scanner API ==%n", each);
+                generator.run(URI.create("reactive".equals(each) ? scannerUrl : servletUrl),
+                        intOption(options, "clients", 10000),
+                        intOption(options, "think", 5000),
+                        intOption(options, "ramp", 20),
+                        intOption(options, "duration", 60));
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+    
+    private static ConfigurableApplicationContext startApplication() {
+        // Command-line arguments so they override application-demo.properties
+        return new SpringApplicationBuilder(SmartGroceryInventoryApplication.class)
+                .profiles("demo")
+                .logStartupInfo(false)
+                .run("--server.port=0",
+                        "--inventory.reactive.port=0",
+                        "--server.tomcat.mbeanregistry.enabled=true",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.picnic.inventory=WARN",
+                        "--logging.level.org.springframework.web=WARN");
+    }
+    
+    private void run(URI target, int clients, int thinkMillis, int rampSeconds, int durationSeconds) throws Exception {
+        System.out.printf("%d clients against %s, one scan per %d ms each on average, ramped over %d s, held %d s%n",
+                clients, target, thinkMillis, rampSeconds, durationSeconds);
+        System.out.printf("%6s %9s %8s %7s %10s", "time s", "clients", "scans/s", "errors", "p99 ms");
+        SERVER_METRICS.keySet().forEach(heading -> System.out.printf(" %12s", heading));
+        System.out.println();
+        
+        running.set(true);
+        Map<String, Double> peaks = new LinkedHashMap<>();
+        Histogram total = new Histogram(3);
+        try (ExecutorService virtualThreads = Executors.newVirtualThreadPerTaskExecutor()) {
+            long start = System.nanoTime();
+            long rampNanos = TimeUnit.SECONDS.toNanos(rampSeconds);
+            for (int i = 0; i < clients; i++) {
+                long startAt = start + rampNanos * i / clients;
+                virtualThreads.execute(() -> scanner(target, startAt, thinkMillis));
+            }
+            
+            long lastScans = 0;
+            long end = start + TimeUnit.SECONDS.toNanos(rampSeconds + durationSeconds);
+            for (int second = 1; System.nanoTime() < end; second++) {
+                Thread.sleep(Math.max(0, TimeUnit.NANOSECONDS.toMillis(start + TimeUnit.SECONDS.toNanos(second) - System.nanoTime())));
+                Histogram interval = latency.getIntervalHistogram();
+                total.add(interval);
+                long currentScans = scans.get();
+                System.out.printf("%6d %9d %8d %7d %10.2f", second, connected.get(), currentScans - lastScans,
+                        errors.get(), interval.getValueAtPercentile(99) / MICROS_PER_MILLI);
+                lastScans = currentScans;
+                for (Map.Entry<String, String> metric : SERVER_METRICS.entrySet()) {
+                    Double value = serverMetric(metric.getValue());
+                    System.out.printf(" %12s", value == null ? "-" : String.format("%.0f", value));
+                    if (value != null) {
+                        peaks.merge(metric.getKey(), value, Math::max);
+                    }
+                }
+                System.out.println();
+            }
+            running.set(false);
+            virtualThreads.shutdownNow();
+        }
+        
+        total.add(latency.getIntervalHistogram());
+        System.out.printf("%nScans: %d, errors: %d, reconnects: %d, p50/p99/max: %.2f/%.2f/%.2f ms%n",
+                total.getTotalCount(), errors.get(), reconnects.get(),
+                total.getValueAtPercentile(50) / MICROS_PER_MILLI,
+                total.getValueAtPercentile(99) / MICROS_PER_MILLI,
+                total.getMaxValue() / MICROS_PER_MILLI);
+        System.out.println("Server peaks: " + peaks);
+        if (firstFailure.get() != null) {
+            System.out.println("First failure: " + firstFailure.get());
+        }
+    }
+    
+    private void scanner(URI target, long startAt, int thinkMillis) {
+        try {
+            sleepNanos(startAt - System.nanoTime());
+            boolean first = true;
+            while (running.get()) {
+                try (Socket socket = new Socket()) {
+                    socket.connect(new InetSocketAddress(target.getHost(), target.getPort()), CONNECT_TIMEOUT_MILLIS);
+                    socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+                    if (!first) {
+                        reconnects.incrementAndGet();
+                    }
+                    first = false;
+                    connected.incrementAndGet();
+                    try {
+                        scanUntilClosed(socket, target, thinkMillis);
+                    } finally {
+                        connected.decrementAndGet();
+                    }
+                } catch (IOException e) {
+                    if (running.get()) {
+                        errors.incrementAndGet();
+                        firstFailure.compareAndSet(null, e.toString());
+                        sleepNanos(TimeUnit.MILLISECONDS.toNanos(thinkMillis));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // Scans on one keep-alive connection until the server closes it
+    private void scanUntilClosed(Socket socket, URI target, int thinkMillis) throws IOException, InterruptedException {
+        InputStream in = new BufferedInputStream(socket.getInputStream());
+        OutputStream out = socket.getOutputStream();
+        String host = target.getHost() + ":" + target.getPort();
+        while (running.get()) {
+            String barcode = barcodes.get(ThreadLocalRandom.current().nextInt(barcodes.size()));
+            long started = System.nanoTime();
+            out.write(("GET /api/products/barcode/" + barcode + " HTTP/1.1\r\nHost: " + host
+                    + "\r\nAccept: application/json\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            Response response = readResponse(in);
+            latency.recordValue(Math.max(1, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started)));
+            scans.incrementAndGet();
+            if (response.status() >= 400) {
+                errors.incrementAndGet();
+                firstFailure.compareAndSet(null, "HTTP " + response.status());
+            }
+            if (response.closed()) {
+                return;
+            }
+            sleepNanos((long) (-Math.log(1 - ThreadLocalRandom.current().nextDouble()) * TimeUnit.MILLISECONDS.toNanos(thinkMillis)));
+        }
+    }
+    
+    private record Response(int status, boolean closed) {}
+    
+    // Minimal HTTP/1.1 response reader: status, headers, then a Content-Length or chunked body
+    private static Response readResponse(InputStream in) throws IOException {
+        String statusLine = readLine(in);
+        int status = Integer.parseInt(statusLine.split(" ")[1]);
+        long contentLength = -1;
+        boolean chunked = false;
+        boolean closed = false;
+        for (String header = readLine(in); !header.isEmpty(); header = readLine(in)) {
+            String lower = header.toLowerCase();
+            if (lower.startsWith("content-length:")) {
+                contentLength = Long.parseLong(lower.substring(15).trim());
+            } else if (lower.startsWith("transfer-encoding:") && lower.contains("chunked")) {
+                chunked = true;
+            } else if (lower.startsWith("connection:") && lower.contains("close")) {
+                closed = true;
+            }
+        }
+        if (chunked) {
+            for (long size = Long.parseLong(readLine(in).split(";")[0].trim(), 16); size > 0;
+                 size = Long.parseLong(readLine(in).split(";")[0].trim(), 16)) {
+                in.skipNBytes(size);
+                readLine(in);
+            }
+            readLine(in);
+        } else if (contentLength > 0) {
+            in.skipNBytes(contentLength);
+        }
+        return new Response(status, closed);
+    }
+    
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+            if (b == -1) {
+                throw new EOFException("Connection closed by server");
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+    
+    
+    private Double serverMetric(String name) {
+        try {
+            HttpResponse<String> response = metricsClient.send(
+                    HttpRequest.newBuilder(URI.create(servletUrl + "/actuator/metrics/" + name))
+                            .timeout(METRICS_TIMEOUT)
+                            .build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return null;
+            }
+            JsonNode measurements = objectMapper.readTree(response.body()).get("measurements");
+            return measurements.get(0).get("value").asDouble();
+        } catch (IOException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+    
+    private static void sleepNanos(long nanos) throws InterruptedException {
+        if (nanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    }
+    
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got '" + arg + "'");
+            }
+            int separator = arg.indexOf('=');
+            // Blank values come from unset Maven properties and mean the option's default
+            if (separator < arg.length() - 1) {
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        return options;
+    }
+    
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+}
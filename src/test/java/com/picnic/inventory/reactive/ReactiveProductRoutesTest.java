@@ -0,0 +1,203 @@
+package com.picnic.inventory.reactive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import com.picnic.inventory.index.ProductLookupIndex;
+import com.picnic.inventory.model.Category;
+import com.picnic.inventory.model.Product;
+import com.picnic.inventory.model.Supplier;
+import com.picnic.inventory.repository.CategoryRepository;
+import com.picnic.inventory.repository.ProductRepository;
+import com.picnic.inventory.repository.SupplierRepository;
+import com.picnic.inventory.service.ProductChangeFeed;
+import com.picnic.inventory.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the scanner routes on their own server against the test database, which JPA and R2DBC
+ * share here instead of an auto-configured replacement. Not transactional: R2DBC only sees
+ * committed rows.
+ */
+@SpringBootTest(properties = {
+    "inventory.reactive.enabled=true",
+    "inventory.reactive.port=0"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+public class ReactiveProductRoutesTest {
+    
+    @Autowired
+    private ReactiveProductServer server;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private SupplierRepository supplierRepository;
+    
+    @Autowired
+    private ProductChangeFeed changeFeed;
+    
+    @Autowired
+    private ProductLookupIndex lookupIndex;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private WebTestClient client;
+    private Product milk;
+    private Product rice;
+    
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        categoryRepository.deleteAll();
+        supplierRepository.deleteAll();
+        
+        Category dairy = categoryRepository.save(new Category("Dairy", null));
+        Supplier farm = supplierRepository.save(new Supplier("Fresh Farms", "orders@freshfarms.test", null, null));
+        milk = new Product("Whole Milk", "DAI-MIL-001", "8700000000001", new BigDecimal("1.19"), 3, 10);
+        milk.setCategory(dairy);
+        milk.setSupplier(farm);
+        milk.setExpirationDate(LocalDate.now().plusDays(2));
+        milk.setIsPerishable(true);
+        milk = productRepository.save(milk);
+        
+        rice = new Product("Basmati Rice", "DRY-RIC-001", "8700000000002", new BigDecimal("2.49"), 80, 10);
+        rice.setCategory(dairy);
+        rice = productRepository.save(rice);
+        
+        client = WebTestClient.bindToServer().baseUrl("http://localhost:" + server.getPort()).build();
+    }
+    
+    @Test
+    void testLookups_SameBodyAsServletApi() throws Exception {
+        ProductResponseDTO servletMilk = productService.getProductBySku("DAI-MIL-001").orElseThrow();
+        JsonNode expected = objectMapper.readTree(objectMapper.writeValueAsBytes(servletMilk));
+        assertTrue(expected.get("isLowStock").asBoolean());
+        assertTrue(expected.get("isExpiringSoon").asBoolean());
+        assertEquals("Fresh Farms", expected.get("supplierName").asText());
+        long hits = lookupIndex.getHitCount();
+        
+        // The servlet lookup admitted milk into the shared index; drop it before each reactive
+        // lookup so the body is built from the joined row rather than served from the index
+        lookupIndex.onProductChanged(ProductChangedEvent.deleted(servletMilk));
+        byte[] byBarcode = client.get().uri("/api/products/barcode/{barcode}", "8700000000001")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+        assertEquals(expected, objectMapper.readTree(byBarcode));
+        
+        lookupIndex.onProductChanged(ProductChangedEvent.deleted(servletMilk));
+        byte[] bySku = client.get().uri("/api/products/sku/{sku}", "DAI-MIL-001")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+        assertEquals(expected, objectMapper.readTree(bySku));
+        assertEquals(hits, lookupIndex.getHitCount());
+        
+        client.get().uri("/api/products/barcode/{barcode}", "0000000000000")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+    
+    @Test
+    void testLists() {
+        client.get().uri("/api/products/low-stock")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].sku").isEqualTo("DAI-MIL-001");
+        client.get().uri("/api/products/expiring?days=7")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].isExpiringSoon").isEqualTo(true);
+        client.get().uri("/api/products/search?name=RICE&limit=5")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].categoryName").isEqualTo("Dairy");
+        
+        client.get().uri("/api/products/search?name=rice&limit=0").exchange().expectStatus().isBadRequest();
+        client.get().uri("/api/products/search").exchange().expectStatus().isBadRequest();
+        client.get().uri("/api/products/expiring?days=soon").exchange().expectStatus().isBadRequest();
+    }
+    
+    @Test
+    void testChangeFeed_ResumesAfterLastEventId() {
+        long lastEventId = changeFeed.getNextId() - 1;
+        productService.decrementStock(rice.getId(), 75);
+        productService.updateStock(milk.getId(), 20);
+        
+        Flux<ServerSentEvent<JsonNode>> stream = client.get()
+                .uri("/api/products/changes?supplierId={supplierId}&overflow=drop", milk.getSupplier().getId())
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .header("Last-Event-ID", Long.toString(lastEventId))
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<JsonNode>>() {})
+                .getResponseBody();
+        // Published while connected, after the two replayed from the history
+        productService.updateStock(milk.getId(), 25);
+        List<ServerSentEvent<JsonNode>> events = stream.take(3).collectList().block(Duration.ofSeconds(10));
+        
+        assertNotNull(events);
+        assertEquals(List.of("STOCK_CHANGED", "LOW_STOCK_CLEARED", "STOCK_CHANGED"),
+                events.stream().map(ServerSentEvent::event).toList());
+        assertEquals(25, events.get(2).data().get("current").get("stockQuantity").asInt());
+        assertEquals(Long.parseLong(events.get(0).id()) + 1, Long.parseLong(events.get(1).id()));
+        JsonNode cleared = events.get(1).data();
+        assertEquals(milk.getId().longValue(), cleared.get("productId").asLong());
+        assertEquals(3, cleared.get("previous").get("stockQuantity").asInt());
+        assertEquals(20, cleared.get("current").get("stockQuantity").asInt());
+        assertFalse(cleared.get("current").get("isLowStock").asBoolean());
+    }
+    
+    @Test
+    void testChangeFeed_ResetWhenResumePointIsGone() {
+        ServerSentEvent<JsonNode> first = client.get()
+                .uri("/api/products/changes?lastEventId=42")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<JsonNode>>() {})
+                .getResponseBody()
+                .blockFirst(Duration.ofSeconds(10));
+        
+        assertNotNull(first);
+        assertEquals("reset", first.event());
+        assertEquals("history", first.data().get("reason").asText());
+        
+        client.get().uri("/api/products/changes?overflow=block").exchange().expectStatus().isBadRequest();
+        client.get().uri("/api/products/changes?categoryId=dairy").exchange().expectStatus().isBadRequest();
+    }
+}
@@ -0,0 +1,166 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.dto.ProductCreateDTO;
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import com.picnic.inventory.index.ProductLookupIndex;
+import com.picnic.inventory.model.Category;
+import com.picnic.inventory.model.Supplier;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not transactional on purpose: the version only advances once a write commits.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@DirtiesContext
+public class CatalogVersionTest {
+    
+    @TempDir
+    static Path ledgerDirectory;
+    
+    @Autowired
+    private CatalogVersion catalogVersion;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private SupplierService supplierService;
+    
+    @Test
+    void testEveryCatalogWriteAdvancesTheVersion() throws Exception {
+        String initialETag = catalogVersion.getETag();
+        
+        Category category = advances(() -> categoryService.createCategory("Bakery", null));
+        Supplier supplier = advances(() -> supplierService.createSupplier("Bread Co", "orders@breadco.test", null, null));
+        
+        ProductCreateDTO createDTO = new ProductCreateDTO();
+        createDTO.setName("Sourdough");
+        createDTO.setSku("BAK-SOU-001");
+        createDTO.setBarcode("9200000000001");
+        createDTO.setPrice(new BigDecimal("3.49"));
+        createDTO.setStockQuantity(20);
+        createDTO.setMinStockLevel(5);
+        createDTO.setCategoryId(category.getId());
+        createDTO.setSupplierId(supplier.getId());
+        Long productId = advances(() -> productService.createProduct(createDTO)).getId();
+        
+        advances(() -> productService.updateStock(productId, 15));
+        advances(() -> categoryService.updateCategory(category.getId(), "Bakery & Bread", null));
+        advances(() -> {
+            productService.deleteProduct(productId);
+            return null;
+        });
+        advances(() -> {
+            supplierService.deleteSupplier(supplier.getId());
+            return null;
+        });
+        
+        assertNotEquals(initialETag, catalogVersion.getETag());
+        assertFalse(catalogVersion.getLastModified().isAfter(Instant.now()));
+    }
+    
+    @Test
+    void testFailedWriteKeepsTheVersion() {
+        long version = catalogVersion.getVersion();
+        
+        assertThrows(IllegalArgumentException.class, () -> productService.updateStock(Long.MAX_VALUE, 1));
+        assertEquals(version, catalogVersion.getVersion());
+    }
+    
+    /**
+     * With the stock ledger on, a served stock change reaches {@code updated_at} only when the
+     * ledger flushes, so until then the product's Last-Modified must come from the catalog.
+     */
+    @Nested
+    @TestPropertySource(properties = {
+        "inventory.stock-ledger.enabled=true",
+        "inventory.stock-ledger.fsync=false",
+        "inventory.stock-ledger.flush-interval-ms=3600000"
+    })
+    class WithStockLedger {
+        
+        @DynamicPropertySource
+        static void ledgerProperties(DynamicPropertyRegistry registry) {
+            registry.add("inventory.stock-ledger.directory", () -> ledgerDirectory.toString());
+        }
+        
+        // Shadow the enclosing instance's beans, which come from the context without the ledger
+        @Autowired
+        private CatalogVersion catalogVersion;
+        
+        @Autowired
+        private ProductService productService;
+        
+        @Autowired
+        private StockLedger stockLedger;
+        
+        @Autowired
+        private ProductLookupIndex lookupIndex;
+        
+        @Test
+        void testUnflushedStockChangeIsNotOlderThanTheClientsCopy() throws Exception {
+            assertTrue(stockLedger.isEnabled());
+            ProductCreateDTO createDTO = new ProductCreateDTO();
+            createDTO.setName("Rye Bread");
+            createDTO.setSku("BAK-RYE-001");
+            createDTO.setBarcode("9200000000002");
+            createDTO.setPrice(new BigDecimal("2.99"));
+            createDTO.setStockQuantity(20);
+            createDTO.setMinStockLevel(5);
+            Long productId = productService.createProduct(createDTO).getId();
+            Instant clientCopy = catalogVersion.lastModified(productService.getProductById(productId).orElseThrow());
+            
+            // Last-Modified has whole-second precision
+            Thread.sleep(1100);
+            productService.decrementStock(productId, 3);
+            ProductResponseDTO indexed = productService.getProductById(productId).orElseThrow();
+            assertEquals(17, indexed.getStockQuantity());
+            assertTrue(catalogVersion.lastModified(indexed).isAfter(clientCopy));
+            
+            // Built from the row, whose updated_at the ledger has not touched yet
+            lookupIndex.onProductChanged(ProductChangedEvent.deleted(indexed));
+            ProductResponseDTO served = productService.getProductById(productId).orElseThrow();
+            assertEquals(0, lookupIndex.size());
+            
+            assertEquals(17, served.getStockQuantity());
+            assertTrue(catalogVersion.lastModified(served).isAfter(clientCopy));
+            assertEquals(catalogVersion.getLastModified(), catalogVersion.lastModified(served));
+            
+            stockLedger.flush();
+            ProductResponseDTO flushed = productService.getProductById(productId).orElseThrow();
+            assertEquals(CatalogVersion.lastModified(flushed.getCreatedAt(), flushed.getUpdatedAt()),
+                    catalogVersion.lastModified(flushed));
+            assertTrue(catalogVersion.lastModified(flushed).isAfter(clientCopy));
+        }
+    }
+    
+    private <T> T advances(Callable<T> write) throws Exception {
+        long version = catalogVersion.getVersion();
+        T result = write.call();
+        assertTrue(catalogVersion.getVersion() > version, "catalog version did not advance");
+        return result;
+    }
+}
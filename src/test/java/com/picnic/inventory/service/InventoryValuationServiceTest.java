@@ -0,0 +1,112 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.dto.InventoryValueDTO;
+import com.picnic.inventory.dto.ProductCreateDTO;
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import com.picnic.inventory.model.Category;
+import com.picnic.inventory.repository.CategoryRepository;
+import com.picnic.inventory.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Drives the running valuation through committed service writes. Not transactional on purpose:
+ * totals only follow committed changes.
+ */
+@SpringBootTest(properties = "inventory.valuation.enabled=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@DirtiesContext
+public class InventoryValuationServiceTest {
+    
+    @Autowired
+    private InventoryValuationService valuationService;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void testRunningTotalsFollowWritesAndReconcile() {
+        assertTrue(valuationService.isReady());
+        Long dairy = categoryRepository.save(new Category("Valuation Dairy", null)).getId();
+        Long bakery = categoryRepository.save(new Category("Valuation Bakery", null)).getId();
+        
+        Long milk = productService.createProduct(createDTO("VAL-001", "0.10", 3, dairy)).getId();
+        Long bread = productService.createProduct(createDTO("VAL-002", "2.35", 4, bakery)).getId();
+        productService.createProduct(createDTO("VAL-003", "1.00", 1, null));
+        
+        // 0.30 + 9.40 + 1.00, exact rather than a binary floating point approximation
+        assertEquals(new BigDecimal("10.70"), valuationService.getTotalValue());
+        productService.decrementStock(milk, 1);
+        productService.updateStock(bread, 10);
+        productService.updateProduct(milk, createDTO("VAL-001", "0.15", 2, bakery));
+        assertEquals(new BigDecimal("24.80"), valuationService.getTotalValue());
+        List<InventoryValueDTO> byCategory = valuationService.getValueByCategory();
+        assertEquals(2, byCategory.size());
+        assertEquals(bakery, byCategory.get(0).getId());
+        assertEquals(0, new BigDecimal("23.80").compareTo(byCategory.get(0).getValue()));
+        assertNull(byCategory.get(1).getId());
+        assertEquals(InventoryValuationService.Reconciliation.MATCHED, valuationService.reconcile());
+        
+        // A change behind the service's back is found and corrected from the SQL sum
+        jdbcTemplate.update("UPDATE products SET stock_quantity = 0 WHERE sku = 'VAL-003'");
+        assertEquals(InventoryValuationService.Reconciliation.DRIFTED, valuationService.reconcile());
+        assertEquals(0, new BigDecimal("23.80").compareTo(valuationService.getTotalValue()));
+        assertEquals(InventoryValuationService.Reconciliation.MATCHED, valuationService.reconcile());
+    }
+    
+    @Test
+    void testReconcile_SkippedWhenWritesOverlapEverySum() {
+        ProductRepository repository = mock(ProductRepository.class);
+        StockLedger ledger = mock(StockLedger.class);
+        InventoryValuationService service = new InventoryValuationService(repository, ledger,
+                new SimpleMeterRegistry(), true);
+        ProductResponseDTO product = new ProductResponseDTO();
+        product.setId(1L);
+        product.setPrice(new BigDecimal("1.00"));
+        product.setStockQuantity(1);
+        // A product write is applied while every SQL sum runs
+        when(ledger.flushThenRead(any())).thenAnswer(invocation -> {
+            service.onProductChanged(ProductChangedEvent.created(product));
+            return ((Supplier<?>) invocation.getArgument(0)).get();
+        });
+        
+        assertEquals(InventoryValuationService.Reconciliation.SKIPPED, service.reconcile());
+        assertFalse(service.isReady());
+        assertNull(service.getLastReconciledAt());
+    }
+    
+    private static ProductCreateDTO createDTO(String sku, String price, int stock, Long categoryId) {
+        ProductCreateDTO dto = new ProductCreateDTO();
+        dto.setName("Valuation " + sku);
+        dto.setSku(sku);
+        dto.setBarcode("77000000000" + sku.substring(4));
+        dto.setPrice(new BigDecimal(price));
+        dto.setStockQuantity(stock);
+        dto.setMinStockLevel(1);
+        dto.setCategoryId(categoryId);
+        return dto;
+    }
+}
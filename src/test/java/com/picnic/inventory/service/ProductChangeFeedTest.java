@@ -0,0 +1,174 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.dto.ProductChangeDTO;
+import com.picnic.inventory.dto.ProductCreateDTO;
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.model.Category;
+import com.picnic.inventory.model.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not transactional on purpose: entries are published once a write commits. History and buffers
+ * are kept small so overflow and resume are reached with a handful of writes.
+ */
+@SpringBootTest(properties = {
+    "inventory.change-feed.history-size=6",
+    "inventory.change-feed.buffer-size=3"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class ProductChangeFeedTest {
+    
+    @Autowired
+    private ProductChangeFeed changeFeed;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private SupplierService supplierService;
+    
+    private Category dairy;
+    private Category bakery;
+    private Supplier farm;
+    private int productCount;
+    
+    @BeforeEach
+    void setUp() {
+        dairy = categoryService.createCategory("Dairy", null);
+        bakery = categoryService.createCategory("Bakery", null);
+        farm = supplierService.createSupplier("Fresh Farms", "orders@freshfarms.test", null, null);
+    }
+    
+    @Test
+    void testWritesArePublishedInOrderWithLowStockTransitions() {
+        try (ProductChangeFeed.Subscription dairyOnly = changeFeed.subscribe(
+                new ProductChangeFeed.Filter(dairy.getId(), null), ProductChangeFeed.Overflow.DROP_OLDEST, null)) {
+            // Drained after every write, as a connected client would, to stay within the buffer
+            Long milkId = create("Whole Milk", "DAI-MIL-001", dairy, 20).getId();
+            List<ProductChangeDTO> changes = drain(dairyOnly);
+            create("Sourdough", "BAK-SOU-001", bakery, 20);
+            changes.addAll(drain(dairyOnly));
+            productService.decrementStock(milkId, 15);
+            changes.addAll(drain(dairyOnly));
+            productService.updateStock(milkId, 30);
+            changes.addAll(drain(dairyOnly));
+            
+            assertEquals(List.of(ProductChangeDTO.Type.CREATED,
+                    ProductChangeDTO.Type.STOCK_CHANGED, ProductChangeDTO.Type.LOW_STOCK_ENTERED,
+                    ProductChangeDTO.Type.STOCK_CHANGED, ProductChangeDTO.Type.LOW_STOCK_CLEARED),
+                    changes.stream().map(ProductChangeDTO::getType).toList());
+            assertTrue(changes.stream().allMatch(change -> milkId.equals(change.getProductId())));
+            for (int i = 1; i < changes.size(); i++) {
+                assertTrue(changes.get(i).getId() > changes.get(i - 1).getId());
+            }
+            ProductChangeDTO entered = changes.get(2);
+            assertEquals(20, entered.getPrevious().getStockQuantity());
+            assertEquals(5, entered.getCurrent().getStockQuantity());
+            assertEquals(0, dairyOnly.takeDropped());
+        }
+    }
+    
+    @Test
+    void testFullBufferDropsOldestOrCoalescesPerProduct() {
+        Long milkId = create("Whole Milk", "DAI-MIL-001", dairy, 20).getId();
+        Long butterId = create("Butter", "DAI-BUT-001", dairy, 20).getId();
+        
+        try (ProductChangeFeed.Subscription dropping = changeFeed.subscribe(
+                     ProductChangeFeed.Filter.ALL, ProductChangeFeed.Overflow.DROP_OLDEST, null);
+             ProductChangeFeed.Subscription coalescing = changeFeed.subscribe(
+                     new ProductChangeFeed.Filter(null, farm.getId()), ProductChangeFeed.Overflow.COALESCE, null)) {
+            for (int quantity = 21; quantity <= 25; quantity++) {
+                productService.updateStock(milkId, quantity);
+            }
+            productService.updateStock(butterId, 2);
+            
+            List<ProductChangeDTO> kept = drain(dropping);
+            assertEquals(List.of(25, 2, 2), kept.stream().map(change -> change.getCurrent().getStockQuantity()).toList());
+            assertEquals(ProductChangeDTO.Type.LOW_STOCK_ENTERED, kept.get(2).getType());
+            assertEquals(4, dropping.takeDropped());
+            
+            List<ProductChangeDTO> coalesced = drain(coalescing);
+            assertEquals(2, coalesced.size());
+            assertEquals(ProductChangeDTO.Type.STOCK_CHANGED, coalesced.get(0).getType());
+            assertEquals(20, coalesced.get(0).getPrevious().getStockQuantity());
+            assertEquals(25, coalesced.get(0).getCurrent().getStockQuantity());
+            assertEquals(ProductChangeDTO.Type.LOW_STOCK_ENTERED, coalesced.get(1).getType());
+            assertEquals(butterId, coalesced.get(1).getProductId());
+            assertEquals(0, coalescing.takeDropped());
+        }
+    }
+    
+    @Test
+    void testResumeAfterLastEventIdOrReportGap() {
+        long beforeWrites = changeFeed.getNextId() - 1;
+        Long milkId = create("Whole Milk", "DAI-MIL-001", dairy, 20).getId();
+        productService.updateStock(milkId, 18);
+        long lastSeen = changeFeed.getNextId() - 1;
+        productService.updateStock(milkId, 16);
+        
+        try (ProductChangeFeed.Subscription resumed = changeFeed.subscribe(
+                ProductChangeFeed.Filter.ALL, ProductChangeFeed.Overflow.DROP_OLDEST, lastSeen)) {
+            assertFalse(resumed.isResumeGap());
+            List<ProductChangeDTO> missed = drain(resumed);
+            assertEquals(1, missed.size());
+            assertEquals(16, missed.get(0).getCurrent().getStockQuantity());
+        }
+        try (ProductChangeFeed.Subscription fromStart = changeFeed.subscribe(
+                ProductChangeFeed.Filter.ALL, ProductChangeFeed.Overflow.DROP_OLDEST, beforeWrites)) {
+            assertFalse(fromStart.isResumeGap());
+            assertEquals(3, drain(fromStart).size());
+        }
+        
+        // Four more entries push the first ones out of the history of six
+        for (int quantity = 15; quantity >= 12; quantity--) {
+            productService.updateStock(milkId, quantity);
+        }
+        try (ProductChangeFeed.Subscription tooOld = changeFeed.subscribe(
+                ProductChangeFeed.Filter.ALL, ProductChangeFeed.Overflow.DROP_OLDEST, beforeWrites)) {
+            assertTrue(tooOld.isResumeGap());
+            assertEquals(0, tooOld.size());
+        }
+        try (ProductChangeFeed.Subscription earlierRun = changeFeed.subscribe(
+                ProductChangeFeed.Filter.ALL, ProductChangeFeed.Overflow.DROP_OLDEST, 42L)) {
+            assertTrue(earlierRun.isResumeGap());
+        }
+    }
+    
+    private ProductResponseDTO create(String name, String sku, Category category, int stock) {
+        ProductCreateDTO createDTO = new ProductCreateDTO();
+        createDTO.setName(name);
+        createDTO.setSku(sku);
+        createDTO.setBarcode(String.format("92%011d", ++productCount));
+        createDTO.setPrice(new BigDecimal("1.99"));
+        createDTO.setStockQuantity(stock);
+        createDTO.setMinStockLevel(5);
+        createDTO.setCategoryId(category.getId());
+        createDTO.setSupplierId(farm.getId());
+        return productService.createProduct(createDTO);
+    }
+    
+    private static List<ProductChangeDTO> drain(ProductChangeFeed.Subscription subscription) {
+        List<ProductChangeDTO> changes = new ArrayList<>();
+        for (ProductChangeDTO change = subscription.poll(); change != null; change = subscription.poll()) {
+            changes.add(change);
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,287 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.SmartGroceryInventoryApplication;
+import com.picnic.inventory.dto.BatchResultDTO;
+import com.picnic.inventory.dto.InventoryStatsDTO;
+import com.picnic.inventory.dto.ProductCreateDTO;
+import com.picnic.inventory.dto.ProductPageDTO;
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.dto.ReorderProposalDTO;
+import com.picnic.inventory.dto.StockAdjustmentDTO;
+import com.picnic.inventory.model.Category;
+import com.picnic.inventory.model.Product;
+import com.picnic.inventory.model.Supplier;
+import com.picnic.inventory.repository.CategoryRepository;
+import com.picnic.inventory.repository.ProductRepository;
+import com.picnic.inventory.repository.SupplierRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JMH benchmarks for the product service's hot paths (lookup, search, list, DTO mapping, stock
+ * update, create and valuation) against an embedded H2 catalog of {@code products} rows.
+ * Not a test: run through the benchmark profile in pom.xml, which adds the GC profiler.
+ * <p>
+ * The catalog is loaded by a first context started with the in-memory indexes off and then
+ * closed. The measured context opens the same in-memory database, so every index warms up from
+ * the full catalog as it would at a production start.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ProductServiceBenchmark {
+    
+    private static final String[] ADJECTIVES = {
+        "Fresh", "Organic", "Whole", "Smoked", "Aged", "Greek", "Sparkling", "Frozen", "Roasted", "Salted"
+    };
+    private static final String[] NOUNS = {
+        "Milk", "Cheddar", "Banana", "Yogurt", "Bread", "Apple", "Salmon", "Coffee", "Butter", "Tomato",
+        "Spinach", "Almonds", "Chicken", "Pasta", "Water", "Orange", "Lettuce", "Cereal", "Honey", "Rice"
+    };
+    private static final String[] TYPOS = {"chedar", "banan", "yoghurt", "samon", "cofee", "tomatoe"};
+    
+    private static final int LOAD_CHUNK_SIZE = 1000;
+    
+    // Lines per bulk adjustment; lines per second is this times the bulkAdjustStock score
+    private static final int BULK_LINES = 1000;
+    
+    @Param("10000")
+    private int products;
+    
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private CategoryService categoryService;
+    private InventoryValuationService valuationService;
+    private ReplenishmentService replenishmentService;
+    private StockBulkService stockBulkService;
+    private Product sampleProduct;
+    private long[] productIds;
+    private final AtomicLong createdProducts = new AtomicLong();
+    
+    @State(Scope.Thread)
+    public static class Picker {
+        private final SplittableRandom random = new SplittableRandom(42);
+        
+        int product(int products) {
+            return random.nextInt(products);
+        }
+        
+        String word() {
+            return NOUNS[random.nextInt(NOUNS.length)].toLowerCase();
+        }
+        
+        String typo() {
+            return TYPOS[random.nextInt(TYPOS.length)];
+        }
+        
+        // Receiving of one unit for random products, half of them by id and half by SKU
+        List<StockAdjustmentDTO> receiving(long[] productIds, int products) {
+            List<StockAdjustmentDTO> lines = new ArrayList<>(BULK_LINES);
+            for (int i = 0; i < BULK_LINES; i++) {
+                StockAdjustmentDTO line = new StockAdjustmentDTO();
+                int product = product(products);
+                if (i % 2 == 0) {
+                    line.setId(productIds[product]);
+                } else {
+                    line.setSku(sku(product));
+                }
+                line.setDelta(1);
+                lines.add(line);
+            }
+            return lines;
+        }
+    }
+    
+    @Setup(Level.Trial)
+    public void start() {
+        String url = "jdbc:h2:mem:benchmark" + products + ";DB_CLOSE_DELAY=-1";
+        try (ConfigurableApplicationContext loader = startContext(url, "create", false)) {
+            loadCatalog(loader);
+        }
+        context = startContext(url, "none", true);
+        productService = context.getBean(ProductService.class);
+        categoryService = context.getBean(CategoryService.class);
+        valuationService = context.getBean(InventoryValuationService.class);
+        replenishmentService = context.getBean(ReplenishmentService.class);
+        stockBulkService = context.getBean(StockBulkService.class);
+        sampleProduct = context.getBean(ProductRepository.class).findBySku(sku(products / 2)).orElseThrow();
+        productIds = context.getBean(JdbcTemplate.class).queryForList("SELECT id FROM products", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+    }
+    
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Optional<ProductResponseDTO> lookupByBarcode(Picker picker) {
+        return productService.getProductByBarcode(barcode(picker.product(products)));
+    }
+    
+    @Benchmark
+    public Optional<ProductResponseDTO> lookupBySku(Picker picker) {
+        return productService.getProductBySku(sku(picker.product(products)));
+    }
+    
+    @Benchmark
+    public Page<ProductResponseDTO> search(Picker picker) {
+        return productService.searchProducts(picker.word(), 20, 0, false);
+    }
+    
+    @Benchmark
+    public Page<ProductResponseDTO> searchFuzzy(Picker picker) {
+        return productService.searchProducts(picker.typo(), 20, 0, true);
+    }
+    
+    @Benchmark
+    public ProductPageDTO listByName() {
+        return productService.getProductPage(null, 50, "name", null, null, null, false);
+    }
+    
+    @Benchmark
+    public ProductResponseDTO mapToResponse() {
+        return ProductService.convertToResponseDTO(sampleProduct);
+    }
+    
+    @Benchmark
+    public ProductResponseDTO incrementStock(Picker picker) {
+        return productService.incrementStock(productIds[picker.product(products)], 1);
+    }
+    
+    @Benchmark
+    public BatchResultDTO bulkAdjustStock(Picker picker) {
+        return stockBulkService.adjustStock(picker.receiving(productIds, products));
+    }
+    
+    @Benchmark
+    public ProductResponseDTO createProduct() {
+        long next = products + createdProducts.incrementAndGet();
+        return productService.createProduct(createDTO(next));
+    }
+    
+    @Benchmark
+    public BigDecimal inventoryValue() {
+        return valuationService.getTotalValue();
+    }
+    
+    @Benchmark
+    public List<InventoryStatsDTO> categoryStats() {
+        return categoryService.getCategoryStats();
+    }
+    
+    @Benchmark
+    public List<ReorderProposalDTO> reorderProposals() {
+        return replenishmentService.getAllProposals();
+    }
+    
+    // Passed as command-line arguments so they override application.properties
+    private static ConfigurableApplicationContext startContext(String url, String ddl, boolean indexes) {
+        return new SpringApplicationBuilder(SmartGroceryInventoryApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=" + ddl,
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.picnic.inventory=WARN",
+                        "--inventory.lookup-index.warm-up=" + indexes,
+                        "--inventory.expiration-calendar.enabled=" + indexes,
+                        "--inventory.search-index.enabled=" + indexes,
+                        "--inventory.suggest-index.enabled=" + indexes,
+                        "--inventory.valuation.enabled=" + indexes,
+                        "--inventory.reactive.enabled=false",
+                        "--spring.r2dbc.url=r2dbc:h2:mem:///benchmark");
+    }
+    
+    private void loadCatalog(ConfigurableApplicationContext loader) {
+        List<Category> categories = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            categories.add(loader.getBean(CategoryRepository.class).save(new Category("Category " + i, null)));
+        }
+        List<Supplier> suppliers = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            suppliers.add(loader.getBean(SupplierRepository.class)
+                    .save(new Supplier("Supplier " + i, "supplier" + i + "@benchmark.test", null, null)));
+        }
+        
+        ProductRepository productRepository = loader.getBean(ProductRepository.class);
+        TransactionTemplate transaction = new TransactionTemplate(loader.getBean(PlatformTransactionManager.class));
+        for (int from = 0; from < products; from += LOAD_CHUNK_SIZE) {
+            int start = from;
+            transaction.executeWithoutResult(status -> {
+                List<Product> chunk = new ArrayList<>(LOAD_CHUNK_SIZE);
+                for (int i = start; i < Math.min(start + LOAD_CHUNK_SIZE, products); i++) {
+                    Product product = new Product(name(i), sku(i), barcode(i),
+                            BigDecimal.valueOf(50 + i % 2000, 2), i % 200, 20);
+                    if (i % 2 == 0) {
+                        product.setExpirationDate(LocalDate.now().plusDays(i % 60 - 10));
+                        product.setIsPerishable(true);
+                    }
+                    product.setCategory(categories.get(i % categories.size()));
+                    product.setSupplier(suppliers.get(i % suppliers.size()));
+                    chunk.add(product);
+                }
+                productRepository.saveAll(chunk);
+            });
+        }
+    }
+    
+    private static ProductCreateDTO createDTO(long i) {
+        ProductCreateDTO dto = new ProductCreateDTO();
+        dto.setName(name(i));
+        dto.setSku(sku(i));
+        dto.setBarcode(barcode(i));
+        dto.setPrice(new BigDecimal("1.99"));
+        dto.setStockQuantity(100);
+        dto.setMinStockLevel(20);
+        return dto;
+    }
+    
+    private static String name(long i) {
+        return ADJECTIVES[(int) (i % ADJECTIVES.length)] + " " + NOUNS[(int) (i / ADJECTIVES.length % NOUNS.length)] + " " + i;
+    }
+    
+    private static String sku(long i) {
+        return "BENCH-" + i;
+    }
+    
+    private static String barcode(long i) {
+        return String.format("2%012d", i);
+    }
+}
@@ -2,6 +2,11 @@ package com.picnic.inventory.service;
 
 import com.picnic.inventory.dto.ProductCreateDTO;
 import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.event.ProductChangedEvent;
+import com.picnic.inventory.index.ExpirationCalendar;
+import com.picnic.inventory.index.ProductSearchIndex;
+import com.picnic.inventory.index.ProductSuggestIndex;
+import com.picnic.inventory.index.ProductLookupIndex;
 import com.picnic.inventory.model.Product;
 import com.picnic.inventory.model.Category;
 import com.picnic.inventory.model.Supplier;
@@ -14,6 +19,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -37,6 +43,24 @@ public class ProductServiceTest {
     @Mock
     private SupplierRepository supplierRepository;
     
+    @Mock
+    private ProductLookupIndex lookupIndex;
+    
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Mock
+    private StockLedger stockLedger;
+    
+    @Mock
+    private ExpirationCalendar expirationCalendar;
+    
+    @Mock
+    private ProductSearchIndex searchIndex;
+    
+    @Mock
+    private ProductSuggestIndex suggestIndex;
+    
     @InjectMocks
     private ProductService productService;
     
@@ -129,6 +153,37 @@ public class ProductServiceTest {
         verify(productRepository, times(1)).findById(999L);
     }
     
+    @Test
+    void testGetProductByBarcode_ServedFromLookupIndex() {
+        // Given
+        ProductResponseDTO indexed = new ProductResponseDTO();
+        indexed.setId(1L);
+        indexed.setBarcode("1234567890123");
+        when(lookupIndex.findByBarcode("1234567890123")).thenReturn(Optional.of(indexed));
+        
+        // When
+        Optional<ProductResponseDTO> result = productService.getProductByBarcode("1234567890123");
+        
+        // Then
+        assertTrue(result.isPresent());
+        assertSame(indexed, result.get());
+        verify(productRepository, never()).findByBarcode(any());
+    }
+    
+    @Test
+    void testGetProductByBarcode_MissAdmitsIntoLookupIndex() {
+        // Given
+        when(lookupIndex.stamp()).thenReturn(7L);
+        when(productRepository.findByBarcode("1234567890123")).thenReturn(Optional.of(testProduct));
+        
+        // When
+        Optional<ProductResponseDTO> result = productService.getProductByBarcode("1234567890123");
+        
+        // Then
+        assertTrue(result.isPresent());
+        verify(lookupIndex, times(1)).admit(result.get(), 7L);
+    }
+    
     @Test
     void testCreateProduct_Success() {
         // Given
@@ -146,6 +201,7 @@ public class ProductServiceTest {
         assertEquals("Organic Apples", result.getName());
         assertEquals("ORG-APP-001", result.getSku());
         verify(productRepository, times(1)).save(any(Product.class));
+        verify(eventPublisher, times(1)).publishEvent(any(ProductChangedEvent.class));
     }
     
     @Test
@@ -185,6 +241,8 @@ public class ProductServiceTest {
         lowStockProduct.setMinStockLevel(10);
         List<Product> lowStockProducts = Arrays.asList(lowStockProduct);
         when(productRepository.findLowStockProducts()).thenReturn(lowStockProducts);
+        when(stockLedger.flushThenRead(any())).thenAnswer(invocation ->
+                invocation.<java.util.function.Supplier<?>>getArgument(0).get());
         
         // When
         List<ProductResponseDTO> result = productService.getLowStockProducts();
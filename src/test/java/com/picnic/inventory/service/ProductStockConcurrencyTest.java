@@ -0,0 +1,130 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.model.Product;
+import com.picnic.inventory.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hammers a single SKU from many threads through the atomic increment/decrement path and checks
+ * that no update is lost. Not transactional on purpose: every adjustment must commit on its own.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+public class ProductStockConcurrencyTest {
+    
+    private static final int THREADS = 16;
+    private static final int ADJUSTMENTS_PER_THREAD = 100;
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    private Long productId;
+    
+    @AfterEach
+    void tearDown() {
+        if (productId != null) {
+            productRepository.deleteById(productId);
+        }
+    }
+    
+    @Test
+    void testConcurrentIncrementsAndDecrements_NoLostUpdates() throws Exception {
+        productId = createProduct(1000).getId();
+        
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            boolean increment = t % 2 == 0;
+            int quantity = increment ? 3 : 1;
+            tasks.add(() -> {
+                for (int i = 0; i < ADJUSTMENTS_PER_THREAD; i++) {
+                    if (increment) {
+                        productService.incrementStock(productId, quantity);
+                    } else {
+                        productService.decrementStock(productId, quantity);
+                    }
+                }
+                return null;
+            });
+        }
+        runConcurrently(tasks);
+        
+        // 8 threads add 3 and 8 threads remove 1, 100 times each
+        int expected = 1000 + (THREADS / 2) * ADJUSTMENTS_PER_THREAD * (3 - 1);
+        Product product = productRepository.findById(productId).orElseThrow();
+        assertEquals(expected, product.getStockQuantity());
+        assertEquals(THREADS * ADJUSTMENTS_PER_THREAD, product.getVersion());
+    }
+    
+    @Test
+    void testConcurrentDecrements_NeverGoNegative() throws Exception {
+        productId = createProduct(50).getId();
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tasks.add(() -> {
+                for (int i = 0; i < 10; i++) {
+                    try {
+                        productService.decrementStock(productId, 1);
+                        succeeded.incrementAndGet();
+                    } catch (IllegalStateException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        runConcurrently(tasks);
+        
+        assertEquals(50, succeeded.get());
+        assertEquals(THREADS * 10 - 50, rejected.get());
+        assertEquals(0, productRepository.findById(productId).orElseThrow().getStockQuantity());
+    }
+    
+    private Product createProduct(int stock) {
+        Product product = new Product("Hot SKU", "HOT-001", "9000000000001", new BigDecimal("1.00"), stock, 10);
+        return productRepository.save(product);
+    }
+    
+    private static void runConcurrently(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Callable<Void> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
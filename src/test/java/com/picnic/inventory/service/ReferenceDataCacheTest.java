@@ -0,0 +1,77 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.model.Category;
+import com.picnic.inventory.model.Supplier;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static com.picnic.inventory.sql.SqlStatementAssertions.assertStatements;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Not transactional on purpose: the second-level cache is only filled from committed data.
+ */
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@DirtiesContext
+public class ReferenceDataCacheTest {
+    
+    @Autowired
+    private CategoryService categoryService;
+    
+    @Autowired
+    private SupplierService supplierService;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Test
+    void testCategoryReadsComeFromCacheUntilUpdated() throws Exception {
+        Long id = categoryService.createCategory("Dairy", "Milk and cheese").getId();
+        categoryService.getCategoryById(id);
+        
+        Statistics statistics = statistics();
+        long hits = statistics.getSecondLevelCacheHitCount();
+        Category cached = assertStatements(0, () -> categoryService.getCategoryById(id).orElseThrow());
+        assertEquals("Dairy", cached.getName());
+        assertEquals(hits + 1, statistics.getSecondLevelCacheHitCount());
+        
+        // The duplicate check is served from the query cache the second time
+        assertThrows(IllegalArgumentException.class, () -> categoryService.createCategory("Dairy", null));
+        long queryHits = statistics.getQueryCacheHitCount();
+        assertThrows(IllegalArgumentException.class, () -> categoryService.createCategory("Dairy", null));
+        assertEquals(queryHits + 1, statistics.getQueryCacheHitCount());
+        
+        categoryService.updateCategory(id, "Dairy & Eggs", null);
+        assertEquals("Dairy & Eggs", categoryService.getCategoryById(id).orElseThrow().getName());
+        assertTrue(categoryService.getCategoryByName("Dairy").isEmpty());
+        assertNotNull(categoryService.createCategory("Dairy", null).getId());
+        
+        categoryService.deleteCategory(id);
+        assertTrue(categoryService.getCategoryById(id).isEmpty());
+    }
+    
+    @Test
+    void testSupplierEmailCheckSeesNewSuppliers() {
+        Long id = supplierService.createSupplier("Fresh Farms", "orders@freshfarms.test", null, null).getId();
+        assertThrows(IllegalArgumentException.class,
+                () -> supplierService.createSupplier("Other", "orders@freshfarms.test", null, null));
+        
+        supplierService.updateSupplier(id, "Fresh Farms", "sales@freshfarms.test", null, null, null);
+        Supplier other = supplierService.createSupplier("Other", "orders@freshfarms.test", null, null);
+        assertNotNull(other.getId());
+        assertEquals("sales@freshfarms.test", supplierService.getSupplierById(id).orElseThrow().getEmail());
+    }
+    
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,120 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.dto.ReorderLineDTO;
+import com.picnic.inventory.dto.ReorderProposalDTO;
+import com.picnic.inventory.model.Product;
+import com.picnic.inventory.model.Supplier;
+import com.picnic.inventory.repository.ProductRepository;
+import com.picnic.inventory.repository.SupplierRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.picnic.inventory.sql.SqlStatementAssertions.assertMaxStatements;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Not transactional, so the statement counts cover only the proposal reads and not the flush of
+ * the setup rows.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@DirtiesContext
+public class ReplenishmentServiceTest {
+    
+    @Autowired
+    private ReplenishmentService replenishmentService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private SupplierRepository supplierRepository;
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    private Supplier farm;
+    private Supplier mill;
+    private Supplier brewery;
+    private int productCount;
+    
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        supplierRepository.deleteAll();
+        
+        farm = supplierRepository.save(new Supplier("Fresh Farms", "orders@freshfarms.test", null, null));
+        mill = supplierRepository.save(new Supplier("Stone Mill", "orders@stonemill.test", null, null));
+        brewery = supplierRepository.save(new Supplier("Hop Brewery", "orders@hopbrewery.test", null, null));
+        
+        save("Whole Milk", "1.19", 3, 10, farm);
+        save("Butter", "2.50", 0, 4, farm);
+        save("Aged Cheese", "6.99", 50, 10, farm);
+        save("Sample Yogurt", "0.99", 0, 0, farm);
+        save("Flour", "1.49", 10, 10, mill);
+        save("Pale Ale", "1.89", 40, 12, brewery);
+        save("Loose Eggs", "0.30", 1, 30, null);
+    }
+    
+    @Test
+    void testProposalOrdersLowStockBackUpToTarget() {
+        ReorderProposalDTO proposal = replenishmentService.getProposal(farm.getId()).orElseThrow();
+        
+        assertEquals("Fresh Farms", proposal.getSupplierName());
+        assertEquals(List.of("Butter", "Whole Milk"), proposal.getLines().stream().map(ReorderLineDTO::getName).toList());
+        assertEquals(8, proposal.getLines().get(0).getReorderQuantity());
+        assertEquals(17, proposal.getLines().get(1).getReorderQuantity());
+        assertEquals(0, new BigDecimal("20.23").compareTo(proposal.getLines().get(1).getLineValue()));
+        assertEquals(25, proposal.getTotalUnits());
+        assertEquals(0, new BigDecimal("40.23").compareTo(proposal.getTotalValue()));
+        
+        assertTrue(replenishmentService.getProposal(brewery.getId()).orElseThrow().getLines().isEmpty());
+        assertTrue(replenishmentService.getProposal(Long.MAX_VALUE).isEmpty());
+    }
+    
+    @Test
+    void testAllProposalsInConstantStatements() throws Exception {
+        List<ReorderProposalDTO> proposals = assertMaxStatements(2, () -> replenishmentService.getAllProposals());
+        
+        assertEquals(List.of(farm.getId(), mill.getId()), proposals.stream().map(ReorderProposalDTO::getSupplierId).toList());
+        assertEquals(2, proposals.get(0).getLines().size());
+        assertEquals(10, proposals.get(1).getLines().get(0).getReorderQuantity());
+    }
+    
+    @Test
+    void testEndpoints() throws Exception {
+        mockMvc.perform(get("/api/suppliers/{id}/reorder-proposal", mill.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.supplierEmail").value("orders@stonemill.test"))
+                .andExpect(jsonPath("$.lines[0].sku").value("SKU-5"))
+                .andExpect(jsonPath("$.totalUnits").value(10));
+        mockMvc.perform(get("/api/suppliers/{id}/reorder-proposal", Long.MAX_VALUE))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/suppliers/reorder-proposals"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+    
+    private void save(String name, String price, int stock, int minStockLevel, Supplier supplier) {
+        productCount++;
+        Product product = new Product(name, "SKU-" + productCount, String.format("93%011d", productCount),
+                new BigDecimal(price), stock, minStockLevel);
+        product.setSupplier(supplier);
+        productRepository.save(product);
+    }
+}
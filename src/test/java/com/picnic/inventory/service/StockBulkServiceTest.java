@@ -0,0 +1,145 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.dto.BatchItemResultDTO;
+import com.picnic.inventory.dto.BatchResultDTO;
+import com.picnic.inventory.dto.StockAdjustmentDTO;
+import com.picnic.inventory.model.Product;
+import com.picnic.inventory.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Failures that abort a whole chunk, which the integration tests cannot provoke on H2.
+ */
+@ExtendWith(MockitoExtension.class)
+public class StockBulkServiceTest {
+    
+    @Mock
+    private ProductRepository productRepository;
+    
+    @Mock
+    private EntityManager entityManager;
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Mock
+    private StockLedger stockLedger;
+    
+    private StockBulkService stockBulkService;
+    
+    @BeforeEach
+    void setUp() {
+        stockBulkService = new StockBulkService(productRepository, entityManager, jdbcTemplate, transactionManager,
+                eventPublisher, stockLedger);
+    }
+    
+    @Test
+    void testFailedChunk_NoneOfItsLinesAreReportedAsApplied() {
+        when(productRepository.findAllByIdInForUpdate(any())).thenAnswer(invocation ->
+                products(invocation.getArgument(0)));
+        // The first chunk's batched UPDATE fails, the second one goes through
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), anyInt(), any()))
+                .thenThrow(new CannotAcquireLockException("Deadlock detected"))
+                .thenReturn(new int[0][]);
+        
+        int lines = StockBulkService.CHUNK_SIZE + 100;
+        BatchResultDTO result = stockBulkService.adjustStock(deltas(lines));
+        
+        assertEquals(lines, result.getTotal());
+        assertEquals(100, result.getSucceeded());
+        assertEquals(StockBulkService.CHUNK_SIZE, result.getFailed());
+        for (int i = 0; i < StockBulkService.CHUNK_SIZE; i++) {
+            BatchItemResultDTO line = result.getResults().get(i);
+            assertEquals(BatchItemResultDTO.Status.FAILED, line.getStatus());
+            assertNull(line.getStockQuantity());
+        }
+        assertTrue(result.getResults().get(0).getError().startsWith("Not applied"));
+        assertTrue(result.getResults().get(0).getError().contains("Deadlock detected"));
+        assertEquals(11, result.getResults().get(StockBulkService.CHUNK_SIZE).getStockQuantity());
+        verify(transactionManager).rollback(any());
+        verify(transactionManager).commit(any());
+        verify(eventPublisher, times(100)).publishEvent(any(Object.class));
+    }
+    
+    @Test
+    void testLedgerSyncFailure_LinesAlreadyAppliedStaySucceeded() {
+        when(stockLedger.isEnabled()).thenReturn(true);
+        when(productRepository.findAllById(any())).thenAnswer(invocation ->
+                products(invocation.getArgument(0)));
+        when(stockLedger.adjust(anyLong(), anyInt()))
+                .thenReturn(new StockLedger.StockChange(10, 11))
+                .thenThrow(new UncheckedIOException(new IOException("Stock ledger log failed to sync")));
+        
+        BatchResultDTO result = stockBulkService.adjustStock(deltas(3));
+        
+        assertEquals(1, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertEquals(11, result.getResults().get(0).getStockQuantity());
+        assertTrue(result.getResults().get(1).getError().contains("failed to sync"));
+        verify(transactionManager).commit(any());
+    }
+    
+    @Test
+    void testLedgerChunkFailingBeforeAnyLine_ReportsEveryLineAsNotApplied() {
+        when(stockLedger.isEnabled()).thenReturn(true);
+        when(productRepository.findAllById(any())).thenThrow(new PersistenceException("Connection is closed"));
+        
+        BatchResultDTO result = stockBulkService.adjustStock(deltas(3));
+        
+        assertEquals(3, result.getFailed());
+        assertTrue(result.getResults().get(2).getError().startsWith("Not applied"));
+        verify(stockLedger, never()).adjust(anyLong(), anyInt());
+    }
+    
+    // Lines adding one unit to products 1..count
+    private static List<StockAdjustmentDTO> deltas(int count) {
+        List<StockAdjustmentDTO> lines = new ArrayList<>(count);
+        for (long id = 1; id <= count; id++) {
+            StockAdjustmentDTO line = new StockAdjustmentDTO();
+            line.setId(id);
+            line.setDelta(1);
+            lines.add(line);
+        }
+        return lines;
+    }
+    
+    private static List<Product> products(Iterable<Long> ids) {
+        List<Product> products = new ArrayList<>();
+        for (Long id : ids) {
+            Product product = new Product("Product " + id, "SKU-" + id, null, new BigDecimal("1.00"), 10, 5);
+            product.setId(id);
+            products.add(product);
+        }
+        return products;
+    }
+}
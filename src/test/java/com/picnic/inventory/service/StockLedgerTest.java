@@ -0,0 +1,216 @@
+package com.picnic.inventory.service;
+
+import com.picnic.inventory.dto.ProductChangeDTO;
+import com.picnic.inventory.dto.ProductResponseDTO;
+import com.picnic.inventory.model.Product;
+import com.picnic.inventory.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the stock endpoints' service path with the stock ledger enabled. The scheduled flush is
+ * pushed out of the way so each test decides when deltas reach the table.
+ */
+@SpringBootTest(properties = {
+    "inventory.stock-ledger.enabled=true",
+    "inventory.stock-ledger.fsync=false",
+    "inventory.stock-ledger.flush-interval-ms=3600000"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.ANY)
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class StockLedgerTest {
+    
+    @TempDir
+    static Path ledgerDirectory;
+    
+    @DynamicPropertySource
+    static void ledgerProperties(DynamicPropertyRegistry registry) {
+        registry.add("inventory.stock-ledger.directory", () -> ledgerDirectory.toString());
+    }
+    
+    @Autowired
+    private ProductService productService;
+    
+    @Autowired
+    private ProductRepository productRepository;
+    
+    @Autowired
+    private StockLedger stockLedger;
+    
+    @Autowired
+    private ProductChangeFeed changeFeed;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Test
+    void testConcurrentDecrements_ReadsSeeLedgerAndFlushPersists() throws Exception {
+        Long productId = createProduct("LEDGER-001", "9100000000001", 50).getId();
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 10; i++) {
+                        try {
+                            productService.decrementStock(productId, 1);
+                            succeeded.incrementAndGet();
+                        } catch (IllegalStateException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        assertEquals(50, succeeded.get());
+        assertEquals(30, rejected.get());
+        assertEquals(0, productService.getProductById(productId).orElseThrow().getStockQuantity());
+        // Not yet written behind
+        assertEquals(50, productRepository.findStockQuantityById(productId).orElseThrow());
+        
+        stockLedger.flush();
+        assertEquals(0, productRepository.findStockQuantityById(productId).orElseThrow());
+    }
+    
+    @Test
+    void testLowStockProducts_ReflectUnflushedChanges() {
+        Long productId = createProduct("LEDGER-002", "9100000000002", 20).getId();
+        
+        productService.decrementStock(productId, 15);
+        
+        List<ProductResponseDTO> lowStock = productService.getLowStockProducts();
+        assertTrue(lowStock.stream().anyMatch(product -> product.getId().equals(productId)
+                && product.getStockQuantity() == 5 && product.getIsLowStock()));
+    }
+    
+    @Test
+    void testRestartReplaysAcknowledgedChangesOnce() throws Exception {
+        Long productId = createProduct("LEDGER-003", "9100000000003", 10).getId();
+        
+        productService.decrementStock(productId, 3);
+        productService.incrementStock(productId, 20);
+        assertEquals(10, productRepository.findStockQuantityById(productId).orElseThrow());
+        
+        // A fresh ledger on the same directory stands in for the process after a crash
+        StockLedger recovered = newLedger();
+        recovered.start();
+        assertEquals(27, productRepository.findStockQuantityById(productId).orElseThrow());
+        recovered.stop();
+        
+        // The checkpoint written with the replay keeps a second restart from applying it again
+        StockLedger restartedAgain = newLedger();
+        restartedAgain.start();
+        assertEquals(27, productRepository.findStockQuantityById(productId).orElseThrow());
+        restartedAgain.stop();
+    }
+    
+    @Test
+    void testFailedSync_ChangeIsNeitherVisibleNorKept() throws Exception {
+        Long productId = createProduct("LEDGER-004", "9100000000004", 10).getId();
+        AtomicBoolean failSync = new AtomicBoolean();
+        StockLedgerLog failingLog = new StockLedgerLog(ledgerDirectory, true) {
+            @Override
+            void force(FileChannel channel) throws IOException {
+                if (failSync.get()) {
+                    throw new IOException("Simulated fsync failure");
+                }
+                super.force(channel);
+            }
+        };
+        StockLedger ledger = new StockLedger(productRepository, jdbcTemplate, transactionManager, failingLog, true, 1000);
+        ledger.start();
+        try {
+            assertEquals(7, ledger.adjust(productId, -3).current());
+            
+            failSync.set(true);
+            assertThrows(UncheckedIOException.class, () -> ledger.adjust(productId, -2));
+            assertEquals(7, ledger.currentQuantity(productId).orElseThrow());
+            assertEquals(7, ledger.applyTo(productService.getProductById(productId).orElseThrow()).getStockQuantity());
+            
+            // The log stays failed: later writes are rejected rather than built on an unknown state
+            failSync.set(false);
+            assertThrows(UncheckedIOException.class, () -> ledger.adjust(productId, 1));
+            assertEquals(7, ledger.currentQuantity(productId).orElseThrow());
+        } finally {
+            ledger.stop();
+        }
+    }
+    
+    @Test
+    void testStockUpdate_ReachesLedgerOnlyOnCommit() {
+        Long productId = createProduct("LEDGER-005", "9100000000005", 10).getId();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        
+        transaction.executeWithoutResult(status -> {
+            productService.updateStock(productId, 40);
+            status.setRollbackOnly();
+        });
+        assertEquals(10, productService.getProductById(productId).orElseThrow().getStockQuantity());
+        
+        try (ProductChangeFeed.Subscription changes = changeFeed.subscribe(
+                ProductChangeFeed.Filter.ALL, ProductChangeFeed.Overflow.DROP_OLDEST, null)) {
+            transaction.executeWithoutResult(status -> {
+                productService.updateStock(productId, 40);
+                // Lands between the update and its commit; the update's event must replace 8, not 10
+                stockLedger.adjust(productId, -2);
+            });
+            assertEquals(40, productService.getProductById(productId).orElseThrow().getStockQuantity());
+            ProductChangeDTO change = changes.poll();
+            assertEquals(8, change.getPrevious().getStockQuantity());
+            assertEquals(40, change.getCurrent().getStockQuantity());
+        }
+    }
+    
+    private StockLedger newLedger() {
+        return new StockLedger(productRepository, jdbcTemplate, transactionManager,
+                true, ledgerDirectory.toString(), false, 1000);
+    }
+    
+    private Product createProduct(String sku, String barcode, int stock) {
+        Product product = new Product("Ledger SKU", sku, barcode, new BigDecimal("1.00"), stock, 10);
+        return productRepository.save(product);
+    }
+}
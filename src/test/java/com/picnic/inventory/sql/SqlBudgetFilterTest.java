@@ -0,0 +1,69 @@
+package com.picnic.inventory.sql;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SqlBudgetFilterTest {
+    
+    private static final String[] BUDGETS = {"GET /api/products/{id}=1", " POST  /api/products = 3"};
+    
+    @Test
+    void testBudgetsByEndpointWithDefault() {
+        SqlBudgetFilter filter = new SqlBudgetFilter("log", 50, BUDGETS);
+        
+        assertEquals(1, filter.getBudget("GET", "/api/products/{id}"));
+        assertEquals(3, filter.getBudget("POST", "/api/products"));
+        assertEquals(50, filter.getBudget("DELETE", "/api/products/{id}"));
+    }
+    
+    @Test
+    void testRejectModeFailsOverBudgetRequests() throws Exception {
+        SqlBudgetFilter filter = new SqlBudgetFilter("reject", 50, BUDGETS);
+        
+        filter.doFilter(request("/api/products/{id}"), new MockHttpServletResponse(), statements(1));
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> filter.doFilter(request("/api/products/{id}"), new MockHttpServletResponse(), statements(2)));
+        assertTrue(e.getMessage().contains("GET /api/products/{id} ran 2 SQL statements"));
+    }
+    
+    @Test
+    void testLogModeLetsOverBudgetRequestsThrough() throws Exception {
+        SqlBudgetFilter filter = new SqlBudgetFilter("LOG", 50, BUDGETS);
+        
+        assertDoesNotThrow(() -> filter.doFilter(request("/api/products/{id}"), new MockHttpServletResponse(), statements(5)));
+    }
+    
+    @Test
+    void testNestedScopesBothCount() {
+        try (SqlStatementCounter.Scope outer = SqlStatementCounter.open()) {
+            SqlStatementCounter.record(1_000_000);
+            try (SqlStatementCounter.Scope inner = SqlStatementCounter.open()) {
+                SqlStatementCounter.record(2_000_000);
+                assertEquals(1, inner.getStatements());
+            }
+            SqlStatementCounter.record(1_000_000);
+            assertEquals(3, outer.getStatements());
+            assertEquals(4, outer.getDatabaseTime().toMillis());
+        }
+    }
+    
+    private static MockHttpServletRequest request(String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", pattern.replace("{id}", "7"));
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+    
+    // Stands in for a handler that runs the given number of statements
+    private static FilterChain statements(int count) {
+        return (request, response) -> {
+            for (int i = 0; i < count; i++) {
+                SqlStatementCounter.record(1_000);
+            }
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package com.picnic.inventory.sql;
+
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Statement count assertions for integration tests, e.g.
+ * {@code assertMaxStatements(1, () -> mockMvc.perform(get("/api/products")))}. Only statements
+ * run on the calling thread are counted, which covers MockMvc requests.
+ */
+public final class SqlStatementAssertions {
+    
+    private SqlStatementAssertions() {}
+    
+    public static <T> T assertMaxStatements(int max, Callable<T> work) throws Exception {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            T result = work.call();
+            assertTrue(scope.getStatements() <= max,
+                    () -> "Expected at most " + max + " SQL statements but ran " + scope.getStatements());
+            return result;
+        }
+    }
+    
+    public static <T> T assertStatements(int expected, Callable<T> work) throws Exception {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open()) {
+            T result = work.call();
+            assertEquals(expected, scope.getStatements(), "SQL statements");
+            return result;
+        }
+    }
+}
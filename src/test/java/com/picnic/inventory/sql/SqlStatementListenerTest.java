@@ -0,0 +1,35 @@
+package com.picnic.inventory.sql;
+
+import com.picnic.inventory.config.SqlMonitoringConfiguration;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SqlStatementListenerTest {
+    
+    @Test
+    void testStatementTimeIsRecordedInNanoseconds() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:listener");
+        DataSource dataSource = (DataSource) SqlMonitoringConfiguration.sqlMonitoringDataSourcePostProcessor(200)
+                .postProcessAfterInitialization(h2, "dataSource");
+        
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.open();
+             Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SELECT 1");
+            
+            assertEquals(1, scope.getStatements());
+            // No statement takes under a microsecond; an elapsed time in milliseconds read as
+            // nanoseconds would be a handful of nanoseconds
+            assertTrue(scope.getDatabaseTime().compareTo(Duration.ofNanos(1_000)) >= 0);
+            assertTrue(scope.getDatabaseTime().compareTo(Duration.ofSeconds(5)) < 0);
+        }
+    }
+}